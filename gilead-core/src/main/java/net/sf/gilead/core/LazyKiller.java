@@ -1,5 +1,7 @@
 package net.sf.gilead.core;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -13,6 +15,10 @@ import net.sf.gilead.core.beanlib.clone.CloneBeanReplicator;
 import net.sf.gilead.core.beanlib.merge.BeanlibCache;
 import net.sf.gilead.core.beanlib.merge.MergeBeanPopulator;
 import net.sf.gilead.core.cache.SoftLocalCache;
+import net.sf.gilead.core.copier.CloneContext;
+import net.sf.gilead.core.copier.ConcurrentIdentityMap;
+import net.sf.gilead.core.copier.InPlaceDetachContext;
+import net.sf.gilead.core.copier.MergeContext;
 import net.sf.gilead.core.store.ProxyStore;
 
 /**
@@ -46,6 +52,21 @@ public class LazyKiller {
      */
     private SoftLocalCache<Map<Object, Object>> clonedMap;
 
+    /**
+     * Indicates if clone and merge operations use generated copiers instead of beanlib
+     */
+    private boolean useGeneratedCopier;
+
+    /**
+     * Indicates if plain LightEntity instances are detached in place instead of being cloned
+     */
+    private boolean inPlaceDetach;
+
+    /**
+     * The clone batch of the current thread (generated copier context or beanlib replicator), if any
+     */
+    private ThreadLocal<Object> cloneBatch;
+
     /**
      * Empty constructor
      */
@@ -62,6 +83,7 @@ public class LazyKiller {
      */
     public LazyKiller(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
         this.clonedMap = new SoftLocalCache<>();
+        this.cloneBatch = new ThreadLocal<>();
         setClassMapper(classMapper);
         setPersistenceUtil(persistenceUtil);
         setProxyStore(proxyStore);
@@ -102,6 +124,35 @@ public class LazyKiller {
         this.proxyStore = proxyStore;
     }
 
+    /**
+     * @return true if clone and merge operations use generated copiers
+     */
+    public boolean isUseGeneratedCopier() {
+        return useGeneratedCopier;
+    }
+
+    /**
+     * @param useGeneratedCopier true to use generated copiers instead of beanlib for clone and merge operations
+     */
+    public void setUseGeneratedCopier(boolean useGeneratedCopier) {
+        this.useGeneratedCopier = useGeneratedCopier;
+    }
+
+    /**
+     * @return true if plain LightEntity instances are detached in place
+     */
+    public boolean isInPlaceDetach() {
+        return inPlaceDetach;
+    }
+
+    /**
+     * @param inPlaceDetach true to detach plain (not enhanced) LightEntity instances in place instead of cloning them
+     *            (see {@link InPlaceDetachContext})
+     */
+    public void setInPlaceDetach(boolean inPlaceDetach) {
+        this.inPlaceDetach = inPlaceDetach;
+    }
+
     /**
      * Reset the clone map.
      */
@@ -109,6 +160,63 @@ public class LazyKiller {
         clonedMap.remove();
     }
 
+    /**
+     * Start a clone batch for the current thread : until {@link #endBatch()} is called, every detach operation shares
+     * the same replicator and cloned map, so instances referenced by several pojos are cloned once.
+     */
+    public void beginBatch() {
+        if (useGeneratedCopier || inPlaceDetach) {
+            cloneBatch.set(newCloneContext(new IdentityHashMap<>()));
+        } else {
+            cloneBatch.set(new CloneBeanReplicator(classMapper, persistenceUtil, proxyStore));
+        }
+    }
+
+    /**
+     * Start a clone batch for the current thread, sharing the argument cloned map with other threads. Only available
+     * with generated copiers.
+     *
+     * @param clonedMap the thread safe cloned map (see {@link ConcurrentIdentityMap})
+     */
+    public void beginBatch(Map<Object, Object> clonedMap) {
+        if ((useGeneratedCopier == false) && (inPlaceDetach == false)) {
+            throw new IllegalStateException("Shared cloned map needs generated copiers");
+        }
+        cloneBatch.set(newCloneContext(clonedMap));
+    }
+
+    /**
+     * End the clone batch of the current thread
+     */
+    public void endBatch() {
+        Object batch = cloneBatch.get();
+        if (batch instanceof CloneBeanReplicator) {
+            ((CloneBeanReplicator) batch).reset();
+        }
+        cloneBatch.remove();
+    }
+
+    /**
+     * @return the instances already cloned by the batch of the current thread (source instance -> clone), empty if no
+     *         batch is in progress
+     */
+    public Map<Object, Object> getBatchClonedMap() {
+        Object batch = cloneBatch.get();
+        if (batch instanceof CloneContext) {
+            return ((CloneContext) batch).getClonedMap();
+        } else if (batch instanceof CloneBeanReplicator) {
+            return ((CloneBeanReplicator) batch).getClonedMap();
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return true if a clone batch is in progress for the current thread
+     */
+    public boolean isInBatch() {
+        return cloneBatch.get() != null;
+    }
+
     /**
      * Hibernate detachment
      *
@@ -178,15 +286,44 @@ public class LazyKiller {
      * @return
      */
     protected Object clone(Object hibernatePojo, Class<?> cloneClass) {
+        // Batch handling
+        Object batch = cloneBatch.get();
+        if (batch instanceof CloneContext) {
+            return ((CloneContext) batch).clone(hibernatePojo, cloneClass);
+        } else if (batch instanceof CloneBeanReplicator) {
+            return ((CloneBeanReplicator) batch).copyKeepingClonedMap(hibernatePojo, cloneClass);
+        }
+
+        if (useGeneratedCopier || inPlaceDetach) {
+            return newCloneContext(new IdentityHashMap<>()).clone(hibernatePojo, cloneClass);
+        }
+
         HibernateBeanReplicator replicator = new CloneBeanReplicator(classMapper, persistenceUtil, proxyStore);
         return replicator.copy(hibernatePojo, cloneClass);
     }
 
+    /**
+     * Create the generated copier clone context (in place detach context if enabled)
+     *
+     * @param clonedMap the cloned map to use
+     */
+    private CloneContext newCloneContext(Map<Object, Object> clonedMap) {
+        if (inPlaceDetach) {
+            return new InPlaceDetachContext(clonedMap, classMapper, persistenceUtil, proxyStore);
+        }
+        return new CloneContext(clonedMap, classMapper, persistenceUtil, proxyStore);
+    }
+
     /**
      * Populate the hibernatePojo (a fresh new one or the one used to clone) with the clone detached object. This
      * Hibernate POJO holds the lazy properties information
      */
     public void populate(Object hibernatePojo, Object clonePojo) {
+        if (useGeneratedCopier) {
+            populateWithCopier(hibernatePojo, clonePojo);
+            return;
+        }
+
         // Populate hibernate POJO from the cloned pojo
         BeanPopulator replicator = MergeBeanPopulator.newBeanPopulator(clonePojo, hibernatePojo, classMapper, persistenceUtil, proxyStore);
 
@@ -209,4 +346,26 @@ public class LazyKiller {
         // Fill cloned map if needed
         this.clonedMap.set(transformer.getClonedMap());
     }
+
+    /**
+     * Populate the hibernatePojo with the clone detached object, using generated copiers
+     */
+    protected void populateWithCopier(Object hibernatePojo, Object clonePojo) {
+        // Propagate cloned map if needed
+        Map<Object, Object> clonedMap = this.clonedMap.get();
+        if (clonedMap == null) {
+            clonedMap = new IdentityHashMap<>();
+        }
+
+        // Store root pojo on bean stack
+        BeanlibCache.getToBeanStack().push(hibernatePojo);
+        try {
+            new MergeContext(clonedMap, classMapper, persistenceUtil, proxyStore).populate(clonePojo, hibernatePojo);
+        } finally {
+            BeanlibCache.getToBeanStack().pop();
+        }
+
+        // Fill cloned map if needed
+        this.clonedMap.set(clonedMap);
+    }
 }
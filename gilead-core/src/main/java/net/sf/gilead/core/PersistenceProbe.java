@@ -0,0 +1,137 @@
+package net.sf.gilead.core;
+
+import java.io.Serializable;
+
+/**
+ * Result of a persistence probe (see {@link PersistenceUtil#probe(Object)}) : the persistence state of a pojo, with its
+ * id and entity name when available. Probing never throws for transient, component or not persistent pojos.
+ */
+public final class PersistenceProbe {
+
+    /**
+     * Persistence state
+     */
+    public enum State {
+        /**
+         * Not a persistent class
+         */
+        NOT_PERSISTENT,
+
+        /**
+         * Persistent class without own identity (component or user type)
+         */
+        COMPONENT,
+
+        /**
+         * Entity with an unsaved id
+         */
+        TRANSIENT,
+
+        /**
+         * Entity with a saved id
+         */
+        PERSISTENT
+    }
+
+    /**
+     * Shared not persistent result
+     */
+    private static final PersistenceProbe NOT_PERSISTENT = new PersistenceProbe(State.NOT_PERSISTENT, null, null);
+
+    /**
+     * Shared component result
+     */
+    private static final PersistenceProbe COMPONENT = new PersistenceProbe(State.COMPONENT, null, null);
+
+    /**
+     * The persistence state
+     */
+    private final State state;
+
+    /**
+     * The id (null if not available)
+     */
+    private final Serializable id;
+
+    /**
+     * The entity name (null if not available)
+     */
+    private final String entityName;
+
+    /**
+     * Constructor
+     */
+    private PersistenceProbe(State state, Serializable id, String entityName) {
+        this.state = state;
+        this.id = id;
+        this.entityName = entityName;
+    }
+
+    /**
+     * @return the not persistent result
+     */
+    public static PersistenceProbe notPersistent() {
+        return NOT_PERSISTENT;
+    }
+
+    /**
+     * @return the component result
+     */
+    public static PersistenceProbe component() {
+        return COMPONENT;
+    }
+
+    /**
+     * @return a transient entity result
+     */
+    public static PersistenceProbe transientEntity(Serializable id, String entityName) {
+        return new PersistenceProbe(State.TRANSIENT, id, entityName);
+    }
+
+    /**
+     * @return a persistent entity result
+     */
+    public static PersistenceProbe persistent(Serializable id, String entityName) {
+        return new PersistenceProbe(State.PERSISTENT, id, entityName);
+    }
+
+    /**
+     * @return the persistence state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the id (null if not available)
+     */
+    public Serializable getId() {
+        return id;
+    }
+
+    /**
+     * @return the entity name (null if not available)
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * @return true for an entity with a saved id
+     */
+    public boolean isPersistent() {
+        return state == State.PERSISTENT;
+    }
+
+    /**
+     * @return true for a transient entity or a component (the cases where getId throws TransientObjectException)
+     */
+    public boolean isTransient() {
+        return (state == State.TRANSIENT) || (state == State.COMPONENT);
+    }
+
+    @Override
+    public String toString() {
+        return state + ((entityName != null) ? " " + entityName + "#" + id : "");
+    }
+}
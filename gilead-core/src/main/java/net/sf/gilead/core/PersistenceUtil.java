@@ -1,9 +1,16 @@
 package net.sf.gilead.core;
 
 import java.io.Serializable;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityGraph;
+import net.sf.gilead.exception.ComponentTypeException;
+import net.sf.gilead.exception.NotPersistentObjectException;
+import net.sf.gilead.exception.TransientObjectException;
 
 /**
  * Interface for all Facade over (JPA) persistence engines. It allows the library to work with Hibernate and (soon)
@@ -27,6 +34,13 @@ public interface PersistenceUtil {
      */
     void closeCurrentSession();
 
+    /**
+     * @return true if a session opened with 'openSession' call is bound to the current thread
+     */
+    default boolean hasCurrentSession() {
+        return false;
+    }
+
     /**
      * Load a fresh instance of the persistent Pojo
      * 
@@ -56,11 +70,75 @@ public interface PersistenceUtil {
      */
     boolean isPersistentPojo(Object pojo);
 
+    /**
+     * Probe the persistence state of the pojo, with its id and entity name. Unlike {@link #getId(Object)}, no exception
+     * is thrown for transient, component or not persistent pojos.
+     *
+     * @param pojo the pojo to probe
+     * @return the probe result
+     */
+    default PersistenceProbe probe(Object pojo) {
+        // Precondition checking
+        if (pojo == null) {
+            return PersistenceProbe.notPersistent();
+        }
+
+        return probe(pojo, getUnenhancedClass(pojo.getClass()));
+    }
+
+    /**
+     * Probe the persistence state of the argument DTO associated with the persistent class. This default implementation
+     * relies on {@link #getId(Object, Class)} exceptions.
+     *
+     * @see #probe(Object)
+     */
+    default PersistenceProbe probe(Object pojo, Class<?> persistentClass) {
+        if (isPersistentClass(persistentClass) == false) {
+            return PersistenceProbe.notPersistent();
+        }
+
+        String entityName = getUnenhancedClass(persistentClass).getName();
+        try {
+            return PersistenceProbe.persistent(getId(pojo, persistentClass), entityName);
+        } catch (ComponentTypeException ex) {
+            return PersistenceProbe.component();
+        } catch (TransientObjectException ex) {
+            return PersistenceProbe.transientEntity(null, entityName);
+        } catch (NotPersistentObjectException ex) {
+            return PersistenceProbe.notPersistent();
+        }
+    }
+
     /**
      * Indicates if the class is managed by the persistance container of not
      */
     boolean isPersistentClass(Class<?> clazz);
 
+    /**
+     * Indicates if the argument class is a persistent class, or a supertype of one (interface, mapped superclass...).
+     * Without a metamodel, this default implementation considers any non final class as a possible supertype.
+     */
+    default boolean isPersistentSupertype(Class<?> clazz) {
+        return (isPersistentClass(clazz) == true) || (Modifier.isFinal(clazz.getModifiers()) == false);
+    }
+
+    /**
+     * Indicates if the argument property is an association (entity, collection or map property). Mapped properties
+     * are checked on the persistence metamodel, other ones on their declared type.
+     *
+     * @param clazz the class owning the property
+     * @param propertyName the property name
+     * @param propertyType the declared property type
+     */
+    default boolean isAssociation(Class<?> clazz, String propertyName, Class<?> propertyType) {
+        // No metamodel : check the declared type
+        if (propertyType.isArray()) {
+            propertyType = propertyType.getComponentType();
+        }
+        return Collection.class.isAssignableFrom(propertyType) || Map.class.isAssignableFrom(propertyType)
+                || (isPersistentClass(propertyType) == true);
+    }
+
     /**
      * Get the persistent class without proxy
      * 
@@ -69,7 +147,7 @@ public interface PersistenceUtil {
     Class<?> getUnenhancedClass(Class<?> clazz);
 
     /**
-     * Indicated if the argument class is enhanced or not
+     * Indicated if the argument class is enhanced or not (proxy or bytecode enhanced class)
      * 
      * @param clazz the persistent class
      * @return true is the class is enhanced, false otherwise
@@ -100,6 +178,16 @@ public interface PersistenceUtil {
      */
     boolean isPersistentMap(Class<?> collectionClass);
 
+    /**
+     * Returns the underlying (real) map for the persistent map
+     * 
+     * @param persistentMap the persistent map
+     * @return the underlying map (null if not available)
+     */
+    default Map<?, ?> getUnderlyingMap(Map<?, ?> persistentMap) {
+        return null;
+    }
+
     /**
      * Indicates it the argument is initialized not
      * 
@@ -117,12 +205,12 @@ public interface PersistenceUtil {
     void initialize(Object proxy);
 
     /**
-     * Serialize proxy informations of the argument entity into a map of properties
+     * Serialize proxy informations of the argument entity
      * 
      * @param proxy the proxy to serialize
-     * @return a map of properties
+     * @return the proxy informations
      */
-    Map<String, Serializable> serializeEntityProxy(Object proxy);
+    ProxyInformation serializeEntityProxy(Object proxy);
 
     /**
      * Create an uninitialized proxy from the proxy informations
@@ -130,15 +218,15 @@ public interface PersistenceUtil {
      * @param proxyInformations the serialized proxy informations
      * @return the generated proxy
      */
-    Object createEntityProxy(Map<String, Serializable> proxyInformations);
+    Object createEntityProxy(ProxyInformation proxyInformations);
 
     /**
      * Serialize a persistent collection
      * 
      * @param persistentCollection the persistent collection
-     * @return a Map with mininmum informations needed to re-create the persistent info
+     * @return the mininmum informations needed to re-create the persistent info
      */
-    Map<String, Serializable> serializePersistentCollection(Collection<?> persistentCollection);
+    ProxyInformation serializePersistentCollection(Collection<?> persistentCollection);
 
     /**
      * Create a persistent collection from serialized informations
@@ -148,15 +236,15 @@ public interface PersistenceUtil {
      * @param underlyingCollection the filled underlying collection
      * @return the created persistent collection
      */
-    Collection<?> createPersistentCollection(Object parent, Map<String, Serializable> proxyInformations, Collection<?> underlyingCollection);
+    Collection<?> createPersistentCollection(Object parent, ProxyInformation proxyInformations, Collection<?> underlyingCollection);
 
     /**
      * Serialize a persistent map
      * 
      * @param persistentMap the persistent map
-     * @return a Map with mininmum informations needed to re-create the persistent info
+     * @return the mininmum informations needed to re-create the persistent info
      */
-    Map<String, Serializable> serializePersistentMap(Map<?, ?> persistentMap);
+    ProxyInformation serializePersistentMap(Map<?, ?> persistentMap);
 
     /**
      * Create a persistent map from serialized informations
@@ -166,7 +254,7 @@ public interface PersistenceUtil {
      * @param underlyingMap the filled underlying map
      * @return the created persistent collection
      */
-    Map<?, ?> createPersistentMap(Object parent, Map<String, Serializable> proxyInformations, Map<?, ?> underlyingMap);
+    Map<?, ?> createPersistentMap(Object parent, ProxyInformation proxyInformations, Map<?, ?> underlyingMap);
 
     /**
      * Load an association from the parent object
@@ -177,6 +265,44 @@ public interface PersistenceUtil {
      */
     Object loadAssociation(Class<?> parentClass, Serializable parentId, String propertyName);
 
+    /**
+     * Load an association for several parent objects with a single query
+     * 
+     * @param parentClass class of the parent entities
+     * @param parentIds ids of the parent entities
+     * @param propertyName the name of the property to load
+     * @return the loaded parent entities, with the association initialized (in no particular order)
+     */
+    default List<Object> loadAssociations(Class<?> parentClass, List<Serializable> parentIds, String propertyName) {
+        throw new UnsupportedOperationException("Association batch loading is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Load a page of a collection association, without initializing the whole collection
+     * 
+     * @param parentClass class of the parent entity
+     * @param parentId id of the parent entity
+     * @param propertyName the name of the collection property
+     * @param offset index of the first element to load
+     * @param limit maximum number of elements to load
+     * @return the loaded elements, in collection index order (or element id order for unindexed collections)
+     */
+    default List<Object> loadAssociationPage(Class<?> parentClass, Serializable parentId, String propertyName, int offset, int limit) {
+        throw new UnsupportedOperationException("Association paging is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Count the elements of a collection association, without initializing it
+     * 
+     * @param parentClass class of the parent entity
+     * @param parentId id of the parent entity
+     * @param propertyName the name of the collection property
+     * @return the collection size
+     */
+    default int getAssociationSize(Class<?> parentClass, Serializable parentId, String propertyName) {
+        throw new UnsupportedOperationException("Association size query is not supported by " + getClass().getName());
+    }
+
     /**
      * Executes an EJBQL query.
      * 
@@ -194,4 +320,48 @@ public interface PersistenceUtil {
      * @return the query result list
      */
     List<Object> executeQuery(String query, Map<String, Object> parameters);
-}
\ No newline at end of file
+
+    /**
+     * Executes an EJBQL query and streams its results, without loading the whole result list. The returned stream
+     * must be closed to release the underlying cursor. This default implementation streams the whole result list.
+     * 
+     * @param query the EJBQL query
+     * @param parameters parameters map (can be null)
+     * @param fetchSize the JDBC fetch size
+     * @return the query result stream
+     */
+    default Stream<Object> streamQuery(String query, Map<String, Object> parameters, int fetchSize) {
+        return executeQuery(query, parameters).stream();
+    }
+
+    /**
+     * Remove the argument entity from the current session, if any.
+     * 
+     * @param entity the entity to evict
+     */
+    default void evict(Object entity) {
+        throw new UnsupportedOperationException("Entity eviction is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Evict the argument entity from the current session, and check that it is not attached to another open session
+     * anymore, so that it can be modified without being flushed.
+     * 
+     * @param entity the entity to detach
+     * @return false if the entity is still attached to an open session (always false by default, so that the
+     *         entity is cloned instead)
+     */
+    default boolean detach(Object entity) {
+        return false;
+    }
+
+    /**
+     * Get a named entity graph, declared on the persistent entities.
+     * 
+     * @param graphName the entity graph name
+     * @return the entity graph, or null if not found
+     */
+    default EntityGraph<?> getEntityGraph(String graphName) {
+        throw new UnsupportedOperationException("Entity graphs are not supported by " + getClass().getName());
+    }
+}
@@ -1,36 +1,54 @@
 package net.sf.gilead.core;
 
-import java.beans.BeanInfo;
-import java.beans.IndexedPropertyDescriptor;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.io.Serializable;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import jakarta.persistence.EntityGraph;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.beanlib.utils.ClassUtils;
 import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.core.copier.ConcurrentIdentityMap;
+import net.sf.gilead.core.graph.CloneGraph;
+import net.sf.gilead.core.graph.CloneGraphContext;
+import net.sf.gilead.core.store.NoProxyStore;
 import net.sf.gilead.core.store.ProxyStore;
 import net.sf.gilead.core.store.stateless.StatelessProxyStore;
+import net.sf.gilead.core.store.stateless.StatelessProxyStore.PendingSerialization;
 import net.sf.gilead.exception.CloneException;
 import net.sf.gilead.exception.InvocationException;
 import net.sf.gilead.exception.NotAssignableException;
-import net.sf.gilead.exception.NotPersistentObjectException;
 import net.sf.gilead.exception.TransientObjectException;
+import net.sf.gilead.util.BeanDescriptor;
 import net.sf.gilead.util.CollectionHelper;
+import net.sf.gilead.util.PropertyAccessor;
 
 /**
  * Manager for Persistent POJO handling
@@ -39,6 +57,16 @@ import net.sf.gilead.util.CollectionHelper;
  */
 public class PersistentBeanManager {
 
+    /**
+     * Default minimum collection size for parallel clone
+     */
+    public static final int DEFAULT_PARALLEL_CLONE_THRESHOLD = 256;
+
+    /**
+     * Default chunk size for stream clone
+     */
+    public static final int DEFAULT_STREAM_CHUNK_SIZE = 100;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(PersistentBeanManager.class);
 
     /**
@@ -61,6 +89,32 @@ public class PersistentBeanManager {
      */
     protected LazyKiller lazyKiller;
 
+    /**
+     * Indicates if collections, maps and arrays are cloned in a single batch
+     */
+    protected boolean batchClone;
+
+    /**
+     * Indicates if large collections are cloned in parallel
+     */
+    protected boolean parallelClone;
+
+    /**
+     * Minimum collection size for parallel clone
+     */
+    protected int parallelCloneThreshold = DEFAULT_PARALLEL_CLONE_THRESHOLD;
+
+    /**
+     * The fork/join pool used for parallel clone (common pool if null)
+     */
+    protected ForkJoinPool forkJoinPool;
+
+    /**
+     * Readers to inspect for wrapper detection, per class (see {@link #holdPersistentObject(Object)}). Replaced when
+     * the persistence util changes.
+     */
+    private volatile ClassValue<PropertyAccessor[]> wrapperReaders = createWrapperReaders();
+
     /**
      * The associated persistence util implementation
      */
@@ -132,6 +186,112 @@ public class PersistentBeanManager {
         LOGGER.debug("Using persistence util : " + persistenceUtil);
         this.persistenceUtil = persistenceUtil;
         lazyKiller.setPersistenceUtil(persistenceUtil);
+        wrapperReaders = createWrapperReaders();
+    }
+
+    /**
+     * @return true if clone and merge operations use generated copiers
+     */
+    public boolean isUseGeneratedCopier() {
+        return lazyKiller.isUseGeneratedCopier();
+    }
+
+    /**
+     * Use copiers generated for each (source, target) class pair instead of beanlib for clone and merge operations. The
+     * flag switches both directions : merge then populates the persistent entities with the same copiers. Copiers are
+     * defined in the package of the target class : on Java 9 and later, entities of named modules must open their
+     * package to Gilead, otherwise the slower reflective copier is used (see
+     * {@link net.sf.gilead.core.copier.BeanCopierFactory}).
+     *
+     * @param useGeneratedCopier the generated copier flag
+     */
+    public void setUseGeneratedCopier(boolean useGeneratedCopier) {
+        LOGGER.debug("Using generated copier : " + useGeneratedCopier);
+        lazyKiller.setUseGeneratedCopier(useGeneratedCopier);
+    }
+
+    /**
+     * @return true if plain LightEntity instances are detached in place
+     */
+    public boolean isInPlaceDetach() {
+        return lazyKiller.isInPlaceDetach();
+    }
+
+    /**
+     * Opt-in in place detach mode : plain Java 5 {@link net.sf.gilead.pojo.java5.LightEntity} instances (not enhanced
+     * and not class mapped) are evicted from the session and detached in place instead of being copied. Other
+     * instances, and entities still attached to another open session, are still cloned.
+     *
+     * @param inPlaceDetach true to detach LightEntity instances in place
+     */
+    public void setInPlaceDetach(boolean inPlaceDetach) {
+        LOGGER.debug("Using in place detach : " + inPlaceDetach);
+        lazyKiller.setInPlaceDetach(inPlaceDetach);
+    }
+
+    /**
+     * @return true if collections, maps and arrays are cloned in a single batch
+     */
+    public boolean isBatchClone() {
+        return batchClone;
+    }
+
+    /**
+     * Clone collections, maps and arrays in a single batch : one flush, one replicator and cloned map for the whole
+     * batch, and one clean up at the end. Instances shared between elements are cloned once.
+     *
+     * @param batchClone the batch clone flag
+     */
+    public void setBatchClone(boolean batchClone) {
+        LOGGER.debug("Using batch clone : " + batchClone);
+        this.batchClone = batchClone;
+    }
+
+    /**
+     * @return true if large collections are cloned in parallel
+     */
+    public boolean isParallelClone() {
+        return parallelClone;
+    }
+
+    /**
+     * Clone large collections in parallel, with a fork/join pool. Parallel clone needs generated copiers (see
+     * {@link #setUseGeneratedCopier(boolean)}) and a thread safe proxy store (stateless or no proxy store) :
+     * otherwise, collections are cloned sequentially.
+     *
+     * @param parallelClone the parallel clone flag
+     */
+    public void setParallelClone(boolean parallelClone) {
+        LOGGER.debug("Using parallel clone : " + parallelClone);
+        this.parallelClone = parallelClone;
+    }
+
+    /**
+     * @return the minimum collection size for parallel clone
+     */
+    public int getParallelCloneThreshold() {
+        return parallelCloneThreshold;
+    }
+
+    /**
+     * @param parallelCloneThreshold the minimum collection size for parallel clone
+     */
+    public void setParallelCloneThreshold(int parallelCloneThreshold) {
+        this.parallelCloneThreshold = parallelCloneThreshold;
+    }
+
+    /**
+     * @return the fork/join pool used for parallel clone
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * @param forkJoinPool the fork/join pool used for parallel clone (common pool if null)
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
     }
 
     /**
@@ -144,6 +304,13 @@ public class PersistentBeanManager {
 
     public Object clone(Object object, boolean assignable) {
         try {
+            if ((parallelClone == true) && (object instanceof Collection) && canCloneInParallel((Collection<?>) object)) {
+                return cloneParallel((Collection<?>) object, assignable);
+            }
+            if ((batchClone == true) && (object != null)
+                    && ((object instanceof Collection) || (object instanceof Map) || object.getClass().isArray())) {
+                return cloneBatch(object, assignable);
+            }
             return cloneInternal(object, assignable);
         } finally {
             proxyStore.cleanUp();
@@ -151,6 +318,199 @@ public class PersistentBeanManager {
         }
     }
 
+    /**
+     * Clone and store the Hibernate POJO(s), restricted to the associations of the argument named entity graph
+     *
+     * @param object the Hibernate POJO(s) to clone
+     * @param graphName the entity graph name (see {@link PersistenceUtil#getEntityGraph(String)})
+     * @return the clone
+     */
+    public Object cloneWithGraph(Object object, String graphName) {
+        if (persistenceUtil == null) {
+            throw new RuntimeException("No Persistence Util set !");
+        }
+
+        EntityGraph<?> entityGraph = persistenceUtil.getEntityGraph(graphName);
+        if (entityGraph == null) {
+            throw new IllegalArgumentException("Unknown entity graph : " + graphName);
+        }
+        return cloneWithGraph(object, CloneGraph.of(entityGraph));
+    }
+
+    /**
+     * Clone and store the Hibernate POJO(s), restricted to the associations of the argument entity graph
+     *
+     * @param object the Hibernate POJO(s) to clone
+     * @param entityGraph the JPA entity graph
+     * @return the clone
+     */
+    public Object cloneWithGraph(Object object, EntityGraph<?> entityGraph) {
+        return cloneWithGraph(object, (entityGraph != null) ? CloneGraph.of(entityGraph) : null);
+    }
+
+    /**
+     * Clone and store the Hibernate POJO(s), restricted to the associations of the argument clone graph. Associations
+     * outside the graph are neither read nor stored in the proxy store, and are null on the clone. Collections, maps
+     * and arrays are never cloned in parallel with a graph.
+     *
+     * @param object the Hibernate POJO(s) to clone
+     * @param graph the clone graph, applied to the root POJO (or to each collection element)
+     * @return the clone
+     */
+    public Object cloneWithGraph(Object object, CloneGraph graph) {
+        if (graph == null) {
+            return clone(object);
+        }
+
+        LOGGER.debug("Cloning with graph {}", graph);
+        CloneGraphContext.begin(graph);
+        try {
+            if ((batchClone == true) && (object != null)
+                    && ((object instanceof Collection) || (object instanceof Map) || object.getClass().isArray())) {
+                return cloneBatch(object, false);
+            }
+            return cloneInternal(object, false);
+        } finally {
+            CloneGraphContext.end();
+            proxyStore.cleanUp();
+            lazyKiller.reset();
+        }
+    }
+
+    /**
+     * Clone a collection, map or array in a single batch
+     *
+     * @param object the collection, map or array to clone
+     * @param assignable if the assignation from source to target class (via ClassMapper) must be checked
+     * @return the clone
+     */
+    protected Object cloneBatch(Object object, boolean assignable) {
+        if (persistenceUtil == null) {
+            throw new RuntimeException("No Persistence Util set !");
+        }
+
+        // Flush any pending modifications once
+        persistenceUtil.flushIfNeeded();
+
+        lazyKiller.beginBatch();
+        try {
+            return cloneInternal(object, assignable);
+        } finally {
+            lazyKiller.endBatch();
+            persistenceUtil.closeCurrentSession();
+        }
+    }
+
+    /**
+     * Clone a stream of Hibernate POJO, chunk by chunk
+     *
+     * @see #cloneStream(Stream, int)
+     */
+    public <T> Stream<T> cloneStream(Stream<?> stream) {
+        return cloneStream(stream, DEFAULT_STREAM_CHUNK_SIZE);
+    }
+
+    /**
+     * Clone a stream of Hibernate POJO. The source stream is consumed lazily, chunk by chunk : each chunk is cloned in a
+     * single batch, then every persistent entity reached by the clone (the chunk POJO and their loaded associations) is
+     * evicted from the session, so unbounded result sets can be cloned in bounded memory. The returned stream must be
+     * closed : it closes the source stream and the current session.
+     * <p>
+     * Entities already managed by the caller in the same session are evicted too if they are reached by the streamed
+     * POJO : they are detached, so their later modifications are not flushed anymore and their lazy associations cannot
+     * be loaded. Entities that are not reached are left untouched.
+     *
+     * @param stream the stream of Hibernate POJO (a query result stream, for instance)
+     * @param chunkSize the number of POJO cloned in each batch
+     * @return the stream of clones
+     */
+    public <T> Stream<T> cloneStream(Stream<?> stream, int chunkSize) {
+        // Precondition checking
+        if (stream == null) {
+            return null;
+        }
+        if (persistenceUtil == null) {
+            throw new RuntimeException("No Persistence Util set !");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size : " + chunkSize);
+        }
+
+        // Flush any pending modifications before clone
+        persistenceUtil.flushIfNeeded();
+
+        Iterator<T> iterator = new CloneStreamIterator<>(stream.iterator(), chunkSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(() -> {
+            try {
+                stream.close();
+            } finally {
+                persistenceUtil.closeCurrentSession();
+            }
+        });
+    }
+
+    /**
+     * Indicates if the argument collection can be cloned in parallel
+     */
+    protected boolean canCloneInParallel(Collection<?> collection) {
+        if (collection.size() < parallelCloneThreshold) {
+            return false;
+        }
+        if (lazyKiller.isInPlaceDetach() == true) {
+            // Sessions are not thread safe : in place detach evicts entities
+            LOGGER.debug("Parallel clone is not available with in place detach : cloning sequentially.");
+            return false;
+        }
+        if ((lazyKiller.isUseGeneratedCopier() == false)
+                || (((proxyStore instanceof StatelessProxyStore) == false) && ((proxyStore instanceof NoProxyStore) == false))) {
+            LOGGER.debug("Parallel clone needs generated copiers and a thread safe proxy store : cloning sequentially.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Clone a collection in parallel. Each worker thread clones a contiguous part of the collection, sharing a
+     * concurrent cloned map, so instances shared between elements are still cloned once. Element order is kept. The
+     * proxy store is cleaned up once, on the calling thread. Sessions opened by worker threads (entity name or lazy
+     * property lookups) are closed at the end of each chunk.
+     *
+     * @param hibernatePojoList the collection to clone
+     * @param assignable if the assignation from source to target class (via ClassMapper) must be checked
+     * @return the cloned collection
+     */
+    protected Collection<?> cloneParallel(Collection<?> hibernatePojoList, boolean assignable) {
+        if (persistenceUtil == null) {
+            throw new RuntimeException("No Persistence Util set !");
+        }
+
+        // Flush any pending modifications once
+        persistenceUtil.flushIfNeeded();
+
+        Object[] source = hibernatePojoList.toArray();
+        Object[] target = new Object[source.length];
+
+        ForkJoinPool pool = (forkJoinPool != null) ? forkJoinPool : ForkJoinPool.commonPool();
+        int chunkSize = Math.max(1, source.length / (pool.getParallelism() * 4));
+        Queue<PendingSerialization> pendingSerializations = new ConcurrentLinkedQueue<>();
+        try {
+            pool.invoke(new ParallelCloneTask(source, target, 0, source.length, chunkSize, new ConcurrentIdentityMap(), assignable,
+                    pendingSerializations));
+        } finally {
+            // Asynchronous serializations of worker threads are waited for by the calling thread
+            if (proxyStore instanceof StatelessProxyStore) {
+                ((StatelessProxyStore) proxyStore).addPendingSerializations(new ArrayList<>(pendingSerializations));
+            }
+            persistenceUtil.closeCurrentSession();
+            proxyStore.cleanUp();
+        }
+
+        // Keep element order
+        Collection<Object> clonePojoList = createNewCollection(hibernatePojoList);
+        clonePojoList.addAll(Arrays.asList(target));
+        return clonePojoList;
+    }
+
     /**
      * Clone and store the Hibernate POJO
      *
@@ -167,8 +527,10 @@ public class PersistentBeanManager {
             throw new RuntimeException("No Persistence Util set !");
         }
 
-        // Flush any pending modifications before clone
-        persistenceUtil.flushIfNeeded();
+        // Flush any pending modifications before clone (done once for batch)
+        if (lazyKiller.isInBatch() == false) {
+            persistenceUtil.flushIfNeeded();
+        }
 
         // Collection handling
         if (object instanceof Collection) {
@@ -285,8 +647,11 @@ public class PersistentBeanManager {
             // Clone the pojo
             return lazyKiller.detach(pojo, targetClass);
         } finally {
-            persistenceUtil.closeCurrentSession();
-            proxyStore.cleanUp();
+            // Batch is cleaned up once at the end
+            if (lazyKiller.isInBatch() == false) {
+                persistenceUtil.closeCurrentSession();
+                proxyStore.cleanUp();
+            }
         }
     }
 
@@ -349,15 +714,10 @@ public class PersistentBeanManager {
 
         // Retrieve the pojo
         try {
-            Serializable id = null;
-            try {
-                id = persistenceUtil.getId(clonePojo, hibernateClass);
-                if (id == null) {
-                    LOGGER.debug("Hibernate POJO not found... Can be transient or deleted data [{}].", clonePojo.getClass().getName());
-                }
-            } catch (TransientObjectException ex) {
+            PersistenceProbe probe = persistenceUtil.probe(clonePojo, hibernateClass);
+            if (probe.isTransient() == true) {
                 LOGGER.error("Transient object [{}].", clonePojo);
-            } catch (NotPersistentObjectException ex) {
+            } else if (probe.getState() == PersistenceProbe.State.NOT_PERSISTENT) {
                 if (holdPersistentObject(clonePojo) == false) {
                     // Not a persistent instance, since they do not necessary implement the Java bean
                     // specification
@@ -563,7 +923,7 @@ public class PersistentBeanManager {
      * @return true if the pojo contains persistent member, false otherwise
      */
     protected boolean holdPersistentObject(Object pojo) {
-        return holdPersistentObject(pojo, new ArrayList<>());
+        return holdPersistentObject(pojo, Collections.newSetFromMap(new IdentityHashMap<>()));
     }
 
     /**
@@ -571,76 +931,42 @@ public class PersistentBeanManager {
      * holding persistent associations)
      *
      * @param pojo the wrapping pojo
-     * @param alreadyChecked list of already checked pojos
+     * @param alreadyChecked identity set of already checked pojos
      * @return true if the pojo contains persistent member, false otherwise
      */
-    protected boolean holdPersistentObject(Object pojo, List<Object> alreadyChecked) {
-        try {
-            // Precondition checking
-            if ((pojo == null) || (alreadyChecked.contains(pojo))) {
-                return false;
-            }
+    protected boolean holdPersistentObject(Object pojo, Set<Object> alreadyChecked) {
+        // Precondition checking
+        if ((pojo == null) || (alreadyChecked.add(pojo) == false)) {
+            return false;
+        }
 
-            alreadyChecked.add(pojo);
-            Class<?> pojoClass = pojo.getClass();
-            if (classMapper != null) {
-                Class<?> sourceClass = classMapper.getSourceClass(pojoClass);
-                if (sourceClass != null) {
-                    pojoClass = sourceClass;
-                }
+        Class<?> pojoClass = pojo.getClass();
+        if (classMapper != null) {
+            Class<?> sourceClass = classMapper.getSourceClass(pojoClass);
+            if (sourceClass != null) {
+                pojoClass = sourceClass;
             }
+        }
 
-            if ((persistenceUtil.isEnhanced(pojoClass) == true) || (persistenceUtil.isPersistentClass(pojoClass) == true)
-                    || (persistenceUtil.isPersistentCollection(pojoClass) == true)) {
-                return true;
-            }
+        if ((persistenceUtil.isEnhanced(pojoClass) == true) || (persistenceUtil.isPersistentClass(pojoClass) == true)
+                || (persistenceUtil.isPersistentCollection(pojoClass) == true)) {
+            return true;
+        }
 
-            if (pojo instanceof Collection) {
-                @SuppressWarnings({ "unchecked", "rawtypes" })
-                Collection<Object> pojoCollection = (Collection) pojo;
-                for (Object item : pojoCollection) {
-                    if (holdPersistentObject(item, alreadyChecked)) {
-                        return true;
-                    }
+        if (pojo instanceof Collection) {
+            for (Object item : (Collection<?>) pojo) {
+                if (holdPersistentObject(item, alreadyChecked)) {
+                    return true;
                 }
-
-                return false;
             }
 
-            // Iterate over properties
-            BeanInfo info = Introspector.getBeanInfo(pojo.getClass());
-            PropertyDescriptor[] descriptors = info.getPropertyDescriptors();
-            for (PropertyDescriptor descriptor : descriptors) {
-                Class<?> propertyClass = descriptor.getPropertyType();
-                if (propertyClass == null) {
-                    // Indexed property
-                    propertyClass = ((IndexedPropertyDescriptor) descriptor).getPropertyType();
-                } else if (propertyClass.isArray()) {
-                    propertyClass = propertyClass.getComponentType();
-                }
-                if (propertyClass == null) {
-                    // Can do nothing with this...
-                    continue;
-                }
-
-                // Check needed for collection or property declared as bare Object
-                boolean isCollection = Collection.class.isAssignableFrom(propertyClass) || Map.class.isAssignableFrom(propertyClass);
-                boolean isObject = propertyClass.equals(Object.class);
-
-                if ((ClassUtils.immutable(propertyClass) == true)
-                        || ((ClassUtils.isJavaPackage(propertyClass) == true) && (isCollection == false) && (isObject == false))) {
-                    // Basic type : no check needed
-                    continue;
-                }
-
-                // Not a basic type, so a check is needed collection and recursive search handling
-                Method readMethod = descriptor.getReadMethod();
-                if (readMethod == null) {
-                    continue;
-                }
-                readMethod.setAccessible(true);
-                Object propertyValue = readMethod.invoke(pojo, (Object[]) null);
+            return false;
+        }
 
+        try {
+            // Only inspect properties that can hold persistent objects (computed once per class)
+            for (PropertyAccessor reader : getWrapperReaders(pojo.getClass())) {
+                Object propertyValue = reader.get(pojo);
                 if (propertyValue == null) {
                     continue;
                 }
@@ -651,8 +977,7 @@ public class PersistentBeanManager {
                 }
 
                 // Get real property class
-                propertyClass = propertyValue.getClass();
-
+                Class<?> propertyClass = propertyValue.getClass();
                 if ((classMapper != null) && (classMapper.getSourceClass(propertyClass) != null)) {
                     propertyClass = classMapper.getSourceClass(propertyClass);
                 }
@@ -664,41 +989,281 @@ public class PersistentBeanManager {
                 // Check property value
                 if (propertyValue instanceof Collection<?>) {
                     // Check collection values
-                    Collection<?> propertyCollection = (Collection<?>) propertyValue;
-                    for (Object value : propertyCollection) {
+                    for (Object value : (Collection<?>) propertyValue) {
                         if (holdPersistentObject(value, alreadyChecked) == true) {
                             return true;
                         }
                     }
                 } else if (propertyValue instanceof Map<?, ?>) {
                     // Check map entry and values
-                    Map<?, ?> propertyMap = (Map<?, ?>) propertyValue;
-                    for (Map.Entry<?, ?> value : propertyMap.entrySet()) {
+                    for (Map.Entry<?, ?> value : ((Map<?, ?>) propertyValue).entrySet()) {
                         if ((holdPersistentObject(value.getKey(), alreadyChecked) == true)
                                 || (holdPersistentObject(value.getValue(), alreadyChecked) == true)) {
                             return true;
                         }
                     }
-                } else if (propertyClass.isArray()) {
+                } else if (propertyValue instanceof Object[]) {
                     // Check array elements
-                    Object[] propertyValues = (Object[]) propertyValue;
-                    for (Object propertyValue2 : propertyValues) {
-                        if (holdPersistentObject(propertyValue2) == true) {
+                    for (Object value : (Object[]) propertyValue) {
+                        if (holdPersistentObject(value, alreadyChecked) == true) {
                             return true;
                         }
                     }
-                } else {
+                } else if (holdPersistentObject(propertyValue, alreadyChecked) == true) {
                     // Recursive search
-                    if (holdPersistentObject(propertyValue, alreadyChecked) == true) {
+                    return true;
+                }
+            }
+        } catch (InvocationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvocationException(e);
+        }
+
+        // No persistent property
+        return false;
+    }
+
+    /**
+     * Get the readers of the properties that can hold persistent objects, for the argument class. An empty array means
+     * that instances of the class can never hold persistent objects.
+     *
+     * @param clazz the wrapper class
+     * @return the readers to inspect
+     */
+    protected PropertyAccessor[] getWrapperReaders(Class<?> clazz) {
+        return wrapperReaders.get(clazz);
+    }
+
+    /**
+     * @return a new registry of the readers to inspect for wrapper detection
+     */
+    private ClassValue<PropertyAccessor[]> createWrapperReaders() {
+        return new ClassValue<PropertyAccessor[]>() {
+            @Override
+            protected PropertyAccessor[] computeValue(Class<?> clazz) {
+                List<PropertyAccessor> readerList = new ArrayList<>();
+                for (PropertyAccessor reader : BeanDescriptor.forClass(clazz).getPublicReaders()) {
+                    if (canHoldPersistentObject(reader.getMethod().getGenericReturnType(), new HashSet<Class<?>>()) == true) {
+                        readerList.add(reader);
+                    }
+                }
+                return readerList.toArray(new PropertyAccessor[readerList.size()]);
+            }
+        };
+    }
+
+    /**
+     * Static analysis of a property type : can its values hold persistent objects ? Only primitives, immutable types,
+     * Java classes other than collections and maps, and final classes without such properties are pruned. Values of
+     * any other declared type are inspected with the readers of their runtime class, since a subclass can hold
+     * persistent objects.
+     *
+     * @param type the declared property type
+     * @param visiting the classes being analysed (cycle handling)
+     * @return false if values of this type can never hold persistent objects
+     */
+    protected boolean canHoldPersistentObject(Type type, Set<Class<?>> visiting) {
+        if (type instanceof ParameterizedType) {
+            Class<?> rawClass = (Class<?>) ((ParameterizedType) type).getRawType();
+            if ((ClassUtils.isJavaPackage(rawClass) == true)
+                    && (Collection.class.isAssignableFrom(rawClass) || Map.class.isAssignableFrom(rawClass))) {
+                // Java collection : depends on its element types
+                for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                    if (canHoldPersistentObject(argument, visiting) == true) {
                         return true;
                     }
                 }
+                return false;
             }
+            return canHoldPersistentObject(rawClass, visiting);
+        } else if (type instanceof GenericArrayType) {
+            return canHoldPersistentObject(((GenericArrayType) type).getGenericComponentType(), visiting);
+        } else if ((type instanceof Class) == false) {
+            // Type variable or wildcard
+            return true;
+        }
 
-            // No persistent property
+        Class<?> clazz = (Class<?>) type;
+        if (clazz.isArray()) {
+            return canHoldPersistentObject(clazz.getComponentType(), visiting);
+        }
+
+        // Basic types
+        if (clazz.isPrimitive() || (ClassUtils.immutable(clazz) == true)) {
             return false;
-        } catch (Exception e) {
-            throw new InvocationException(e);
+        }
+        if (Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz) || clazz.equals(Object.class)) {
+            // Raw collection or bare Object
+            return true;
+        }
+
+        // Persistent class or supertype of a persistent class (Serializable...)
+        if (persistenceUtil.isPersistentSupertype(clazz) == true) {
+            return true;
+        }
+        if (ClassUtils.isJavaPackage(clazz) == true) {
+            return false;
+        }
+
+        // Values of non final classes can be subclasses holding persistent objects
+        if (Modifier.isFinal(clazz.getModifiers()) == false) {
+            return true;
+        }
+
+        // Final class : check its own properties
+        if (visiting.add(clazz) == false) {
+            return false;
+        }
+        for (PropertyAccessor reader : BeanDescriptor.forClass(clazz).getPublicReaders()) {
+            if (canHoldPersistentObject(reader.getMethod().getGenericReturnType(), visiting) == true) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fork/join task for parallel clone
+     */
+    private class ParallelCloneTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] source;
+
+        private final Object[] target;
+
+        private final int from;
+
+        private final int to;
+
+        private final int chunkSize;
+
+        private final Map<Object, Object> clonedMap;
+
+        private final boolean assignable;
+
+        private final Queue<PendingSerialization> pendingSerializations;
+
+        ParallelCloneTask(Object[] source, Object[] target, int from, int to, int chunkSize, Map<Object, Object> clonedMap, boolean assignable,
+                Queue<PendingSerialization> pendingSerializations) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.clonedMap = clonedMap;
+            this.assignable = assignable;
+            this.pendingSerializations = pendingSerializations;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                // Split
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParallelCloneTask(source, target, from, middle, chunkSize, clonedMap, assignable, pendingSerializations),
+                        new ParallelCloneTask(source, target, middle, to, chunkSize, clonedMap, assignable, pendingSerializations));
+                return;
+            }
+
+            // The batch is thread confined : the proxy store is cleaned up by the calling thread (see cloneParallel),
+            // pending serializations are handed over to it
+            boolean ownSession = (persistenceUtil.hasCurrentSession() == false);
+            lazyKiller.beginBatch(clonedMap);
+            try {
+                for (int index = from; index < to; index++) {
+                    target[index] = cloneInternal(source[index], assignable);
+                }
+            } finally {
+                lazyKiller.endBatch();
+                if (proxyStore instanceof StatelessProxyStore) {
+                    pendingSerializations.addAll(((StatelessProxyStore) proxyStore).takePendingSerializations());
+                }
+                if (ownSession == true) {
+                    // Do not leave a session bound to the pool thread
+                    persistenceUtil.closeCurrentSession();
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterator over the clones of a source iterator, cloned chunk by chunk
+     */
+    private class CloneStreamIterator<T> implements Iterator<T> {
+
+        private final Iterator<?> source;
+
+        private final int chunkSize;
+
+        private final List<Object> chunk;
+
+        private Iterator<Object> clones;
+
+        CloneStreamIterator(Iterator<?> source, int chunkSize) {
+            this.source = source;
+            this.chunkSize = chunkSize;
+            this.chunk = new ArrayList<>(chunkSize);
+            this.clones = Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (clones.hasNext() == false) {
+                cloneNextChunk();
+            }
+            return clones.hasNext();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            return (T) clones.next();
+        }
+
+        /**
+         * Clone the next chunk of the source iterator in a single batch, then evict its originals and the entities
+         * reached by their clone
+         */
+        private void cloneNextChunk() {
+            chunk.clear();
+            while ((chunk.size() < chunkSize) && source.hasNext()) {
+                chunk.add(source.next());
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            List<Object> cloneChunk = new ArrayList<>(chunk.size());
+            List<Object> originals;
+            lazyKiller.beginBatch();
+            try {
+                for (Object pojo : chunk) {
+                    cloneChunk.add(cloneInternal(pojo, false));
+                }
+
+                // Every instance reached by the clone of the chunk
+                originals = new ArrayList<>(lazyKiller.getBatchClonedMap().keySet());
+            } finally {
+                lazyKiller.endBatch();
+                proxyStore.cleanUp();
+                lazyKiller.reset();
+            }
+
+            // Release originals (evict ignores non persistent instances)
+            for (Object pojo : chunk) {
+                persistenceUtil.evict(pojo);
+            }
+            for (Object original : originals) {
+                persistenceUtil.evict(original);
+            }
+            chunk.clear();
+            clones = cloneChunk.iterator();
         }
     }
 }
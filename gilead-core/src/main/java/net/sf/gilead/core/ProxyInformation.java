@@ -0,0 +1,558 @@
+package net.sf.gilead.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.gilead.core.serialization.CompactIdList;
+import net.sf.gilead.core.serialization.SerializableId;
+import net.sf.gilead.pojo.base.ILightEntity;
+
+/**
+ * Immutable proxy informations of a lazy property, persistent collection or persistent map, as computed by the
+ * {@link PersistenceUtil} implementation during clone and used back during merge. The former string keyed map format is
+ * still available through {@link #toMap()} and {@link #fromMap(Map)}.
+ */
+public final class ProxyInformation implements Serializable {
+
+    /**
+     * Serialization ID
+     */
+    private static final long serialVersionUID = 6186127361652871532L;
+
+    /**
+     * Legacy map key of the proxy id
+     */
+    private static final String ID = "id";
+
+    /**
+     * Legacy map key of the entity or persistent collection class name
+     */
+    private static final String CLASS_NAME = "class";
+
+    /**
+     * Legacy map key of the underlying collection class name
+     */
+    private static final String UNDERLYING_COLLECTION = "underlying";
+
+    /**
+     * Legacy map key of the persistent collection role
+     */
+    private static final String ROLE = "role";
+
+    /**
+     * Legacy map key of the persistent collection owner key
+     */
+    private static final String KEY = "key";
+
+    /**
+     * Legacy map key of the persistent collection ids list (or persistent map keys list)
+     */
+    private static final String ID_LIST = "idList";
+
+    /**
+     * Legacy map key of the entity name shared by the ids list (compact ids list)
+     */
+    private static final String ID_ENTITY = "idEntity";
+
+    /**
+     * Legacy map key of the ids count (digest snapshot)
+     */
+    private static final String ID_COUNT = "idCount";
+
+    /**
+     * Legacy map key of the ids digest (digest snapshot)
+     */
+    private static final String ID_DIGEST = "idDigest";
+
+    /**
+     * Legacy map key of the persistent map values list
+     */
+    private static final String VALUE_LIST = "valueList";
+
+    /**
+     * Legacy map key of the persistent map entries list (key and value ids in turn)
+     */
+    private static final String ENTRY_LIST = "entryList";
+
+    /**
+     * Binary encoding value tags
+     */
+    private static final byte NULL_VALUE = 0;
+
+    private static final byte LONG_VALUE = 1;
+
+    private static final byte INTEGER_VALUE = 2;
+
+    private static final byte STRING_VALUE = 3;
+
+    private static final byte SERIALIZED_VALUE = 4;
+
+    /**
+     * Binary encoding ids list sizes for null and compact ids lists
+     */
+    private static final int NULL_IDS = -1;
+
+    private static final int COMPACT_IDS = -2;
+
+    /**
+     * Entity class name (entity proxy) or persistent collection class name
+     */
+    private final String className;
+
+    /**
+     * Entity proxy id
+     */
+    private final Serializable id;
+
+    /**
+     * Underlying collection class name (persistent collection)
+     */
+    private final String underlyingClassName;
+
+    /**
+     * Collection role (persistent collection and map)
+     */
+    private final String role;
+
+    /**
+     * Owner key (persistent collection and map)
+     */
+    private final Serializable key;
+
+    /**
+     * Element ids (persistent collection) or key and value ids in turn (persistent map)
+     */
+    private final List<SerializableId> ids;
+
+    /**
+     * Element count (digest snapshot only)
+     */
+    private final int idCount;
+
+    /**
+     * Digest of the element ids, sent instead of the ids (null if the ids are sent)
+     */
+    private final String idDigest;
+
+    /**
+     * Initialization state (null if unknown)
+     */
+    private final Boolean initialized;
+
+    /**
+     * Constructor
+     */
+    private ProxyInformation(String className, Serializable id, String underlyingClassName, String role, Serializable key,
+            List<SerializableId> ids, int idCount, String idDigest, Boolean initialized) {
+        this.className = className;
+        this.id = id;
+        this.underlyingClassName = underlyingClassName;
+        this.role = role;
+        this.key = key;
+        this.ids = ((ids == null) || (ids instanceof CompactIdList)) ? ids : Collections.unmodifiableList(ids);
+        this.idCount = idCount;
+        this.idDigest = idDigest;
+        this.initialized = initialized;
+    }
+
+    /**
+     * @return the proxy informations of an entity proxy
+     */
+    public static ProxyInformation forEntityProxy(String className, Serializable id) {
+        return new ProxyInformation(className, id, null, null, null, null, 0, null, null);
+    }
+
+    /**
+     * @param idList the element ids, or null if the collection is empty or not initialized
+     * @return the proxy informations of a persistent collection
+     */
+    public static ProxyInformation forPersistentCollection(String className, String underlyingClassName, String role, Serializable key,
+            List<SerializableId> idList) {
+        return new ProxyInformation(className, null, underlyingClassName, role, key, idList, 0, null, null);
+    }
+
+    /**
+     * @param idCount the element count
+     * @param idDigest the digest of the element ids
+     * @return the proxy informations of a persistent collection, with a digest snapshot instead of the element ids
+     */
+    public static ProxyInformation forPersistentCollectionDigest(String className, String underlyingClassName, String role,
+            Serializable key, int idCount, String idDigest) {
+        return new ProxyInformation(className, null, underlyingClassName, role, key, null, idCount, idDigest, null);
+    }
+
+    /**
+     * @param entryList the key and value ids in turn, or null if the map is empty or not initialized
+     * @return the proxy informations of a persistent map
+     */
+    public static ProxyInformation forPersistentMap(String className, String role, Serializable key, List<SerializableId> entryList) {
+        return new ProxyInformation(className, null, null, role, key, entryList, 0, null, null);
+    }
+
+    /**
+     * @return a copy of this proxy informations with the argument initialization state
+     */
+    public ProxyInformation withInitialized(boolean initialized) {
+        if (Boolean.valueOf(initialized).equals(this.initialized)) {
+            return this;
+        }
+        return new ProxyInformation(className, id, underlyingClassName, role, key, ids, idCount, idDigest, initialized);
+    }
+
+    /**
+     * @return a copy of this proxy informations without initialization state
+     */
+    public ProxyInformation withoutInitialized() {
+        if (initialized == null) {
+            return this;
+        }
+        return new ProxyInformation(className, id, underlyingClassName, role, key, ids, idCount, idDigest, null);
+    }
+
+    /**
+     * @return the entity class name (entity proxy) or the persistent collection class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the entity proxy id
+     */
+    public Serializable getId() {
+        return id;
+    }
+
+    /**
+     * @return the underlying collection class name (null if the collection was empty)
+     */
+    public String getUnderlyingClassName() {
+        return underlyingClassName;
+    }
+
+    /**
+     * @return the collection role
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * @return the collection owner key
+     */
+    public Serializable getKey() {
+        return key;
+    }
+
+    /**
+     * @return the element ids of a persistent collection (possibly a {@link CompactIdList}), or the key and value ids in
+     *         turn of a persistent map (can be null)
+     */
+    public List<SerializableId> getIds() {
+        return ids;
+    }
+
+    /**
+     * @return the element count of a digest snapshot
+     */
+    public int getIdCount() {
+        return idCount;
+    }
+
+    /**
+     * @return the digest of the element ids, or null if the element ids are available
+     */
+    public String getIdDigest() {
+        return idDigest;
+    }
+
+    /**
+     * @return the initialization state, or null if unknown
+     */
+    public Boolean getInitialized() {
+        return initialized;
+    }
+
+    /**
+     * @return false if the property is known as not initialized, true otherwise
+     */
+    public boolean isInitialized() {
+        return (initialized == null) || initialized.booleanValue();
+    }
+
+    /**
+     * Convert to the legacy map format
+     *
+     * @return the proxy informations map
+     */
+    public HashMap<String, Serializable> toMap() {
+        HashMap<String, Serializable> result = new HashMap<>();
+        putIfNotNull(result, CLASS_NAME, className);
+        putIfNotNull(result, ID, id);
+        putIfNotNull(result, UNDERLYING_COLLECTION, underlyingClassName);
+        putIfNotNull(result, ROLE, role);
+        putIfNotNull(result, KEY, key);
+        if (ids instanceof CompactIdList) {
+            // Entity name once, then raw ids
+            result.put(ID_ENTITY, ((CompactIdList) ids).getEntityName());
+            result.put(ID_LIST, ((CompactIdList) ids).toIdList());
+        } else if (ids != null) {
+            result.put(ID_LIST, new ArrayList<>(ids));
+        }
+        if (idDigest != null) {
+            result.put(ID_COUNT, idCount);
+            result.put(ID_DIGEST, idDigest);
+        }
+        putIfNotNull(result, ILightEntity.INITIALISED, initialized);
+        return result;
+    }
+
+    /**
+     * Read proxy informations stored in the legacy map format
+     *
+     * @param map the proxy informations map (can be null)
+     * @return the proxy informations, or null
+     */
+    @SuppressWarnings("unchecked")
+    public static ProxyInformation fromMap(Map<String, ? extends Serializable> map) {
+        if (map == null) {
+            return null;
+        }
+
+        // Compact ids list, persistent map entries, or former separated key and value lists
+        List<SerializableId> ids;
+        String idEntity = (String) map.get(ID_ENTITY);
+        if (idEntity != null) {
+            ids = CompactIdList.of(idEntity, (List<?>) map.get(ID_LIST));
+        } else if (map.get(ENTRY_LIST) != null) {
+            ids = (List<SerializableId>) map.get(ENTRY_LIST);
+        } else {
+            List<SerializableId> idList = (List<SerializableId>) map.get(ID_LIST);
+            List<SerializableId> valueList = (List<SerializableId>) map.get(VALUE_LIST);
+            if ((idList != null) && (valueList != null)) {
+                ids = pairEntries(idList, valueList);
+            } else {
+                ids = idList;
+            }
+        }
+
+        Serializable key = map.get(KEY);
+        Object role = map.get(ROLE);
+        Integer idCount = (Integer) map.get(ID_COUNT);
+        return new ProxyInformation((String) map.get(CLASS_NAME), map.get(ID), (String) map.get(UNDERLYING_COLLECTION),
+                (role == null) ? null : role.toString(), key, ids, (idCount == null) ? 0 : idCount.intValue(), (String) map.get(ID_DIGEST),
+                (Boolean) map.get(ILightEntity.INITIALISED));
+    }
+
+    /**
+     * Read stored proxy informations, either as is or in the legacy map format
+     *
+     * @param stored the stored value (can be null)
+     * @return the proxy informations, or null
+     */
+    @SuppressWarnings("unchecked")
+    public static ProxyInformation valueOf(Object stored) {
+        if ((stored == null) || (stored instanceof ProxyInformation)) {
+            return (ProxyInformation) stored;
+        } else if (stored instanceof Map) {
+            return fromMap((Map<String, Serializable>) stored);
+        }
+        throw new IllegalArgumentException("Unexpected proxy informations : " + stored.getClass());
+    }
+
+    /**
+     * Binary encoding, used by off heap proxy stores. Long, Integer and String values are written as is, other values
+     * are Java serialized.
+     *
+     * @param out the output
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeString(out, className);
+        writeValue(out, id);
+        writeString(out, underlyingClassName);
+        writeString(out, role);
+        writeValue(out, key);
+        if (ids == null) {
+            out.writeInt(NULL_IDS);
+        } else if (ids instanceof CompactIdList) {
+            CompactIdList compactIds = (CompactIdList) ids;
+            out.writeInt(COMPACT_IDS);
+            writeString(out, compactIds.getEntityName());
+            out.writeInt(compactIds.size());
+            for (int index = 0; index < compactIds.size(); index++) {
+                writeValue(out, compactIds.getId(index));
+            }
+        } else {
+            out.writeInt(ids.size());
+            for (SerializableId serializableId : ids) {
+                writeString(out, serializableId.getEntityName());
+                writeValue(out, serializableId.getId());
+                writeString(out, serializableId.getValue());
+            }
+        }
+        out.writeInt(idCount);
+        writeString(out, idDigest);
+        out.writeByte((initialized == null) ? -1 : (initialized.booleanValue() ? 1 : 0));
+    }
+
+    /**
+     * Binary decoding
+     *
+     * @param in the input, as written by {@link #writeTo(DataOutput)}
+     * @return the proxy informations
+     */
+    public static ProxyInformation readFrom(DataInput in) throws IOException {
+        String className = readString(in);
+        Serializable id = readValue(in);
+        String underlyingClassName = readString(in);
+        String role = readString(in);
+        Serializable key = readValue(in);
+
+        List<SerializableId> ids;
+        int size = in.readInt();
+        if (size == NULL_IDS) {
+            ids = null;
+        } else if (size == COMPACT_IDS) {
+            String entityName = readString(in);
+            size = in.readInt();
+            List<Serializable> idList = new ArrayList<>(size);
+            for (int index = 0; index < size; index++) {
+                idList.add(readValue(in));
+            }
+            ids = CompactIdList.of(entityName, idList);
+        } else {
+            ids = new ArrayList<>(size);
+            for (int index = 0; index < size; index++) {
+                SerializableId serializableId = new SerializableId();
+                serializableId.setEntityName(readString(in));
+                serializableId.setId(readValue(in));
+                serializableId.setValue(readString(in));
+                ids.add(serializableId);
+            }
+        }
+
+        int idCount = in.readInt();
+        String idDigest = readString(in);
+        byte initialized = in.readByte();
+        return new ProxyInformation(className, id, underlyingClassName, role, key, ids, idCount, idDigest,
+                (initialized < 0) ? null : Boolean.valueOf(initialized == 1));
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    /**
+     * Write a nullable string
+     */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a nullable string
+     */
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a tagged serializable value
+     */
+    private static void writeValue(DataOutput out, Serializable value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG_VALUE);
+            out.writeLong(((Long) value).longValue());
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER_VALUE);
+            out.writeInt(((Integer) value).intValue());
+        } else if (value instanceof String) {
+            out.writeByte(STRING_VALUE);
+            writeString(out, (String) value);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(value);
+            }
+            out.writeByte(SERIALIZED_VALUE);
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Read a tagged serializable value
+     */
+    private static Serializable readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL_VALUE:
+                return null;
+            case LONG_VALUE:
+                return Long.valueOf(in.readLong());
+            case INTEGER_VALUE:
+                return Integer.valueOf(in.readInt());
+            case STRING_VALUE:
+                return readString(in);
+            case SERIALIZED_VALUE:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (Serializable) objectIn.readObject();
+                } catch (ClassNotFoundException ex) {
+                    throw new IOException("Cannot read serialized value", ex);
+                }
+            default:
+                throw new IOException("Unexpected value tag : " + tag);
+        }
+    }
+
+    /**
+     * Pair key and value ids by position
+     */
+    private static List<SerializableId> pairEntries(List<SerializableId> keyList, List<SerializableId> valueList) {
+        int size = Math.min(keyList.size(), valueList.size());
+        List<SerializableId> entryList = new ArrayList<>(2 * size);
+        for (int index = 0; index < size; index++) {
+            entryList.add(keyList.get(index));
+            entryList.add(valueList.get(index));
+        }
+        return entryList;
+    }
+
+    /**
+     * Put the value in the map if not null
+     */
+    private static void putIfNotNull(Map<String, Serializable> map, String key, Serializable value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
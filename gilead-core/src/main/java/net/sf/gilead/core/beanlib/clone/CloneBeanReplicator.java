@@ -1,5 +1,7 @@
 package net.sf.gilead.core.beanlib.clone;
 
+import java.util.Map;
+
 import net.sf.beanlib.hibernate.HibernateBeanReplicator;
 import net.sf.beanlib.hibernate5.Hibernate5BeanTransformer;
 import net.sf.beanlib.hibernate5.Hibernate5BlobReplicator;
@@ -20,8 +22,54 @@ import net.sf.gilead.core.store.ProxyStore;
  */
 public class CloneBeanReplicator extends HibernateBeanReplicator {
 
+    /**
+     * The associated bean transformer
+     */
+    private final Hibernate5BeanTransformer transformer;
+
     public CloneBeanReplicator(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
-        super(newBeanTransformer(classMapper, persistenceUtil, proxyStore));
+        this(newBeanTransformer(classMapper, persistenceUtil, proxyStore));
+    }
+
+    private CloneBeanReplicator(Hibernate5BeanTransformer transformer) {
+        super(transformer);
+        this.transformer = transformer;
+    }
+
+    /**
+     * Copy the argument bean without resetting the cloned map afterwards. Instances shared between successive copies
+     * are then cloned only once, until {@link #reset()} is called.
+     *
+     * @param from the bean to copy
+     * @param toClass the target class
+     * @return the copy
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copyKeepingClonedMap(Object from, Class<T> toClass) {
+        if (from == null) {
+            return null;
+        }
+
+        // Already cloned ?
+        Object clone = transformer.getClonedMap().get(from);
+        if (clone != null) {
+            return (T) clone;
+        }
+        return transformer.transform(from, toClass, null);
+    }
+
+    /**
+     * @return the instances cloned since the last reset (source instance -> clone)
+     */
+    public Map<Object, Object> getClonedMap() {
+        return transformer.getClonedMap();
+    }
+
+    /**
+     * Reset the cloned map
+     */
+    public void reset() {
+        transformer.reset();
     }
 
     private static Hibernate5BeanTransformer newBeanTransformer(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
@@ -10,6 +10,7 @@ import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.ClassMapper;
 import net.sf.gilead.core.beanlib.merge.BeanlibCache;
 import net.sf.gilead.core.beanlib.merge.MergeClassBeanReplicator;
+import net.sf.gilead.core.graph.CloneGraphContext;
 
 /**
  * Bean replicator with different from and to classes for clone operation
@@ -70,9 +71,13 @@ public class CloneClassBeanReplicator extends Hibernate5JavaBeanReplicator {
         persistenceUtil.isPersistentPojo(from);
 
         BeanlibCache.getFromBeanStack().push(from);
-        T result = super.replicateBean(from, toClass);
-        BeanlibCache.getFromBeanStack().pop();
-        return result;
+        CloneGraphContext.enterBean();
+        try {
+            return super.replicateBean(from, toClass);
+        } finally {
+            CloneGraphContext.exitBean();
+            BeanlibCache.getFromBeanStack().pop();
+        }
     }
 
     @Override
@@ -1,6 +1,5 @@
 package net.sf.gilead.core.beanlib.clone;
 
-import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collection;
@@ -11,10 +10,12 @@ import org.slf4j.LoggerFactory;
 
 import net.sf.beanlib.spi.DetailedPropertyFilter;
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.core.beanlib.CloneAndMergeConstants;
+import net.sf.gilead.core.graph.CloneGraphContext;
 import net.sf.gilead.core.store.ProxyStore;
-import net.sf.gilead.pojo.base.ILightEntity;
-import net.sf.gilead.util.IntrospectionHelper;
+import net.sf.gilead.util.BeanDescriptor;
+import net.sf.gilead.util.PropertyAccessor;
 
 /**
  * Populatable for Hibernate lazy handling
@@ -81,8 +82,13 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
                 return false;
             }
 
+            // Clone graph handling : properties outside the graph are not even read
+            if (CloneGraphContext.includes(fromBean, propertyName, readerMethod.getReturnType(), persistenceUtil) == false) {
+                return false;
+            }
+
             // Get from value
-            Object fromValue = readPropertyValue(fromBean, readerMethod.getName());
+            Object fromValue = readPropertyValue(fromBean, propertyName, readerMethod);
             if (fromValue == null) {
                 return true;
             }
@@ -97,7 +103,7 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
                 LOGGER.trace(fromBean.toString() + "." + propertyName + " --> not initialized");
 
                 // Get proxy informations
-                Map<String, Serializable> proxyInformations;
+                ProxyInformation proxyInformations;
                 if (isPersistentMap) {
                     proxyInformations = persistenceUtil.serializePersistentMap((Map<?, ?>) fromValue);
                 } else if (isPersistentCollection) {
@@ -107,7 +113,7 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
                 }
 
                 // Add lazy property
-                proxyInformations.put(ILightEntity.INITIALISED, false);
+                proxyInformations = proxyInformations.withInitialized(false);
 
                 // Store proxy information
                 proxyStore.storeProxyInformations(toBean, fromBean, propertyName, proxyInformations);
@@ -115,12 +121,12 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
                 return false;
             } else if (isPersistentMap) {
                 // Persistent map handling
-                Map<String, Serializable> proxyInformations = persistenceUtil.serializePersistentMap((Map<?, ?>) fromValue);
+                ProxyInformation proxyInformations = persistenceUtil.serializePersistentMap((Map<?, ?>) fromValue);
 
                 proxyStore.storeProxyInformations(toBean, fromBean, propertyName, proxyInformations);
             } else if (isPersistentCollection) {
                 // Persistent collection handling
-                Map<String, Serializable> proxyInformations = persistenceUtil.serializePersistentCollection((Collection<?>) fromValue);
+                ProxyInformation proxyInformations = persistenceUtil.serializePersistentCollection((Collection<?>) fromValue);
 
                 proxyStore.storeProxyInformations(toBean, fromBean, propertyName, proxyInformations);
             }
@@ -134,10 +140,13 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
     /**
      * Read a property value, even if it has a private getter
      */
-    private Object readPropertyValue(Object bean, String propertyGetter)
-            throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
-        Method readMethod = IntrospectionHelper.getRecursiveDeclaredMethod(bean.getClass(), propertyGetter, (Class[]) null);
-        readMethod.setAccessible(true);
-        return readMethod.invoke(bean, (Object[]) null);
+    private Object readPropertyValue(Object bean, String propertyName, Method readerMethod)
+            throws IllegalArgumentException, IllegalAccessException, InvocationTargetException {
+        PropertyAccessor reader = BeanDescriptor.forClass(bean.getClass()).getReader(propertyName);
+        if (reader != null) {
+            return reader.get(bean);
+        }
+        readerMethod.setAccessible(true);
+        return readerMethod.invoke(bean, (Object[]) null);
     }
 }
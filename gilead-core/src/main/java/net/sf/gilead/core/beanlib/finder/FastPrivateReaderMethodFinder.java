@@ -1,14 +1,14 @@
 package net.sf.gilead.core.beanlib.finder;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 
 import net.sf.beanlib.spi.BeanMethodFinder;
-import net.sf.gilead.util.IntrospectionHelper;
+import net.sf.gilead.util.BeanDescriptor;
+import net.sf.gilead.util.PropertyAccessor;
 
 /**
- * Fast Private Reader Method finder, inspired by the beanlib one but relying on IntropsectionHelper, that caches
- * getDeclaredMethod results
+ * Fast Private Reader Method finder, inspired by the beanlib one but relying on {@link BeanDescriptor}, that computes
+ * the readers once per class
  *
  * @author bruno.marchesson
  */
@@ -16,43 +16,11 @@ public class FastPrivateReaderMethodFinder implements BeanMethodFinder {
 
     @Override
     public Method find(final String propertyName, Object bean) {
-        String s = propertyName;
-
-        if (Character.isLowerCase(propertyName.charAt(0))) {
-            s = propertyName.substring(0, 1).toUpperCase();
-
-            if (propertyName.length() > 1) {
-                s += propertyName.substring(1);
-            }
-        }
-
-        Class<?> beanClass = bean.getClass();
-        try {
-            Method reader = IntrospectionHelper.getRecursiveDeclaredMethod(beanClass, "get" + s, (Class[]) null);
-            if (isStatic(reader) == false) {
-                return reader;
-            } else {
-                // Private or static method
-                return null;
-            }
-        } catch (NoSuchMethodException ignore) {
-            try {
-                Method reader = IntrospectionHelper.getRecursiveDeclaredMethod(beanClass, "is" + s, (Class[]) null);
-                if (isStatic(reader) == false) {
-                    return reader;
-                } else {
-                    // Private or static method
-                    return null;
-                }
-            } catch (NoSuchMethodException ex) {
-                // Not found
-                return null;
-            }
+        PropertyAccessor reader = BeanDescriptor.forClass(bean.getClass()).getReader(propertyName);
+        if (reader == null) {
+            // Not found
+            return null;
         }
-    }
-
-    boolean isStatic(Method m) {
-        final int modifier = m.getModifiers();
-        return Modifier.isStatic(modifier);
+        return reader.getMethod();
     }
 }
@@ -1,9 +1,9 @@
 package net.sf.gilead.core.beanlib.merge;
 
-import java.io.Serializable;
-import java.util.Map;
 import java.util.Stack;
 
+import net.sf.gilead.core.ProxyInformation;
+
 /**
  * Thread local to store BeanLib additional parameters
  *
@@ -14,7 +14,7 @@ public class BeanlibCache {
     /**
      * Target merge persistent collection class
      */
-    private static ThreadLocal<Map<String, Serializable>> proxyInformations = new ThreadLocal<>();
+    private static ThreadLocal<ProxyInformation> proxyInformations = new ThreadLocal<>();
 
     /**
      * Current from bean stack. It is used to get embedded entities (component type) parent to determine unique ID in
@@ -30,14 +30,14 @@ public class BeanlibCache {
     /**
      * @return the proxy informations
      */
-    public static Map<String, Serializable> getProxyInformations() {
+    public static ProxyInformation getProxyInformations() {
         return proxyInformations.get();
     }
 
     /**
      * @param proxyInfo the proxy informations to set
      */
-    public static void setProxyInformations(Map<String, Serializable> proxyInfo) {
+    public static void setProxyInformations(ProxyInformation proxyInfo) {
         if (proxyInfo != null) {
             proxyInformations.set(proxyInfo);
         } else {
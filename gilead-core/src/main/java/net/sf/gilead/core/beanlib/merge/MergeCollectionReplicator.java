@@ -1,6 +1,5 @@
 package net.sf.gilead.core.beanlib.merge;
 
-import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 import java.util.Map;
@@ -9,6 +8,7 @@ import net.sf.beanlib.hibernate5.Hibernate5CollectionReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.replicator.CollectionReplicatorSpi;
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.util.CollectionHelper;
 
 /**
@@ -63,7 +63,7 @@ public class MergeCollectionReplicator extends Hibernate5CollectionReplicator {
     @SuppressWarnings("unchecked")
     public <V, T> T replicateCollection(Collection<V> from, Class<T> toClass) {
         // Get and reset proxy informations if any
-        Map<String, Serializable> proxyInformations = BeanlibCache.getProxyInformations();
+        ProxyInformation proxyInformations = BeanlibCache.getProxyInformations();
         BeanlibCache.setProxyInformations(null);
 
         // Clone collection
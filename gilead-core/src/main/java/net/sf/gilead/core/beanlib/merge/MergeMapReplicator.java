@@ -1,6 +1,5 @@
 package net.sf.gilead.core.beanlib.merge;
 
-import java.io.Serializable;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -10,6 +9,7 @@ import net.sf.beanlib.hibernate5.Hibernate5MapReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.replicator.MapReplicatorSpi;
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
 
 /**
  * Encapsulation of the collection replicator
@@ -67,7 +67,7 @@ public class MergeMapReplicator extends Hibernate5MapReplicator {
         LOGGER.debug("Merge map from [{}] to class [{}].", from, toClass);
 
         // Get and reset persistent collection class if any
-        Map<String, Serializable> proxyInformations = BeanlibCache.getProxyInformations();
+        ProxyInformation proxyInformations = BeanlibCache.getProxyInformations();
         BeanlibCache.setProxyInformations(null);
 
         // Clone map
@@ -1,6 +1,5 @@
 package net.sf.gilead.core.beanlib.merge;
 
-import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collection;
@@ -8,10 +7,11 @@ import java.util.Map;
 
 import net.sf.beanlib.spi.DetailedPropertyFilter;
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.core.beanlib.CloneAndMergeConstants;
 import net.sf.gilead.core.store.ProxyStore;
-import net.sf.gilead.pojo.base.ILightEntity;
-import net.sf.gilead.util.IntrospectionHelper;
+import net.sf.gilead.util.BeanDescriptor;
+import net.sf.gilead.util.PropertyAccessor;
 
 /**
  * Populatable for POJO with the lazy information of the Hibernate POJO This populatable is used to fill back an
@@ -82,7 +82,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
             }
 
             // Get proxy informations
-            Map<String, Serializable> proxyInformations = proxyStore.getProxyInformations(cloneBean, propertyName);
+            ProxyInformation proxyInformations = proxyStore.getProxyInformations(cloneBean, propertyName);
 
             if (proxyInformations == null) {
                 // No proxy informations : just populate the property
@@ -90,7 +90,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
             }
 
             // Get clone value
-            Object cloneValue = readPropertyValue(cloneBean, readerMethod.getName());
+            Object cloneValue = readPropertyValue(cloneBean, propertyName, readerMethod);
 
             Class<?> valueClass = readerMethod.getReturnType();
             boolean isCollection = Collection.class.isAssignableFrom(valueClass);
@@ -101,7 +101,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
                     // The value is now null : proxy is needed
                     // Set collection proxy
                     Object persistentCollection = persistenceUtil.createPersistentCollection(persistentBean, proxyInformations, null);
-                    writePropertyValue(persistentBean, persistentCollection, setterMethod.getName(), setterMethod.getParameterTypes());
+                    writePropertyValue(persistentBean, persistentCollection, propertyName, setterMethod);
                     return false;
                 } else {
                     // Store proxy info for the copy operation
@@ -111,7 +111,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
                 if (isNullValue(cloneValue)) {
                     // Set map proxy
                     Object persistentMap = persistenceUtil.createPersistentMap(persistentBean, proxyInformations, null);
-                    writePropertyValue(persistentBean, persistentMap, setterMethod.getName(), setterMethod.getParameterTypes());
+                    writePropertyValue(persistentBean, persistentMap, propertyName, setterMethod);
                     return false;
                 } else {
                     // Store proxy info for the copy operation
@@ -121,7 +121,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
                 // Set an entity proxy
                 Object proxy = persistenceUtil.createEntityProxy(proxyInformations);
                 if (proxy != null) {
-                    writePropertyValue(persistentBean, proxy, setterMethod.getName(), setterMethod.getParameterTypes());
+                    writePropertyValue(persistentBean, proxy, propertyName, setterMethod);
                 }
 
                 // Skip beanlib in-depth population
@@ -140,38 +140,36 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
      * @param proxyInfo serialized proxy informations
      * @return
      */
-    protected boolean isInitialized(Map<String, Serializable> proxyInfo) {
-        if (proxyInfo != null) {
-            Serializable initialized = proxyInfo.get(ILightEntity.INITIALISED);
-            if (initialized != null) {
-                return ((Boolean) initialized).booleanValue();
-            }
-        }
-
+    protected boolean isInitialized(ProxyInformation proxyInfo) {
         // The property has no proxy info or it does not contains 'initialized' field
-        return true;
+        return (proxyInfo == null) || proxyInfo.isInitialized();
     }
 
     /**
      * Read a property value, even if it has a private getter
      */
-    private Object readPropertyValue(Object bean, String propertyGetter)
-            throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
-        Method readMethod = IntrospectionHelper.getRecursiveDeclaredMethod(bean.getClass(), propertyGetter, (Class[]) null);
-        readMethod.setAccessible(true);
-
-        return readMethod.invoke(bean, (Object[]) null);
+    private Object readPropertyValue(Object bean, String propertyName, Method readerMethod)
+            throws IllegalArgumentException, IllegalAccessException, InvocationTargetException {
+        PropertyAccessor reader = BeanDescriptor.forClass(bean.getClass()).getReader(propertyName);
+        if (reader != null) {
+            return reader.get(bean);
+        }
+        readerMethod.setAccessible(true);
+        return readerMethod.invoke(bean, (Object[]) null);
     }
 
     /**
-     * Read a property value, even if it has a private getter
+     * Write a property value, even if it has a private setter
      */
-    private void writePropertyValue(Object bean, Object value, String propertySetter, Class<?>... parameterTypes)
-            throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
-        Method writeMethod = IntrospectionHelper.getRecursiveDeclaredMethod(bean.getClass(), propertySetter, parameterTypes);
-        writeMethod.setAccessible(true);
-
-        writeMethod.invoke(bean, value);
+    private void writePropertyValue(Object bean, Object value, String propertyName, Method setterMethod)
+            throws IllegalArgumentException, IllegalAccessException, InvocationTargetException {
+        PropertyAccessor setter = BeanDescriptor.forClass(bean.getClass()).getSetter(propertyName);
+        if ((setter != null) && setter.getType().equals(setterMethod.getParameterTypes()[0])) {
+            setter.set(bean, value);
+            return;
+        }
+        setterMethod.setAccessible(true);
+        setterMethod.invoke(bean, value);
     }
 
     /**
@@ -0,0 +1,161 @@
+package net.sf.gilead.core.copier;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import net.sf.gilead.exception.InvocationException;
+import net.sf.gilead.util.PropertyAccessor;
+
+/**
+ * Base class of the per (source class, target class) copiers. Subclasses are generated by {@link BeanCopierFactory}
+ * and copy each property with direct getter and setter calls when they are accessible. The copy semantics (lazy
+ * handling, proxy informations, nested beans) are delegated to the {@link CopyContext}.
+ */
+public abstract class BeanCopier {
+
+    /**
+     * The source class
+     */
+    private Class<?> fromClass;
+
+    /**
+     * The target class
+     */
+    private Class<?> toClass;
+
+    /**
+     * The target class constructor
+     */
+    private Constructor<?> constructor;
+
+    /**
+     * The copied property names
+     */
+    private String[] propertyNames;
+
+    /**
+     * The copied property types (setter parameter type)
+     */
+    private Class<?>[] propertyTypes;
+
+    /**
+     * The source readers
+     */
+    private PropertyAccessor[] readers;
+
+    /**
+     * The target setters
+     */
+    private PropertyAccessor[] writers;
+
+    /**
+     * Simple (primitive or immutable) property flags. Simple properties are copied without context handling.
+     */
+    private boolean[] simpleProperties;
+
+    /**
+     * Copier initialisation (called once, after generation)
+     */
+    void initialize(Class<?> fromClass, Class<?> toClass, Constructor<?> constructor, String[] propertyNames, Class<?>[] propertyTypes,
+            PropertyAccessor[] readers, PropertyAccessor[] writers, boolean[] simpleProperties) {
+        this.fromClass = fromClass;
+        this.toClass = toClass;
+        this.constructor = constructor;
+        this.propertyNames = propertyNames;
+        this.propertyTypes = propertyTypes;
+        this.readers = readers;
+        this.writers = writers;
+        this.simpleProperties = simpleProperties;
+    }
+
+    /**
+     * Copy every property of the source bean to the target bean
+     *
+     * @param from the source bean
+     * @param to the target bean
+     * @param context the copy context
+     */
+    public abstract void copy(Object from, Object to, CopyContext context);
+
+    /**
+     * @return the source class
+     */
+    public Class<?> getFromClass() {
+        return fromClass;
+    }
+
+    /**
+     * @return the target class
+     */
+    public Class<?> getToClass() {
+        return toClass;
+    }
+
+    /**
+     * @return the number of copied properties
+     */
+    public int getPropertyCount() {
+        return propertyNames.length;
+    }
+
+    /**
+     * @return the name of the property at the argument index
+     */
+    public String getPropertyName(int index) {
+        return propertyNames[index];
+    }
+
+    /**
+     * @return the target type of the property at the argument index
+     */
+    public Class<?> getPropertyType(int index) {
+        return propertyTypes[index];
+    }
+
+    /**
+     * @return the source reader of the property at the argument index
+     */
+    public Method getReader(int index) {
+        return readers[index].getMethod();
+    }
+
+    /**
+     * @return true if the property at the argument index is copied without context handling
+     */
+    public boolean isSimpleProperty(int index) {
+        return simpleProperties[index];
+    }
+
+    /**
+     * Create a new, empty instance of the target class
+     */
+    public Object newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (InvocationTargetException ex) {
+            throw new InvocationException("Cannot create a fresh new instance of the class " + toClass, ex.getTargetException());
+        } catch (Exception ex) {
+            throw new InvocationException("Cannot create a fresh new instance of the class " + toClass, ex);
+        }
+    }
+
+    /**
+     * Read a property value with its (not accessible) reader
+     */
+    public Object read(int index, Object bean) {
+        return readers[index].get(bean);
+    }
+
+    /**
+     * Write a property value with its (not accessible) setter
+     */
+    public void write(int index, Object bean, Object value) {
+        writers[index].set(bean, value);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + fromClass.getName() + " -> " + toClass.getName() + "]";
+    }
+}
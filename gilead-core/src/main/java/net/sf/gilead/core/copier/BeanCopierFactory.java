@@ -0,0 +1,380 @@
+package net.sf.gilead.core.copier;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import net.sf.gilead.core.beanlib.CloneAndMergeConstants;
+import net.sf.gilead.util.BeanDescriptor;
+import net.sf.gilead.util.PropertyAccessor;
+
+/**
+ * Factory for {@link BeanCopier}. A specialized copier class is generated with Javassist the first time a (source
+ * class, target class) pair is seen, and then cached. Copiers are cached on the target class and defined in its class
+ * loader, so that a redeployed web application does not stay referenced by the factory.
+ * <p>
+ * On Java 9 and later, copier classes are defined with a private lookup in the target class package : this works
+ * without any JVM option for classes of the class path, but classes of named modules must open their package to
+ * Gilead. When a copier cannot be generated, the reflective copier is used instead.
+ */
+public class BeanCopierFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BeanCopierFactory.class);
+
+    /**
+     * Generated copier class name suffix
+     */
+    private static final String COPIER_SUFFIX = "$$GileadCopier$$";
+
+    /**
+     * Singleton instance
+     */
+    private static BeanCopierFactory instance = null;
+
+    /**
+     * The copier cache (target class -> source class -> copier)
+     */
+    private final ClassValue<Map<Class<?>, BeanCopier>> copiers;
+
+    /**
+     * The shared Javassist class pool (system and Gilead classes only)
+     */
+    private final ClassPool pool;
+
+    /**
+     * Javassist class pools, by target class loader (each loader is registered once and weakly referenced)
+     */
+    private final Map<ClassLoader, ClassPool> loaderPools;
+
+    /**
+     * MethodHandles.privateLookupIn method (null before Java 9)
+     */
+    private final Method privateLookupIn;
+
+    /**
+     * Lookup.defineClass method (null before Java 9)
+     */
+    private final Method defineClass;
+
+    /**
+     * Indicates if a generation failure was already logged as warning
+     */
+    private final AtomicBoolean failureLogged;
+
+    /**
+     * Generated class counter (unique names)
+     */
+    private final AtomicInteger counter;
+
+    /**
+     * @return the unique instance of the factory
+     */
+    public static synchronized BeanCopierFactory getInstance() {
+        if (instance == null) {
+            instance = new BeanCopierFactory();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor
+     */
+    private BeanCopierFactory() {
+        copiers = new ClassValue<Map<Class<?>, BeanCopier>>() {
+            @Override
+            protected Map<Class<?>, BeanCopier> computeValue(Class<?> toClass) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+        counter = new AtomicInteger();
+        failureLogged = new AtomicBoolean();
+        pool = new ClassPool(true);
+        pool.insertClassPath(new ClassClassPath(BeanCopier.class));
+        loaderPools = new WeakHashMap<>();
+
+        // Java 9+ class definition
+        Method lookupMethod = null;
+        Method defineMethod = null;
+        try {
+            lookupMethod = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            defineMethod = MethodHandles.Lookup.class.getMethod("defineClass", byte[].class);
+        } catch (NoSuchMethodException ex) {
+            // Java 8 : Javassist default class definition
+        }
+        privateLookupIn = lookupMethod;
+        defineClass = defineMethod;
+    }
+
+    /**
+     * Get (or generate) the copier for the argument classes
+     *
+     * @param fromClass the source class (unenhanced)
+     * @param toClass the target class
+     * @return the copier
+     */
+    public BeanCopier getCopier(Class<?> fromClass, Class<?> toClass) {
+        Map<Class<?>, BeanCopier> sourceCopiers = copiers.get(toClass);
+        BeanCopier copier = sourceCopiers.get(fromClass);
+        if (copier == null) {
+            copier = sourceCopiers.computeIfAbsent(fromClass, key -> createCopier(fromClass, toClass));
+        }
+        return copier;
+    }
+
+    /**
+     * Create the copier for the argument classes
+     */
+    private BeanCopier createCopier(Class<?> fromClass, Class<?> toClass) {
+        List<CopiedProperty> properties = collectProperties(fromClass, toClass);
+
+        BeanCopier copier;
+        try {
+            copier = generateCopier(fromClass, toClass, properties);
+        } catch (Exception ex) {
+            if (failureLogged.compareAndSet(false, true)) {
+                LOGGER.warn("Cannot generate copier from [{}] to [{}], falling back to reflective copier (next failures are logged as debug).",
+                        fromClass.getName(), toClass.getName(), ex);
+            } else {
+                LOGGER.debug("Cannot generate copier from [{}] to [{}], falling back to reflective copier.", fromClass.getName(),
+                        toClass.getName(), ex);
+            }
+            copier = new ReflectiveBeanCopier();
+        }
+
+        // Initialize copier
+        int count = properties.size();
+        String[] names = new String[count];
+        Class<?>[] types = new Class<?>[count];
+        PropertyAccessor[] readers = new PropertyAccessor[count];
+        PropertyAccessor[] writers = new PropertyAccessor[count];
+        boolean[] simple = new boolean[count];
+        for (int index = 0; index < count; index++) {
+            CopiedProperty property = properties.get(index);
+            names[index] = property.name;
+            types[index] = property.writer.getType();
+            readers[index] = property.reader;
+            writers[index] = property.writer;
+            simple[index] = property.simple;
+        }
+        copier.initialize(fromClass, toClass, getConstructor(toClass), names, types, readers, writers, simple);
+
+        LOGGER.debug("Created copier [{}] with {} properties.", copier, count);
+        return copier;
+    }
+
+    /**
+     * Generate the copier class
+     */
+    private synchronized BeanCopier generateCopier(Class<?> fromClass, Class<?> toClass, List<CopiedProperty> properties) throws Exception {
+        String copierName = toClass.getName() + COPIER_SUFFIX + counter.incrementAndGet();
+        LOGGER.debug("Generating copier [{}].", copierName);
+
+        // The copier is defined in the target class loader : the source class must be visible from it, otherwise
+        // the compilation fails and the reflective copier is used
+        ClassPool generationPool = getClassPool(toClass.getClassLoader());
+        CtClass copierClass = generationPool.makeClass(copierName);
+        try {
+            copierClass.setSuperclass(generationPool.get(BeanCopier.class.getName()));
+            copierClass.addMethod(CtNewMethod.make(generateCopyMethod(properties), copierClass));
+
+            Class<?> generated;
+            if (privateLookupIn != null) {
+                // Java 9+ : define the copier in the target class package, without illegal reflective access
+                Object lookup = privateLookupIn.invoke(null, toClass, MethodHandles.lookup());
+                generated = (Class<?>) defineClass.invoke(lookup, (Object) copierClass.toBytecode());
+            } else {
+                generated = copierClass.toClass(toClass.getClassLoader(), toClass.getProtectionDomain());
+            }
+            return (BeanCopier) generated.getDeclaredConstructor().newInstance();
+        } finally {
+            // Do not keep generated classes in the pool cache
+            copierClass.detach();
+        }
+    }
+
+    /**
+     * TOMCAT and JBOSS classloader handling : one class pool per class loader, so that each loader is added once to
+     * the search path (the loader class path and the map key are weakly referenced). Must be called with the factory
+     * lock held.
+     *
+     * @return the class pool for the argument class loader
+     */
+    private ClassPool getClassPool(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return pool;
+        }
+        ClassPool loaderPool = loaderPools.get(classLoader);
+        if (loaderPool == null) {
+            loaderPool = new ClassPool(pool);
+            loaderPool.appendClassPath(new LoaderClassPath(classLoader));
+            loaderPools.put(classLoader, loaderPool);
+        }
+        return loaderPool;
+    }
+
+    /**
+     * Generate the source code of the copy method
+     */
+    private String generateCopyMethod(List<CopiedProperty> properties) {
+        StringBuilder code = new StringBuilder();
+        code.append("public void copy(Object from, Object to, ").append(CopyContext.class.getName()).append(" context) {\n");
+        code.append("Object value = null;\n");
+
+        for (int index = 0; index < properties.size(); index++) {
+            CopiedProperty property = properties.get(index);
+            Method reader = property.reader.getMethod();
+            Method writer = property.writer.getMethod();
+            Class<?> type = property.writer.getType();
+
+            if (property.simple) {
+                // Primitive or immutable value : direct copy
+                if (isAccessible(reader) && isAccessible(writer) && isAccessible(type)) {
+                    code.append(castTo(writer.getDeclaringClass(), "to")).append('.').append(writer.getName()).append('(');
+                    code.append(castTo(reader.getDeclaringClass(), "from")).append('.').append(reader.getName()).append("());\n");
+                } else {
+                    code.append("write(").append(index).append(", to, read(").append(index).append(", from));\n");
+                }
+            } else {
+                // Read value
+                code.append("if (context.accept(this, ").append(index).append(", from)) {\n");
+                code.append("value = ");
+                if (isAccessible(reader) && (reader.getReturnType().isPrimitive() == false)) {
+                    code.append(castTo(reader.getDeclaringClass(), "from")).append('.').append(reader.getName()).append("();\n");
+                } else {
+                    code.append("read(").append(index).append(", from);\n");
+                }
+
+                // Filter and transform value
+                code.append("if (context.propagate(this, ").append(index).append(", from, to, value)) {\n");
+                String transformed = "context.transform(this, " + index + ", value)";
+                if (isAccessible(writer) && isAccessible(type) && (type.isPrimitive() == false)) {
+                    code.append(castTo(writer.getDeclaringClass(), "to")).append('.').append(writer.getName()).append('(');
+                    code.append("(").append(getSourceName(type)).append(") ").append(transformed).append(");\n");
+                } else {
+                    code.append("write(").append(index).append(", to, ").append(transformed).append(");\n");
+                }
+                code.append("}\n}\n");
+            }
+        }
+        code.append("}");
+
+        return code.toString();
+    }
+
+    /**
+     * Collect the copied properties : every setter of the target class with an associated reader on the source class
+     */
+    private List<CopiedProperty> collectProperties(Class<?> fromClass, Class<?> toClass) {
+        BeanDescriptor fromDescriptor = BeanDescriptor.forClass(fromClass);
+        Map<String, PropertyAccessor> setters = BeanDescriptor.forClass(toClass).getSetters();
+
+        List<CopiedProperty> properties = new ArrayList<>(setters.size());
+        for (Map.Entry<String, PropertyAccessor> entry : setters.entrySet()) {
+            String propertyName = entry.getKey();
+            if ((CloneAndMergeConstants.PROXY_INFORMATIONS.equals(propertyName) == true)
+                    || (CloneAndMergeConstants.INITIALIZATION_MAP.equals(propertyName) == true)) {
+                continue;
+            }
+
+            PropertyAccessor reader = fromDescriptor.getReader(propertyName);
+            if (reader == null) {
+                continue;
+            }
+
+            CopiedProperty property = new CopiedProperty();
+            property.name = propertyName;
+            property.reader = reader;
+            property.writer = entry.getValue();
+
+            Class<?> type = property.writer.getType();
+            property.simple = type.equals(reader.getType()) && (type.isPrimitive() || CopyContext.isImmutable(type));
+            properties.add(property);
+        }
+        return properties;
+    }
+
+    /**
+     * @return the no-arg constructor of the target class
+     */
+    private Constructor<?> getConstructor(Class<?> toClass) {
+        try {
+            Constructor<?> constructor = toClass.getDeclaredConstructor(new Class<?>[] {});
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException ex) {
+            throw new RuntimeException("Cannot find empty constructor for class " + toClass, ex);
+        }
+    }
+
+    /**
+     * @return the casted expression source code
+     */
+    private static String castTo(Class<?> clazz, String expression) {
+        return "((" + getSourceName(clazz) + ") " + expression + ")";
+    }
+
+    /**
+     * @return the source code name of the argument class
+     */
+    private static String getSourceName(Class<?> clazz) {
+        if (clazz.isArray()) {
+            return getSourceName(clazz.getComponentType()) + "[]";
+        }
+        return clazz.getName();
+    }
+
+    /**
+     * Indicates if the method can be called directly from generated code
+     */
+    private static boolean isAccessible(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && isAccessible(method.getDeclaringClass());
+    }
+
+    /**
+     * Indicates if the class can be referenced from generated code
+     */
+    private static boolean isAccessible(Class<?> clazz) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+            if ((Modifier.isPublic(current.getModifiers()) == false) || current.isAnonymousClass() || current.isLocalClass()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copied property structure
+     */
+    private static class CopiedProperty {
+
+        public String name;
+
+        public PropertyAccessor reader;
+
+        public PropertyAccessor writer;
+
+        public boolean simple;
+    }
+}
@@ -0,0 +1,264 @@
+package net.sf.gilead.core.copier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.beanlib.utils.ClassUtils;
+import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.core.beanlib.clone.CloneBeanReplicator;
+import net.sf.gilead.core.beanlib.merge.BeanlibCache;
+import net.sf.gilead.core.graph.CloneGraphContext;
+import net.sf.gilead.core.store.ProxyStore;
+
+/**
+ * Clone context for generated copiers. It has the same behavior than the beanlib based clone (see
+ * {@link net.sf.gilead.core.beanlib.clone.ClonePropertyFilter}) : lazy properties are replaced with null and their
+ * proxy informations are sent to the proxy store.
+ */
+public class CloneContext extends CopyContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CloneContext.class);
+
+    /**
+     * The class mapper (can be null)
+     */
+    private ClassMapper classMapper;
+
+    /**
+     * The associated persistence utils
+     */
+    private PersistenceUtil persistenceUtil;
+
+    /**
+     * The proxy informations store.
+     */
+    private ProxyStore proxyStore;
+
+    /**
+     * Beanlib replicator, used for Java classes that are not handled by the copiers (lazily created)
+     */
+    private CloneBeanReplicator replicator;
+
+    /**
+     * Constructor
+     */
+    public CloneContext(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+        this(new IdentityHashMap<>(), classMapper, persistenceUtil, proxyStore);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clonedMap the already cloned instances (can be shared between threads, see {@link ConcurrentIdentityMap})
+     */
+    public CloneContext(Map<Object, Object> clonedMap, ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+        super(clonedMap);
+        this.classMapper = classMapper;
+        this.persistenceUtil = persistenceUtil;
+        this.proxyStore = proxyStore;
+    }
+
+    /**
+     * Clone the argument pojo
+     *
+     * @param pojo the pojo to clone
+     * @param cloneClass the clone class
+     * @return the clone
+     */
+    public Object clone(Object pojo, Class<?> cloneClass) {
+        if (pojo == null) {
+            return null;
+        }
+        Object clone = clonedMap.get(pojo);
+        if (clone != null) {
+            return clone;
+        }
+        return cloneBean(pojo, cloneClass);
+    }
+
+    @Override
+    public boolean accept(BeanCopier copier, int index, Object from) {
+        // Clone graph handling : properties outside the graph are not even read
+        return CloneGraphContext.includes(from, copier.getPropertyName(index), copier.getReader(index).getReturnType(), persistenceUtil);
+    }
+
+    @Override
+    public boolean propagate(BeanCopier copier, int index, Object from, Object to, Object value) {
+        if (value == null) {
+            return true;
+        }
+
+        boolean isPersistentCollection = persistenceUtil.isPersistentCollection(value.getClass());
+        boolean isPersistentMap = persistenceUtil.isPersistentMap(value.getClass());
+
+        // Lazy handling
+        //
+        if (persistenceUtil.isInitialized(value) == false) {
+            // Lazy property !
+            String propertyName = copier.getPropertyName(index);
+            LOGGER.trace("{}.{} --> not initialized", from, propertyName);
+
+            // Get proxy informations
+            ProxyInformation proxyInformations;
+            if (isPersistentMap) {
+                proxyInformations = persistenceUtil.serializePersistentMap((Map<?, ?>) value);
+            } else if (isPersistentCollection) {
+                proxyInformations = persistenceUtil.serializePersistentCollection((Collection<?>) value);
+            } else {
+                proxyInformations = persistenceUtil.serializeEntityProxy(value);
+            }
+
+            // Add lazy property
+            proxyInformations = proxyInformations.withInitialized(false);
+
+            // Store proxy information
+            proxyStore.storeProxyInformations(to, from, propertyName, proxyInformations);
+
+            return false;
+        } else if (isPersistentMap) {
+            // Persistent map handling
+            ProxyInformation proxyInformations = persistenceUtil.serializePersistentMap((Map<?, ?>) value);
+
+            proxyStore.storeProxyInformations(to, from, copier.getPropertyName(index), proxyInformations);
+        } else if (isPersistentCollection) {
+            // Persistent collection handling
+            ProxyInformation proxyInformations = persistenceUtil.serializePersistentCollection((Collection<?>) value);
+
+            proxyStore.storeProxyInformations(to, from, copier.getPropertyName(index), proxyInformations);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Object transform(BeanCopier copier, int index, Object value) {
+        return copyValue(value, copier.getPropertyType(index));
+    }
+
+    @Override
+    protected Object copyValue(Object value, Class<?> toClass) {
+        if (value == null) {
+            return null;
+        }
+
+        // Already cloned ?
+        Object clone = clonedMap.get(value);
+        if (clone != null) {
+            return clone;
+        }
+
+        Class<?> valueClass = value.getClass();
+        if (isImmutable(valueClass)) {
+            return value;
+        } else if (value instanceof Collection) {
+            return copyCollection((Collection<?>) value);
+        } else if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        } else if (valueClass.isArray()) {
+            return copyArray(value);
+        } else if (value instanceof Date) {
+            return copyDate((Date) value);
+        } else if (ClassUtils.isJavaPackage(valueClass)) {
+            // Not a bean : let beanlib handle it
+            if (replicator == null) {
+                replicator = new CloneBeanReplicator(classMapper, persistenceUtil, proxyStore);
+            }
+            clone = replicator.copy(value, valueClass);
+            Object existing = clonedMap.putIfAbsent(value, clone);
+            return (existing != null) ? existing : clone;
+        }
+
+        return cloneBean(value, null);
+    }
+
+    /**
+     * Clone a bean with its copier
+     *
+     * @param from the bean to clone
+     * @param cloneClass the clone class, or null to use class mapping
+     */
+    protected Object cloneBean(Object from, Class<?> cloneClass) {
+        // Force persistence map computation (useful for subclass)
+        persistenceUtil.isPersistentPojo(from);
+
+        Class<?> fromClass = persistenceUtil.getUnenhancedClass(from.getClass());
+        Class<?> toClass = cloneClass;
+        if (toClass == null) {
+            if (classMapper != null) {
+                toClass = classMapper.getTargetClass(from.getClass());
+            }
+            if (toClass == null) {
+                toClass = fromClass;
+            }
+        }
+
+        BeanCopier copier = BeanCopierFactory.getInstance().getCopier(fromClass, toClass);
+        Object clone = copier.newInstance();
+        Object existing = clonedMap.putIfAbsent(from, clone);
+        if (existing != null) {
+            // Cloned by another thread
+            return existing;
+        }
+
+        BeanlibCache.getFromBeanStack().push(from);
+        CloneGraphContext.enterBean();
+        try {
+            copier.copy(from, clone, this);
+        } finally {
+            CloneGraphContext.exitBean();
+            BeanlibCache.getFromBeanStack().pop();
+        }
+        return clone;
+    }
+
+    @Override
+    protected Collection<Object> createCollection(Collection<?> from) {
+        if (persistenceUtil.isPersistentCollection(from.getClass())) {
+            // Never copy a persistent collection as is
+            Object underlying = persistenceUtil.getUnderlyingCollection(from);
+            if (underlying instanceof LinkedHashSet) {
+                return new LinkedHashSet<>(from.size());
+            } else if (from instanceof SortedSet) {
+                return super.createCollection(from);
+            } else if (from instanceof List) {
+                return new ArrayList<>(from.size());
+            } else {
+                return new HashSet<>(from.size());
+            }
+        }
+        return super.createCollection(from);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Map<Object, Object> createMap(Map<?, ?> from) {
+        if (persistenceUtil.isPersistentMap(from.getClass())) {
+            // Never copy a persistent map as is
+            Map<?, ?> underlying = persistenceUtil.getUnderlyingMap(from);
+            if (from instanceof SortedMap) {
+                return new TreeMap<>((java.util.Comparator<Object>) ((SortedMap<?, ?>) from).comparator());
+            } else if ((underlying == null) || (underlying instanceof LinkedHashMap)) {
+                return new LinkedHashMap<>();
+            } else {
+                return new HashMap<>();
+            }
+        }
+        return super.createMap(from);
+    }
+}
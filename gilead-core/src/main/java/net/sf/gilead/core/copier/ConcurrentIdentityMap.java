@@ -0,0 +1,116 @@
+package net.sf.gilead.core.copier;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe identity map, used as cloned map when several threads clone parts of the same object graph. Keys are
+ * compared by reference, like in {@link java.util.IdentityHashMap}, and {@link #putIfAbsent(Object, Object)} is atomic.
+ */
+public class ConcurrentIdentityMap extends AbstractMap<Object, Object> {
+
+    /**
+     * The underlying map
+     */
+    private final ConcurrentHashMap<IdentityKey, Object> map;
+
+    /**
+     * Constructor
+     */
+    public ConcurrentIdentityMap() {
+        map = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map.get(new IdentityKey(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(new IdentityKey(key));
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        return map.put(new IdentityKey(key), value);
+    }
+
+    @Override
+    public Object putIfAbsent(Object key, Object value) {
+        return map.putIfAbsent(new IdentityKey(key), value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return map.remove(new IdentityKey(key));
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, Object>>() {
+            @Override
+            public Iterator<Map.Entry<Object, Object>> iterator() {
+                final Iterator<Map.Entry<IdentityKey, Object>> iterator = map.entrySet().iterator();
+                return new Iterator<Map.Entry<Object, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<Object, Object> next() {
+                        Map.Entry<IdentityKey, Object> entry = iterator.next();
+                        return new SimpleEntry<>(entry.getKey().object, entry.getValue());
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    /**
+     * Identity key wrapper
+     */
+    private static final class IdentityKey {
+
+        private final Object object;
+
+        IdentityKey(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof IdentityKey) && (((IdentityKey) obj).object == object);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package net.sf.gilead.core.copier;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import net.sf.beanlib.utils.ClassUtils;
+import net.sf.gilead.util.CollectionHelper;
+
+/**
+ * Copy operation context, used by the generated {@link BeanCopier}. It holds the already copied instances and
+ * implements the property filtering and value transformation for one clone or merge operation.
+ */
+public abstract class CopyContext {
+
+    /**
+     * The already copied instances (source instance -> copy)
+     */
+    protected Map<Object, Object> clonedMap;
+
+    /**
+     * Constructor
+     */
+    protected CopyContext() {
+        this(new IdentityHashMap<>());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clonedMap the already copied instances
+     */
+    protected CopyContext(Map<Object, Object> clonedMap) {
+        this.clonedMap = clonedMap;
+    }
+
+    /**
+     * @return the already copied instances
+     */
+    public Map<Object, Object> getClonedMap() {
+        return clonedMap;
+    }
+
+    /**
+     * Indicates if the property must be read or not (called before reading non simple properties).
+     *
+     * @param copier the current bean copier
+     * @param index the property index
+     * @param from the source bean
+     * @return false if the property must be skipped
+     */
+    public boolean accept(BeanCopier copier, int index, Object from) {
+        return true;
+    }
+
+    /**
+     * Indicates if the property must be copied or not.
+     *
+     * @param copier the current bean copier
+     * @param index the property index
+     * @param from the source bean
+     * @param to the target bean
+     * @param value the source property value
+     * @return true if the transformed value must be written to the target bean
+     */
+    public abstract boolean propagate(BeanCopier copier, int index, Object from, Object to, Object value);
+
+    /**
+     * Transform a source property value to its target value
+     *
+     * @param copier the current bean copier
+     * @param index the property index
+     * @param value the source property value
+     * @return the value to write on the target bean
+     */
+    public abstract Object transform(BeanCopier copier, int index, Object value);
+
+    /**
+     * Indicates if the argument class is immutable, ie its instances can be shared between source and copy
+     */
+    public static boolean isImmutable(Class<?> clazz) {
+        return ClassUtils.immutable(clazz) || Enum.class.isAssignableFrom(clazz) || Class.class.equals(clazz);
+    }
+
+    /**
+     * Copy a date (keep the date subclass, such as Timestamp with its nanoseconds)
+     */
+    protected Object copyDate(Date date) {
+        Object copy = date.clone();
+        Object existing = clonedMap.putIfAbsent(date, copy);
+        return (existing != null) ? existing : copy;
+    }
+
+    /**
+     * Copy an array
+     */
+    protected Object copyArray(Object array) {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(componentType, length);
+        Object existing = clonedMap.putIfAbsent(array, copy);
+        if (existing != null) {
+            // Copied by another thread
+            return existing;
+        }
+
+        if (componentType.isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+        } else {
+            Object[] source = (Object[]) array;
+            Object[] target = (Object[]) copy;
+            for (int index = 0; index < length; index++) {
+                target[index] = copyValue(source[index], componentType);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Copy a collection
+     */
+    @SuppressWarnings("unchecked")
+    protected Collection<Object> copyCollection(Collection<?> from) {
+        Collection<?> source = from;
+        if (CollectionHelper.isUnmodifiableCollection(source)) {
+            source = CollectionHelper.getUnmodifiableCollection(source);
+        }
+
+        Collection<Object> copy = createCollection(source);
+        Object existing = clonedMap.putIfAbsent(from, copy);
+        if (existing != null) {
+            // Copied by another thread
+            return (Collection<Object>) existing;
+        }
+        for (Object item : source) {
+            copy.add(copyValue(item, Object.class));
+        }
+        return copy;
+    }
+
+    /**
+     * Copy a map
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<Object, Object> copyMap(Map<?, ?> from) {
+        Map<Object, Object> copy = createMap(from);
+        Object existing = clonedMap.putIfAbsent(from, copy);
+        if (existing != null) {
+            // Copied by another thread
+            return (Map<Object, Object>) existing;
+        }
+        for (Map.Entry<?, ?> entry : from.entrySet()) {
+            copy.put(copyValue(entry.getKey(), Object.class), copyValue(entry.getValue(), Object.class));
+        }
+        return copy;
+    }
+
+    /**
+     * Copy a value that is not a direct bean property (collection item, map entry, array element...)
+     *
+     * @param value the value to copy
+     * @param toClass the expected target class
+     * @return the copy
+     */
+    protected abstract Object copyValue(Object value, Class<?> toClass);
+
+    /**
+     * Create a new, empty collection with the same behavior than the argument one
+     */
+    @SuppressWarnings("unchecked")
+    protected Collection<Object> createCollection(Collection<?> from) {
+        if (from instanceof SortedSet) {
+            return new TreeSet<>((java.util.Comparator<Object>) ((SortedSet<?>) from).comparator());
+        }
+
+        Collection<Object> result = (Collection<Object>) newInstanceOf(from.getClass());
+        if (result != null) {
+            return result;
+        }
+
+        // Basic collection fallback
+        if (from instanceof List) {
+            return new ArrayList<>(from.size());
+        } else if (from instanceof Set) {
+            return new HashSet<>(from.size());
+        } else {
+            return new ArrayList<>(from.size());
+        }
+    }
+
+    /**
+     * Create a new, empty map with the same behavior than the argument one
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<Object, Object> createMap(Map<?, ?> from) {
+        if (from instanceof SortedMap) {
+            return new TreeMap<>((java.util.Comparator<Object>) ((SortedMap<?, ?>) from).comparator());
+        }
+
+        Map<Object, Object> result = (Map<Object, Object>) newInstanceOf(from.getClass());
+        if (result != null) {
+            return result;
+        }
+
+        // Basic map fallback
+        if (from instanceof LinkedHashMap) {
+            return new LinkedHashMap<>();
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Create a new instance of the argument collection or map class
+     *
+     * @return the new instance, or null if the class cannot be instantiated
+     */
+    private Object newInstanceOf(Class<?> clazz) {
+        if (clazz.isAnonymousClass() || clazz.isLocalClass() || clazz.isMemberClass() || Modifier.isAbstract(clazz.getModifiers())
+                || (Modifier.isPublic(clazz.getModifiers()) == false)) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = clazz.getConstructor((Class[]) null);
+            return constructor.newInstance();
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
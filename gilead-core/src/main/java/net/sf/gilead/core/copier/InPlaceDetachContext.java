@@ -0,0 +1,127 @@
+package net.sf.gilead.core.copier;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.core.beanlib.merge.BeanlibCache;
+import net.sf.gilead.core.graph.CloneGraphContext;
+import net.sf.gilead.core.store.ProxyStore;
+import net.sf.gilead.pojo.java5.LightEntity;
+
+/**
+ * In place detach context : plain {@link LightEntity} instances (not proxy nor bytecode enhanced, not class mapped) are
+ * not copied. They are detached from the session, then their persistent collections and maps are replaced with plain
+ * ones and their uninitialized associations with null, the proxy informations being recorded in the proxy store as for
+ * a clone. Other instances (entity proxies, mapped classes, entities still attached to another session...) are cloned
+ * as usual, sharing the same cloned map.
+ */
+public class InPlaceDetachContext extends CloneContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InPlaceDetachContext.class);
+
+    /**
+     * The class mapper (can be null)
+     */
+    private ClassMapper classMapper;
+
+    /**
+     * The associated persistence utils
+     */
+    private PersistenceUtil persistenceUtil;
+
+    /**
+     * Constructor
+     */
+    public InPlaceDetachContext(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+        this(new IdentityHashMap<>(), classMapper, persistenceUtil, proxyStore);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clonedMap the already detached or cloned instances
+     */
+    public InPlaceDetachContext(Map<Object, Object> clonedMap, ClassMapper classMapper, PersistenceUtil persistenceUtil,
+            ProxyStore proxyStore) {
+        super(clonedMap, classMapper, persistenceUtil, proxyStore);
+        this.classMapper = classMapper;
+        this.persistenceUtil = persistenceUtil;
+    }
+
+    /**
+     * Indicates if the argument pojo can be detached in place
+     *
+     * @param pojo the pojo to detach
+     * @param cloneClass the expected clone class (can be null)
+     */
+    public boolean canDetachInPlace(Object pojo, Class<?> cloneClass) {
+        Class<?> pojoClass = pojo.getClass();
+        return (pojo instanceof LightEntity) && (persistenceUtil.isEnhanced(pojoClass) == false)
+                && ((cloneClass == null) || cloneClass.equals(pojoClass))
+                && ((classMapper == null) || (classMapper.getTargetClass(pojoClass) == null));
+    }
+
+    @Override
+    protected Object cloneBean(Object from, Class<?> cloneClass) {
+        if (canDetachInPlace(from, cloneClass) == false) {
+            return super.cloneBean(from, cloneClass);
+        }
+        Object existing = clonedMap.get(from);
+        if (existing != null) {
+            // Already detached, or cloned if it could not be detached
+            return existing;
+        }
+
+        // The entity is modified : it must be detached first, so that it is never flushed
+        if (persistenceUtil.detach(from) == false) {
+            LOGGER.debug("[{}] is still attached to an open session : cloning it.", from);
+            return super.cloneBean(from, cloneClass);
+        }
+        clonedMap.put(from, from);
+        LOGGER.trace("Detaching in place [{}].", from);
+
+        // Force persistence map computation (useful for subclass)
+        persistenceUtil.isPersistentPojo(from);
+
+        BeanCopier copier = BeanCopierFactory.getInstance().getCopier(from.getClass(), from.getClass());
+        BeanlibCache.getFromBeanStack().push(from);
+        CloneGraphContext.enterBean();
+        try {
+            int count = copier.getPropertyCount();
+            for (int index = 0; index < count; index++) {
+                if (copier.isSimpleProperty(index)) {
+                    // Left as is
+                    continue;
+                }
+
+                if (accept(copier, index, from) == false) {
+                    // Outside the clone graph
+                    if (copier.getPropertyType(index).isPrimitive() == false) {
+                        copier.write(index, from, null);
+                    }
+                    continue;
+                }
+
+                Object value = copier.read(index, from);
+                if (value == null) {
+                    continue;
+                }
+
+                // Lazy values are replaced with null, persistent collections and maps with plain ones
+                Object detached = propagate(copier, index, from, from, value) ? transform(copier, index, value) : null;
+                if (detached != value) {
+                    copier.write(index, from, detached);
+                }
+            }
+        } finally {
+            CloneGraphContext.exitBean();
+            BeanlibCache.getFromBeanStack().pop();
+        }
+        return from;
+    }
+}
@@ -0,0 +1,220 @@
+package net.sf.gilead.core.copier;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.beanlib.utils.ClassUtils;
+import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.core.beanlib.merge.BeanlibCache;
+import net.sf.gilead.core.store.ProxyStore;
+
+/**
+ * Merge context for generated copiers. It has the same behavior than the beanlib based merge (see
+ * {@link net.sf.gilead.core.beanlib.merge.MergePropertyFilter}) : the persistent collections, maps and entity proxies
+ * are rebuilt from the stored proxy informations.
+ */
+public class MergeContext extends CopyContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MergeContext.class);
+
+    /**
+     * The class mapper (can be null)
+     */
+    private ClassMapper classMapper;
+
+    /**
+     * The associated persistence utils
+     */
+    private PersistenceUtil persistenceUtil;
+
+    /**
+     * The proxy informations store.
+     */
+    private ProxyStore proxyStore;
+
+    /**
+     * The proxy informations of the property being transformed (persistent collection or map)
+     */
+    private ProxyInformation pendingProxyInformations;
+
+    /**
+     * Constructor
+     *
+     * @param clonedMap the already merged instances (shared between collection items)
+     */
+    public MergeContext(Map<Object, Object> clonedMap, ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+        super(clonedMap);
+        this.classMapper = classMapper;
+        this.persistenceUtil = persistenceUtil;
+        this.proxyStore = proxyStore;
+    }
+
+    /**
+     * Populate the hibernate pojo with the clone one
+     *
+     * @param clonePojo the clone pojo
+     * @param hibernatePojo the stored or fresh hibernate pojo
+     */
+    public void populate(Object clonePojo, Object hibernatePojo) {
+        clonedMap.put(clonePojo, hibernatePojo);
+
+        BeanCopier copier = BeanCopierFactory.getInstance().getCopier(clonePojo.getClass(),
+                persistenceUtil.getUnenhancedClass(hibernatePojo.getClass()));
+        copyBean(copier, clonePojo, hibernatePojo);
+    }
+
+    @Override
+    public boolean propagate(BeanCopier copier, int index, Object from, Object to, Object value) {
+        // Always reset pending proxy information
+        pendingProxyInformations = null;
+
+        // Get proxy informations
+        ProxyInformation proxyInformations = proxyStore.getProxyInformations(from, copier.getPropertyName(index));
+        if (proxyInformations == null) {
+            // No proxy informations : just populate the property
+            return true;
+        }
+
+        Class<?> valueClass = copier.getReader(index).getReturnType();
+        if (Collection.class.isAssignableFrom(valueClass)) {
+            if (value == null) {
+                // The value is now null : set collection proxy
+                copier.write(index, to, persistenceUtil.createPersistentCollection(to, proxyInformations, null));
+                return false;
+            }
+            // Store proxy info for the transform operation
+            pendingProxyInformations = proxyInformations;
+        } else if (Map.class.isAssignableFrom(valueClass)) {
+            if (value == null) {
+                // Set map proxy
+                copier.write(index, to, persistenceUtil.createPersistentMap(to, proxyInformations, null));
+                return false;
+            }
+            // Store proxy info for the transform operation
+            pendingProxyInformations = proxyInformations;
+        } else if ((value == null) && (isInitialized(proxyInformations) == false)) {
+            // Set an entity proxy
+            Object proxy = persistenceUtil.createEntityProxy(proxyInformations);
+            if (proxy != null) {
+                copier.write(index, to, proxy);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public Object transform(BeanCopier copier, int index, Object value) {
+        // Get and reset proxy informations if any
+        ProxyInformation proxyInformations = pendingProxyInformations;
+        pendingProxyInformations = null;
+
+        Object result = copyValue(value, copier.getPropertyType(index));
+
+        // Turn into persistent collection or map if needed
+        if ((proxyInformations != null) && (result != null)) {
+            Object parent = BeanlibCache.getToBeanStack().peek();
+            if (result instanceof Collection) {
+                result = persistenceUtil.createPersistentCollection(parent, proxyInformations, (Collection<?>) result);
+            } else if (result instanceof Map) {
+                result = persistenceUtil.createPersistentMap(parent, proxyInformations, (Map<?, ?>) result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected Object copyValue(Object value, Class<?> toClass) {
+        if (value == null) {
+            return null;
+        }
+
+        // Already merged ?
+        Object merged = clonedMap.get(value);
+        if (merged != null) {
+            return merged;
+        }
+
+        Class<?> valueClass = value.getClass();
+        if (isImmutable(valueClass)) {
+            return value;
+        } else if (value instanceof Collection) {
+            return copyCollection((Collection<?>) value);
+        } else if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        } else if (valueClass.isArray()) {
+            return copyArray(value);
+        } else if (value instanceof Date) {
+            return copyDate((Date) value);
+        } else if (ClassUtils.isJavaPackage(valueClass)) {
+            // Not a bean : the clone value is not used anymore after merge
+            return value;
+        }
+
+        return mergeBean(value, toClass);
+    }
+
+    /**
+     * Merge a nested bean with its copier
+     *
+     * @param from the clone bean
+     * @param toClass the expected target class
+     */
+    protected Object mergeBean(Object from, Class<?> toClass) {
+        Class<?> fromClass = from.getClass();
+
+        // Clone mapper indirection
+        Class<?> targetClass = null;
+        if (classMapper != null) {
+            targetClass = classMapper.getSourceClass(persistenceUtil.getUnenhancedClass(fromClass));
+        }
+        if (targetClass != null) {
+            LOGGER.debug("Creating mapped class [{}].", targetClass);
+        } else if ((toClass == null) || toClass.isInterface() || toClass.isAssignableFrom(fromClass)) {
+            // Keep the from class
+            targetClass = persistenceUtil.getUnenhancedClass(fromClass);
+        } else {
+            targetClass = toClass;
+        }
+
+        BeanCopier copier = BeanCopierFactory.getInstance().getCopier(fromClass, targetClass);
+        Object result = copier.newInstance();
+        clonedMap.put(from, result);
+
+        copyBean(copier, from, result);
+        return result;
+    }
+
+    /**
+     * Copy the clone bean to the hibernate one
+     */
+    private void copyBean(BeanCopier copier, Object from, Object to) {
+        // Force persistence map computation (useful for subclass)
+        persistenceUtil.isPersistentPojo(from);
+
+        BeanlibCache.getFromBeanStack().push(from);
+        try {
+            copier.copy(from, to, this);
+        } finally {
+            BeanlibCache.getFromBeanStack().pop();
+            pendingProxyInformations = null;
+        }
+    }
+
+    /**
+     * Indicates if the argument property is lazy or not
+     *
+     * @param proxyInfo serialized proxy informations
+     */
+    protected boolean isInitialized(ProxyInformation proxyInfo) {
+        // The property has no proxy info or it does not contains 'initialized' field
+        return (proxyInfo == null) || proxyInfo.isInitialized();
+    }
+}
@@ -0,0 +1,23 @@
+package net.sf.gilead.core.copier;
+
+/**
+ * Fallback copier, used when the copier class cannot be generated (for instance when the target class loader cannot
+ * see Gilead classes). It has the same behavior than the generated copiers, but all accesses are reflective.
+ */
+public class ReflectiveBeanCopier extends BeanCopier {
+
+    @Override
+    public void copy(Object from, Object to, CopyContext context) {
+        int count = getPropertyCount();
+        for (int index = 0; index < count; index++) {
+            if (isSimpleProperty(index)) {
+                write(index, to, read(index, from));
+            } else if (context.accept(this, index, from)) {
+                Object value = read(index, from);
+                if (context.propagate(this, index, from, to, value)) {
+                    write(index, to, context.transform(this, index, value));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package net.sf.gilead.core.graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.Subgraph;
+
+/**
+ * Clone profile : the associations to clone, as a tree of attribute names. Basic properties are always cloned, while
+ * associations (entity, collection and map properties) that are not part of the graph are skipped : they are neither
+ * read nor recorded in the proxy store, and are null on the clone side.
+ */
+public final class CloneGraph {
+
+    /**
+     * Graph with no association (associations without subgraph)
+     */
+    public static final CloneGraph EMPTY = new CloneGraph(Collections.<String, CloneGraph> emptyMap(), false);
+
+    /**
+     * Graph including every association (no restriction)
+     */
+    public static final CloneGraph ALL = new CloneGraph(Collections.<String, CloneGraph> emptyMap(), true);
+
+    /**
+     * The included attributes, with their subgraph
+     */
+    private final Map<String, CloneGraph> attributes;
+
+    /**
+     * Indicates if every attribute is included
+     */
+    private final boolean all;
+
+    /**
+     * Constructor
+     */
+    private CloneGraph(Map<String, CloneGraph> attributes, boolean all) {
+        this.attributes = attributes;
+        this.all = all;
+    }
+
+    /**
+     * Create a clone graph from a JPA entity graph. Class specific subgraphs and key subgraphs of an attribute are
+     * merged in a single subgraph.
+     *
+     * @param entityGraph the JPA entity graph
+     * @return the clone graph
+     */
+    public static CloneGraph of(EntityGraph<?> entityGraph) {
+        return of(entityGraph.getAttributeNodes());
+    }
+
+    /**
+     * Create a clone graph from attribute paths, such as "messages.author"
+     *
+     * @param attributePaths the included attribute paths
+     * @return the clone graph
+     */
+    public static CloneGraph of(String... attributePaths) {
+        Map<String, Object> tree = new HashMap<>();
+        for (String attributePath : attributePaths) {
+            Map<String, Object> node = tree;
+            for (String attribute : attributePath.split("\\.")) {
+                node = getChildNode(node, attribute);
+            }
+        }
+        return build(tree);
+    }
+
+    /**
+     * Indicates if the argument attribute is part of the graph
+     */
+    public boolean contains(String attributeName) {
+        return all || attributes.containsKey(attributeName);
+    }
+
+    /**
+     * @return the subgraph of the argument attribute ({@link #EMPTY} if the attribute has no subgraph)
+     */
+    public CloneGraph getSubgraph(String attributeName) {
+        if (all) {
+            return ALL;
+        }
+        CloneGraph subgraph = attributes.get(attributeName);
+        return (subgraph != null) ? subgraph : EMPTY;
+    }
+
+    @Override
+    public String toString() {
+        return all ? "*" : attributes.toString();
+    }
+
+    /**
+     * Convert JPA attribute nodes
+     */
+    private static CloneGraph of(List<AttributeNode<?>> attributeNodes) {
+        if ((attributeNodes == null) || attributeNodes.isEmpty()) {
+            return EMPTY;
+        }
+
+        Map<String, CloneGraph> attributes = new HashMap<>();
+        for (AttributeNode<?> attributeNode : attributeNodes) {
+            CloneGraph subgraph = merge(attributes.get(attributeNode.getAttributeName()), attributeNode.getSubgraphs());
+            attributes.put(attributeNode.getAttributeName(), merge(subgraph, attributeNode.getKeySubgraphs()));
+        }
+        return new CloneGraph(Collections.unmodifiableMap(attributes), false);
+    }
+
+    /**
+     * Merge the argument subgraphs
+     */
+    @SuppressWarnings("rawtypes")
+    private static CloneGraph merge(CloneGraph graph, Map<Class, Subgraph> subgraphs) {
+        if (subgraphs != null) {
+            for (Subgraph<?> subgraph : subgraphs.values()) {
+                graph = merge(graph, of(subgraph.getAttributeNodes()));
+            }
+        }
+        return (graph != null) ? graph : EMPTY;
+    }
+
+    /**
+     * Merge two clone graphs
+     */
+    private static CloneGraph merge(CloneGraph first, CloneGraph second) {
+        if ((first == null) || (first == EMPTY)) {
+            return second;
+        } else if ((second == null) || (second == EMPTY)) {
+            return first;
+        }
+
+        Map<String, CloneGraph> attributes = new HashMap<>(first.attributes);
+        for (Map.Entry<String, CloneGraph> attribute : second.attributes.entrySet()) {
+            attributes.put(attribute.getKey(), merge(attributes.get(attribute.getKey()), attribute.getValue()));
+        }
+        return new CloneGraph(Collections.unmodifiableMap(attributes), false);
+    }
+
+    /**
+     * Get or create a child node of the attribute path tree
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getChildNode(Map<String, Object> node, String attribute) {
+        Map<String, Object> child = (Map<String, Object>) node.get(attribute);
+        if (child == null) {
+            child = new HashMap<>();
+            node.put(attribute, child);
+        }
+        return child;
+    }
+
+    /**
+     * Build a clone graph from an attribute path tree
+     */
+    @SuppressWarnings("unchecked")
+    private static CloneGraph build(Map<String, Object> tree) {
+        if (tree.isEmpty()) {
+            return EMPTY;
+        }
+
+        Map<String, CloneGraph> attributes = new HashMap<>();
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            attributes.put(entry.getKey(), build((Map<String, Object>) entry.getValue()));
+        }
+        return new CloneGraph(Collections.unmodifiableMap(attributes), false);
+    }
+}
@@ -0,0 +1,113 @@
+package net.sf.gilead.core.graph;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import net.sf.gilead.core.PersistenceUtil;
+
+/**
+ * Thread local state of a clone restricted by a {@link CloneGraph}. Cloned beans are traversed depth first : each bean
+ * is associated with the subgraph of the property it was reached from.
+ */
+public class CloneGraphContext {
+
+    /**
+     * The context of the current thread
+     */
+    private static ThreadLocal<CloneGraphContext> context = new ThreadLocal<>();
+
+    /**
+     * The graphs of the beans being cloned
+     */
+    private final Deque<CloneGraph> beanGraphs = new ArrayDeque<>();
+
+    /**
+     * The graph of the next cloned bean (subgraph of the last included property)
+     */
+    private CloneGraph nextGraph;
+
+    /**
+     * Constructor
+     */
+    private CloneGraphContext(CloneGraph graph) {
+        this.nextGraph = graph;
+    }
+
+    /**
+     * Start a graph restricted clone for the current thread
+     *
+     * @param graph the graph of the root pojo(s)
+     */
+    public static void begin(CloneGraph graph) {
+        context.set(new CloneGraphContext(graph));
+    }
+
+    /**
+     * End the graph restricted clone of the current thread
+     */
+    public static void end() {
+        context.remove();
+    }
+
+    /**
+     * @return true if a graph restricted clone is in progress for the current thread
+     */
+    public static boolean isActive() {
+        return context.get() != null;
+    }
+
+    /**
+     * Notify the start of a bean clone
+     */
+    public static void enterBean() {
+        CloneGraphContext current = context.get();
+        if (current != null) {
+            current.beanGraphs.push(current.nextGraph);
+        }
+    }
+
+    /**
+     * Notify the end of a bean clone
+     */
+    public static void exitBean() {
+        CloneGraphContext current = context.get();
+        if (current != null) {
+            // Sibling beans (collection elements) share the same graph
+            current.nextGraph = current.beanGraphs.pop();
+        }
+    }
+
+    /**
+     * Indicates if the argument property of the current bean must be cloned. Basic and embedded properties are always
+     * cloned, while associations must be part of the graph. Associations of embedded properties must be part of the
+     * graph too, as attributes of the embedded property subgraph.
+     *
+     * @param bean the current bean
+     * @param propertyName the property name
+     * @param propertyType the declared property type
+     * @param persistenceUtil the persistence util, used to detect associations
+     * @return false if the property must be skipped
+     */
+    public static boolean includes(Object bean, String propertyName, Class<?> propertyType, PersistenceUtil persistenceUtil) {
+        CloneGraphContext current = context.get();
+        if ((current == null) || current.beanGraphs.isEmpty()) {
+            return true;
+        }
+
+        CloneGraph graph = current.beanGraphs.peek();
+        if (graph.contains(propertyName)) {
+            current.nextGraph = graph.getSubgraph(propertyName);
+            return true;
+        } else if (persistenceUtil.isAssociation(bean.getClass(), propertyName, propertyType) == true) {
+            return false;
+        } else if (persistenceUtil.isPersistentClass(propertyType) == true) {
+            // Embedded property : its associations are not part of the graph
+            current.nextGraph = CloneGraph.EMPTY;
+            return true;
+        }
+
+        // Basic property
+        current.nextGraph = CloneGraph.ALL;
+        return true;
+    }
+}
@@ -0,0 +1,221 @@
+package net.sf.gilead.core.serialization;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of serializable ids sharing the same entity name, with Long, Integer or String ids. The entity name is
+ * stored once and the ids in a primitive or String array : {@link SerializableId} elements are only created when read.
+ */
+public final class CompactIdList extends AbstractList<SerializableId> implements RandomAccess, Serializable {
+
+    /**
+     * Serialization ID
+     */
+    private static final long serialVersionUID = -2880464389165617823L;
+
+    /**
+     * The shared entity name
+     */
+    private final String entityName;
+
+    /**
+     * Long ids (null if ids are not Long)
+     */
+    private final long[] longIds;
+
+    /**
+     * Integer ids (null if ids are not Integer)
+     */
+    private final int[] intIds;
+
+    /**
+     * String ids (null if ids are not String)
+     */
+    private final String[] stringIds;
+
+    /**
+     * Constructor
+     */
+    private CompactIdList(String entityName, long[] longIds, int[] intIds, String[] stringIds) {
+        this.entityName = entityName;
+        this.longIds = longIds;
+        this.intIds = intIds;
+        this.stringIds = stringIds;
+    }
+
+    /**
+     * @return the shared entity name
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    @Override
+    public SerializableId get(int index) {
+        SerializableId result = new SerializableId();
+        result.setEntityName(entityName);
+        result.setId(getId(index));
+        return result;
+    }
+
+    /**
+     * @return the id at the argument index, without creating the serializable id
+     */
+    public Serializable getId(int index) {
+        if (longIds != null) {
+            return longIds[index];
+        } else if (intIds != null) {
+            return intIds[index];
+        } else {
+            return stringIds[index];
+        }
+    }
+
+    @Override
+    public int size() {
+        if (longIds != null) {
+            return longIds.length;
+        } else if (intIds != null) {
+            return intIds.length;
+        } else {
+            return stringIds.length;
+        }
+    }
+
+    /**
+     * @return the ids, as a list of Long, Integer or String
+     */
+    public ArrayList<Serializable> toIdList() {
+        int size = size();
+        ArrayList<Serializable> result = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            result.add(getId(index));
+        }
+        return result;
+    }
+
+    /**
+     * Create a compact id list
+     *
+     * @param entityName the shared entity name
+     * @param ids the Long, Integer or String ids
+     * @return the compact id list, or null if the ids are not all Long, Integer or String
+     */
+    public static CompactIdList of(String entityName, List<?> ids) {
+        Builder builder = new Builder(entityName, ids.size());
+        for (Object id : ids) {
+            if (builder.add(entityName, id) == false) {
+                return null;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Compact id list builder. Adding an id fails as soon as the list cannot be compact anymore.
+     */
+    public static final class Builder {
+
+        /**
+         * The shared entity name (null until the first id)
+         */
+        private String entityName;
+
+        /**
+         * The expected size
+         */
+        private final int capacity;
+
+        /**
+         * Long ids
+         */
+        private long[] longIds;
+
+        /**
+         * Integer ids
+         */
+        private int[] intIds;
+
+        /**
+         * String ids
+         */
+        private String[] stringIds;
+
+        /**
+         * The number of added ids
+         */
+        private int size;
+
+        /**
+         * Constructor
+         *
+         * @param entityName the shared entity name, or null to take the one of the first added id
+         * @param capacity the expected size
+         */
+        public Builder(String entityName, int capacity) {
+            this.entityName = entityName;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Add an id
+         *
+         * @return false if the id does not fit the compact list
+         */
+        public boolean add(String idEntityName, Object id) {
+            if ((idEntityName == null) || (id == null) || (size == capacity)) {
+                return false;
+            }
+            if (entityName == null) {
+                entityName = idEntityName;
+            } else if (entityName.equals(idEntityName) == false) {
+                return false;
+            }
+
+            if (id instanceof Long) {
+                if (size == 0) {
+                    longIds = new long[capacity];
+                } else if (longIds == null) {
+                    return false;
+                }
+                longIds[size++] = ((Long) id).longValue();
+            } else if (id instanceof Integer) {
+                if (size == 0) {
+                    intIds = new int[capacity];
+                } else if (intIds == null) {
+                    return false;
+                }
+                intIds[size++] = ((Integer) id).intValue();
+            } else if (id instanceof String) {
+                if (size == 0) {
+                    stringIds = new String[capacity];
+                } else if (stringIds == null) {
+                    return false;
+                }
+                stringIds[size++] = (String) id;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return the compact id list, or null if no id was added
+         */
+        public CompactIdList build() {
+            if (size == 0) {
+                return null;
+            }
+            if (size == capacity) {
+                return new CompactIdList(entityName, longIds, intIds, stringIds);
+            }
+            return new CompactIdList(entityName, (longIds == null) ? null : Arrays.copyOf(longIds, size),
+                    (intIds == null) ? null : Arrays.copyOf(intIds, size), (stringIds == null) ? null : Arrays.copyOf(stringIds, size));
+        }
+    }
+}
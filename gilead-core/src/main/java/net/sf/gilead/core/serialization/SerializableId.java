@@ -1,6 +1,7 @@
 package net.sf.gilead.core.serialization;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Id / Class structure for proxy information collection handling
@@ -77,24 +78,29 @@ public class SerializableId implements Serializable {
         if ((other == null) || (other instanceof SerializableId == false)) {
             return false;
         }
+        SerializableId otherId = (SerializableId) other;
 
         // Check entity name
-        if (entityName == null) {
-            return (((SerializableId) other).entityName == null);
-        } else if (entityName.equals(((SerializableId) other).entityName) == false) {
+        if (Objects.equals(entityName, otherId.entityName) == false) {
             return false;
         }
 
-        // Check id or hashcode
-        if (id == null) {
-            if (value != null) {
-                return value.equals(((SerializableId) other).value);
-            } else {
-                return ((SerializableId) other).value == null;
-            }
-        } else {
-            return id.equals(((SerializableId) other).id);
+        // Check id, or value when there is no id
+        if (Objects.equals(id, otherId.id) == false) {
+            return false;
+        }
+        return (id != null) || Objects.equals(value, otherId.value);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (entityName == null) ? 0 : entityName.hashCode();
+        if (id != null) {
+            result = 31 * result + id.hashCode();
+        } else if (value != null) {
+            result = 31 * result + value.hashCode();
         }
+        return result;
     }
 
     @Override
@@ -7,6 +7,8 @@ import java.io.Serializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.gilead.core.ProxyInformation;
+
 /**
  * XStream Serialization strategy. It serializes Serializable instances to String using XStream and deserializes them
  * when back. (needed for proxy informations, since GWT does not like Serializable type in Map<String, Serializable>)
@@ -41,6 +43,11 @@ public class XStreamProxySerialization implements IProxySerialization {
             return null;
         }
 
+        // Proxy informations are written in the legacy map format (XStream default allowed types)
+        if (serializable instanceof ProxyInformation) {
+            serializable = ((ProxyInformation) serializable).toMap();
+        }
+
         // Serialize to bytes and encapsulate into string
         return xstream.toXML(serializable);
     }
@@ -1,7 +1,6 @@
 package net.sf.gilead.core.store;
 
-import java.io.Serializable;
-import java.util.Map;
+import net.sf.gilead.core.ProxyInformation;
 
 /**
  * Empty proxy store. The proxy informations is not stored, so this store can be used for cloning entities only (trying
@@ -12,13 +11,13 @@ import java.util.Map;
 public class NoProxyStore implements ProxyStore {
 
     @Override
-    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations) {}
+    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, ProxyInformation proxyInformations) {}
 
     @Override
     public void removeProxyInformations(Object pojo, String property) {}
 
     @Override
-    public Map<String, Serializable> getProxyInformations(Object pojo, String property) {
+    public ProxyInformation getProxyInformations(Object pojo, String property) {
         // Must no be called !
         throw new RuntimeException("Cannot merge entities with NoProxyStore!");
     }
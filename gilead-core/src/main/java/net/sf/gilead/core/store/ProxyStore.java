@@ -1,7 +1,6 @@
 package net.sf.gilead.core.store;
 
-import java.io.Serializable;
-import java.util.Map;
+import net.sf.gilead.core.ProxyInformation;
 
 /**
  * Handler for proxy informations storage and recovery
@@ -18,7 +17,7 @@ public interface ProxyStore {
      * @param property the proxy property name
      * @param proxyInformations the associated proxy informations
      */
-    void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations);
+    void storeProxyInformations(Object cloneBean, Object persistentBean, String property, ProxyInformation proxyInformations);
 
     /**
      * Remove the proxy informations from the property of the argument object.
@@ -35,7 +34,7 @@ public interface ProxyStore {
      * @param property the proxy property name
      * @return the proxy informations if they exists, null otherwise
      */
-    Map<String, Serializable> getProxyInformations(Object pojo, String property);
+    ProxyInformation getProxyInformations(Object pojo, String property);
 
     /**
      * Clean up the proxy store after a complete serialization process
@@ -0,0 +1,100 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.Serializable;
+
+import jakarta.servlet.http.HttpSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.core.ProxyInformation;
+
+/**
+ * Proxy store for stateful web application, keeping all the proxy informations of an HTTP session in a single
+ * {@link ProxyInformationTable} attribute instead of one attribute per lazy property. The string key methods inherited
+ * from {@link HttpSessionProxyStore} still use one attribute per key. Write behind is not supported : table updates
+ * are already in memory, and the session attribute is only set again once, at clean up.
+ */
+public class CompactHttpSessionProxyStore extends HttpSessionProxyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactHttpSessionProxyStore.class);
+
+    /**
+     * Write behind is ignored by this store
+     */
+    @Override
+    public void setWriteBehind(boolean writeBehind) {
+        if (writeBehind == true) {
+            LOGGER.warn("Write behind is not supported by " + getClass().getSimpleName() + " : ignored");
+        }
+    }
+
+    @Override
+    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, ProxyInformation proxyInformations) {
+        Serializable id = UniqueNameGenerator.getUniqueId(persistenceUtil, persistentBean);
+        getTable(true).put(getClassName(cloneBean), id, property, proxyInformations);
+    }
+
+    @Override
+    public ProxyInformation getProxyInformations(Object pojo, String property) {
+        Serializable id = UniqueNameGenerator.findUniqueId(persistenceUtil, pojo);
+        if (id == null) {
+            // Transient or not persistent pojo
+            return null;
+        }
+        ProxyInformationTable table = getTable(false);
+        return (table != null) ? table.get(getClassName(pojo), id, property) : null;
+    }
+
+    @Override
+    public void removeProxyInformations(Object pojo, String property) {
+        Serializable id = UniqueNameGenerator.getUniqueId(persistenceUtil, pojo);
+        ProxyInformationTable table = getTable(false);
+        if (table != null) {
+            table.remove(getClassName(pojo), id, property);
+        }
+    }
+
+    /**
+     * Set the table attribute again if modified, so that the container replicates the session
+     */
+    @Override
+    public void cleanUp() {
+        super.cleanUp();
+
+        HttpSession session = findSession();
+        if (session == null) {
+            return;
+        }
+        ProxyInformationTable table = (ProxyInformationTable) session.getAttribute(ProxyInformationTable.ATTRIBUTE_NAME);
+        if ((table != null) && table.clearModified()) {
+            session.setAttribute(ProxyInformationTable.ATTRIBUTE_NAME, table);
+        }
+    }
+
+    /**
+     * @param create true to create the table if the session does not have one yet
+     * @return the proxy informations table of the current HTTP session (null if not created)
+     */
+    protected ProxyInformationTable getTable(boolean create) {
+        HttpSession session = getSession();
+        ProxyInformationTable table = (ProxyInformationTable) session.getAttribute(ProxyInformationTable.ATTRIBUTE_NAME);
+        if ((table == null) && (create == true)) {
+            synchronized (session) {
+                table = (ProxyInformationTable) session.getAttribute(ProxyInformationTable.ATTRIBUTE_NAME);
+                if (table == null) {
+                    table = new ProxyInformationTable();
+                    session.setAttribute(ProxyInformationTable.ATTRIBUTE_NAME, table);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the unenhanced class name of the pojo
+     */
+    private String getClassName(Object pojo) {
+        return persistenceUtil.getUnenhancedClass(pojo.getClass()).getName();
+    }
+}
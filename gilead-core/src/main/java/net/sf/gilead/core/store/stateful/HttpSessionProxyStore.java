@@ -1,9 +1,7 @@
 package net.sf.gilead.core.store.stateful;
 
-import java.io.Serializable;
-import java.util.Map;
-
 import jakarta.servlet.http.HttpSession;
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.exception.ProxyStoreException;
 
 /**
@@ -31,24 +29,31 @@ public class HttpSessionProxyStore extends AbstractStatefulProxyStore {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public Map<String, Serializable> get(String key) {
-        return (Map<String, Serializable>) getSession().getAttribute(key);
+    public ProxyInformation get(String key) {
+        // Attributes stored by former versions are proxy informations maps
+        return ProxyInformation.valueOf(getSession().getAttribute(key));
     }
 
     @Override
-    public void store(String key, Map<String, Serializable> proxyInformation) {
+    public void store(String key, ProxyInformation proxyInformation) {
         getSession().setAttribute(key, proxyInformation);
     }
 
     /**
      * @return the HTTP session stored in thread local
      */
-    private HttpSession getSession() {
-        HttpSession session = httpSession.get();
+    protected HttpSession getSession() {
+        HttpSession session = findSession();
         if (session == null) {
             throw new ProxyStoreException("No HTTP session stored", null);
         }
         return session;
     }
+
+    /**
+     * @return the HTTP session stored in thread local, or null
+     */
+    protected HttpSession findSession() {
+        return httpSession.get();
+    }
 }
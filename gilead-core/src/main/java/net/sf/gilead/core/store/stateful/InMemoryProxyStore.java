@@ -1,33 +1,445 @@
 package net.sf.gilead.core.store.stateful;
 
-import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.core.ProxyInformation;
 
 /**
- * In Memory Proxy Information Store. This class stores POJO in a simple hashmap
- * 
+ * In Memory Proxy Information Store. Entries are spread on lock striped segments, each of them being a LRU map, so
+ * that concurrent threads seldom wait for each other. The store can be bounded with a maximum entry count (least
+ * recently used entries are evicted first) and a time to live. Both are unlimited by default.
+ *
  * @author bruno.marchesson
  */
 public class InMemoryProxyStore extends AbstractStatefulProxyStore {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryProxyStore.class);
+
+    /**
+     * Number of segments (power of two)
+     */
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * The store segments
+     */
+    private final Segment[] segments;
+
+    /**
+     * The store entries, as a map
+     *
+     * @deprecated entries are now spread on segments : this field is a live view of the store, kept for subclasses
+     *             compatibility only, and will be removed
+     */
+    @Deprecated
+    protected Map<String, ProxyInformation> map = new MapView();
+
+    /**
+     * Current entry count, shared by all segments
+     */
+    private final AtomicInteger entryCount = new AtomicInteger();
+
+    /**
+     * Maximum entry count (0 for unbounded)
+     */
+    private volatile int maxEntries;
+
+    /**
+     * Time to live in nanoseconds (0 for unlimited)
+     */
+    private volatile long timeToLive;
+
+    /**
+     * Statistics
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * Constructor
+     */
+    public InMemoryProxyStore() {
+        segments = new Segment[SEGMENT_COUNT];
+        for (int index = 0; index < SEGMENT_COUNT; index++) {
+            segments[index] = new Segment();
+        }
+    }
+
+    /**
+     * @return the maximum entry count (0 for unbounded)
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the maximum entry count. The bound is global : when exceeded, the least recently used entry of the whole store
+     * is evicted, by comparing the least recently used entries of every segment.
+     *
+     * @param maxEntries the maximum entry count (0 for unbounded)
+     */
+    public void setMaxEntries(int maxEntries) {
+        LOGGER.debug("Using max entries : " + maxEntries);
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * @return the time to live of entries, in milliseconds (0 for unlimited)
+     */
+    public long getTimeToLive() {
+        return TimeUnit.NANOSECONDS.toMillis(timeToLive);
+    }
+
+    /**
+     * @param timeToLive the time to live of entries since their storage, in milliseconds (0 for unlimited)
+     */
+    public void setTimeToLive(long timeToLive) {
+        LOGGER.debug("Using time to live : " + timeToLive);
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeToLive));
+    }
+
+    /**
+     * @return the number of successful lookups
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of failed lookups
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return the number of entries evicted because of the maximum entry count
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return the number of entries removed because of the time to live
+     */
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
     /**
-     * The store hashmap
+     * @return the current entry count (including expired entries not purged yet)
      */
-    protected Map<String, Map<String, Serializable>> map = new HashMap<>();
+    public int size() {
+        return entryCount.get();
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entryCount.addAndGet(-segment.size());
+                segment.clear();
+            }
+        }
+    }
 
     @Override
     public void delete(String key) {
-        map.remove(key);
+        removeEntry(key);
     }
 
     @Override
-    public Map<String, Serializable> get(String key) {
-        return map.get(key);
+    public ProxyInformation get(String key) {
+        ProxyInformation proxyInformation = findEntry(key);
+        if (proxyInformation == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return proxyInformation;
     }
 
     @Override
-    public void store(String key, Map<String, Serializable> proxyInformation) {
-        map.put(key, proxyInformation);
+    public void store(String key, ProxyInformation proxyInformation) {
+        putEntry(key, proxyInformation);
+    }
+
+    /**
+     * @return the stored value, or null if not found or expired
+     */
+    private ProxyInformation findEntry(String key) {
+        Segment segment = segments[getSegmentIndex(key)];
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            long now = currentTime();
+            if (entry.isExpired(now)) {
+                segment.remove(key);
+                entryCount.decrementAndGet();
+                expirationCount.increment();
+                return null;
+            }
+            entry.accessedAt = now;
+            return entry.value;
+        }
+    }
+
+    /**
+     * Store the value, and evict least recently used entries if the maximum entry count is exceeded
+     *
+     * @return the previous value, or null
+     */
+    private ProxyInformation putEntry(String key, ProxyInformation proxyInformation) {
+        long now = currentTime();
+        long ttl = timeToLive;
+        Entry entry = new Entry(proxyInformation, now, (ttl > 0) ? now + ttl : 0);
+
+        Segment segment = segments[getSegmentIndex(key)];
+        Entry previous;
+        synchronized (segment) {
+            previous = segment.put(key, entry);
+            if (previous == null) {
+                entryCount.incrementAndGet();
+            }
+            if (ttl > 0) {
+                segment.purgeExpired(now, ttl);
+            }
+        }
+
+        int max = maxEntries;
+        if ((max > 0) && (entryCount.get() > max)) {
+            evict(max, key);
+        }
+        return (previous != null) ? previous.value : null;
+    }
+
+    /**
+     * Remove the stored value
+     *
+     * @return the removed value, or null
+     */
+    private ProxyInformation removeEntry(String key) {
+        Segment segment = segments[getSegmentIndex(key)];
+        synchronized (segment) {
+            Entry entry = segment.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            entryCount.decrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Evict least recently used entries until the entry count is back to the maximum. The least recently used entry of
+     * the store is the oldest of the segments least recently used entries. Only one segment is locked at a time.
+     *
+     * @param max the maximum entry count
+     * @param storedKey the key just stored, never evicted
+     */
+    private void evict(int max, String storedKey) {
+        while (entryCount.get() > max) {
+            // Find the segment holding the least recently used entry
+            Segment oldestSegment = null;
+            long oldestAccess = 0;
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    Entry eldest = segment.getEldest(storedKey);
+                    if ((eldest != null) && ((oldestSegment == null) || (eldest.accessedAt - oldestAccess < 0))) {
+                        oldestSegment = segment;
+                        oldestAccess = eldest.accessedAt;
+                    }
+                }
+            }
+            if (oldestSegment == null) {
+                // Only the stored key is left
+                return;
+            }
+
+            synchronized (oldestSegment) {
+                if (oldestSegment.removeEldest(storedKey) == true) {
+                    entryCount.decrementAndGet();
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the current time, in nanoseconds (see {@link System#nanoTime()})
+     */
+    protected long currentTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @return the segment index of the argument key
+     */
+    private static int getSegmentIndex(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
+    /**
+     * Live map view of the store (see {@link #map})
+     */
+    private final class MapView extends AbstractMap<String, ProxyInformation> {
+
+        @Override
+        public ProxyInformation get(Object key) {
+            return (key instanceof String) ? findEntry((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public ProxyInformation put(String key, ProxyInformation value) {
+            return putEntry(key, value);
+        }
+
+        @Override
+        public ProxyInformation remove(Object key) {
+            return (key instanceof String) ? removeEntry((String) key) : null;
+        }
+
+        @Override
+        public int size() {
+            return entryCount.get();
+        }
+
+        @Override
+        public void clear() {
+            InMemoryProxyStore.this.clear();
+        }
+
+        /**
+         * @return a snapshot of the stored entries
+         */
+        @Override
+        public Set<Map.Entry<String, ProxyInformation>> entrySet() {
+            Map<String, ProxyInformation> snapshot = new HashMap<>();
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    for (Map.Entry<String, InMemoryProxyStore.Entry> entry : segment.entrySet()) {
+                        snapshot.put(entry.getKey(), entry.getValue().value);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(snapshot).entrySet();
+        }
+    }
+
+    /**
+     * Stored entry
+     */
+    private static final class Entry {
+
+        private final ProxyInformation value;
+
+        /**
+         * Last access time, in {@link InMemoryProxyStore#currentTime()} unit (guarded by the segment monitor)
+         */
+        private long accessedAt;
+
+        /**
+         * Expiration time, in {@link InMemoryProxyStore#currentTime()} unit (0 for never)
+         */
+        private final long expiresAt;
+
+        Entry(ProxyInformation value, long accessedAt, long expiresAt) {
+            this.value = value;
+            this.accessedAt = accessedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return (expiresAt != 0) && (now - expiresAt >= 0);
+        }
+    }
+
+    /**
+     * Store segment : access ordered map, guarded by its own monitor
+     */
+    private final class Segment extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Next time for a full expired entries purge
+         */
+        private long nextPurge;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
+
+        /**
+         * @return the least recently used entry, or null if empty or if it is the argument key
+         */
+        Entry getEldest(String storedKey) {
+            Iterator<Map.Entry<String, Entry>> iterator = entrySet().iterator();
+            if (iterator.hasNext() == false) {
+                return null;
+            }
+            Map.Entry<String, Entry> eldest = iterator.next();
+            return eldest.getKey().equals(storedKey) ? null : eldest.getValue();
+        }
+
+        /**
+         * Remove the least recently used entry, unless it is the argument key
+         *
+         * @return true if an entry was removed
+         */
+        boolean removeEldest(String storedKey) {
+            Iterator<String> iterator = keySet().iterator();
+            if ((iterator.hasNext() == false) || iterator.next().equals(storedKey)) {
+                return false;
+            }
+            iterator.remove();
+            return true;
+        }
+
+        /**
+         * Remove expired entries, at most twice per time to live
+         */
+        void purgeExpired(long now, long ttl) {
+            if (now - nextPurge < 0) {
+                return;
+            }
+            nextPurge = now + ttl / 2;
+
+            Iterator<Entry> iterator = values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isExpired(now)) {
+                    iterator.remove();
+                    entryCount.decrementAndGet();
+                    expirationCount.increment();
+                }
+            }
+        }
     }
 }
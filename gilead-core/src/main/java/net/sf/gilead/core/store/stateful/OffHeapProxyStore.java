@@ -0,0 +1,526 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Off heap Proxy Information Store. Entries are binary encoded (see {@link ProxyInformation#writeTo(java.io.DataOutput)})
+ * and appended to slabs of direct byte buffers, so that millions of entries do not weigh on garbage collection. The
+ * index is an open addressing hash table of primitive arrays, keyed by the store key (class, id and property). Replaced
+ * and deleted entries leave dead bytes in the slabs, which are compacted once they exceed half of the used memory.
+ * The allocated memory can be bounded : compaction temporarily needs room for a copy of the live records.
+ */
+public class OffHeapProxyStore extends AbstractStatefulProxyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapProxyStore.class);
+
+    /**
+     * Default slab size (4 MB)
+     */
+    private static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Record header size : key length and value length
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Index address of an empty slot
+     */
+    private static final long EMPTY = 0;
+
+    /**
+     * Index address of a deleted slot
+     */
+    private static final long DELETED = -1;
+
+    /**
+     * Initial index capacity (power of two)
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Explicit release of direct buffers (null if not available)
+     */
+    private static final MethodHandle CLEANER = findCleaner();
+
+    /**
+     * The slab size, in bytes
+     */
+    private int slabSize = DEFAULT_SLAB_SIZE;
+
+    /**
+     * Maximum allocated memory, in bytes (0 for unlimited)
+     */
+    private long maxMemory;
+
+    /**
+     * The store lock : lookups share the read lock
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The allocated slabs. The last one is the one records are appended to.
+     */
+    private List<ByteBuffer> slabs = new ArrayList<>();
+
+    /**
+     * Index : key hashes (never 0)
+     */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Index : record addresses, as (slab index << 32 | offset) + 1, or EMPTY or DELETED
+     */
+    private long[] addresses = new long[INITIAL_CAPACITY];
+
+    /**
+     * Number of entries
+     */
+    private int count;
+
+    /**
+     * Number of deleted slots in the index
+     */
+    private int deletedCount;
+
+    /**
+     * Bytes written in slabs
+     */
+    private long usedBytes;
+
+    /**
+     * Bytes of live records
+     */
+    private long liveBytes;
+
+    /**
+     * Allocated slab bytes
+     */
+    private long allocatedBytes;
+
+    /**
+     * @return the slab size, in bytes
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * @param slabSize the size of the allocated direct buffers, in bytes
+     */
+    public void setSlabSize(int slabSize) {
+        LOGGER.debug("Using slab size : " + slabSize);
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * @return the maximum allocated memory, in bytes (0 for unlimited)
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Bound the allocated off heap memory. A {@link ProxyStoreException} is thrown when storing needs a slab over the
+     * limit.
+     *
+     * @param maxMemory the maximum allocated memory, in bytes (0 for unlimited)
+     */
+    public void setMaxMemory(long maxMemory) {
+        LOGGER.debug("Using max memory : " + maxMemory);
+        this.maxMemory = Math.max(0, maxMemory);
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the allocated off heap memory, in bytes
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every entry and release the slabs
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            release(slabs);
+            slabs = new ArrayList<>();
+            hashes = new int[INITIAL_CAPACITY];
+            addresses = new long[INITIAL_CAPACITY];
+            count = 0;
+            deletedCount = 0;
+            usedBytes = 0;
+            liveBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(keyBytes);
+
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(hash, keyBytes);
+            if (slot >= 0) {
+                liveBytes -= getRecordSize(addresses[slot]);
+                addresses[slot] = DELETED;
+                count--;
+                deletedCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ProxyInformation get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(keyBytes);
+
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(hash, keyBytes);
+            if (slot < 0) {
+                return null;
+            }
+            value = readValue(addresses[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            return ProxyInformation.readFrom(new DataInputStream(new ByteArrayInputStream(value)));
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot decode proxy informations for " + key, key, ex);
+        }
+    }
+
+    @Override
+    public void store(String key, ProxyInformation proxyInformation) {
+        storeAll(Collections.singletonMap(key, proxyInformation));
+    }
+
+    /**
+     * Store several entries with a single lock acquisition
+     */
+    @Override
+    public void storeAll(Map<String, ProxyInformation> entries) {
+        // Encode outside of the lock
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        List<byte[]> values = new ArrayList<>(entries.size());
+        for (Map.Entry<String, ProxyInformation> entry : entries.entrySet()) {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            try {
+                entry.getValue().writeTo(new DataOutputStream(value));
+            } catch (IOException ex) {
+                throw new ProxyStoreException("Cannot encode proxy informations for " + entry.getKey(), entry.getValue(), ex);
+            }
+            keys.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            values.add(value.toByteArray());
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int index = 0; index < keys.size(); index++) {
+                put(keys.get(index), values.get(index));
+            }
+
+            if ((usedBytes > 2L * slabSize) && (2 * liveBytes < usedBytes)) {
+                try {
+                    compact();
+                } catch (ProxyStoreException | OutOfMemoryError ex) {
+                    // The store is left unchanged
+                    LOGGER.warn("Cannot compact off heap store : " + ex.getMessage());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insert or replace a record (write lock must be held)
+     */
+    private void put(byte[] keyBytes, byte[] value) {
+        int hash = hash(keyBytes);
+        int slot = findSlot(hash, keyBytes);
+        int recordSize = HEADER_SIZE + keyBytes.length + value.length;
+        if (slot >= 0) {
+            // Replace record (appended first : the slab allocation can fail)
+            long address = append(slabs, keyBytes, value);
+            liveBytes -= getRecordSize(addresses[slot]);
+            addresses[slot] = address;
+        } else {
+            long address = append(slabs, keyBytes, value);
+            if (2 * (count + deletedCount + 1) > hashes.length) {
+                rehash();
+            }
+            slot = findFreeSlot(hash);
+            if (addresses[slot] == DELETED) {
+                deletedCount--;
+            }
+            hashes[slot] = hash;
+            addresses[slot] = address;
+            count++;
+        }
+        usedBytes += recordSize;
+        liveBytes += recordSize;
+    }
+
+    /**
+     * @return the index slot of the key, or -1 if not found
+     */
+    private int findSlot(int hash, byte[] keyBytes) {
+        int mask = hashes.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            long address = addresses[slot];
+            if (address == EMPTY) {
+                return -1;
+            } else if ((address != DELETED) && (hashes[slot] == hash) && matchKey(address, keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @return the first empty or deleted slot for the hash
+     */
+    private int findFreeSlot(int hash) {
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        while ((addresses[slot] != EMPTY) && (addresses[slot] != DELETED)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Rebuild the index without deleted slots, growing it if needed
+     */
+    private void rehash() {
+        int capacity = hashes.length;
+        if (4 * (count + 1) > capacity) {
+            capacity *= 2;
+        }
+        int[] oldHashes = hashes;
+        long[] oldAddresses = addresses;
+        hashes = new int[capacity];
+        addresses = new long[capacity];
+        deletedCount = 0;
+
+        for (int index = 0; index < oldAddresses.length; index++) {
+            if ((oldAddresses[index] != EMPTY) && (oldAddresses[index] != DELETED)) {
+                int slot = findFreeSlot(oldHashes[index]);
+                hashes[slot] = oldHashes[index];
+                addresses[slot] = oldAddresses[index];
+            }
+        }
+    }
+
+    /**
+     * Copy live records in new slabs, and release the former ones. The new slabs and index addresses only replace the
+     * former ones once the copy succeeded.
+     */
+    private void compact() {
+        LOGGER.debug("Compacting off heap store : {} live bytes on {} used bytes", liveBytes, usedBytes);
+        List<ByteBuffer> newSlabs = new ArrayList<>();
+        long[] newAddresses = new long[addresses.length];
+        long newBytes = 0;
+
+        try {
+            for (int slot = 0; slot < addresses.length; slot++) {
+                long address = addresses[slot];
+                if ((address != EMPTY) && (address != DELETED)) {
+                    ByteBuffer record = getRecord(slabs, address);
+                    byte[] keyBytes = new byte[record.getInt()];
+                    byte[] value = new byte[record.getInt()];
+                    record.get(keyBytes);
+                    record.get(value);
+                    newAddresses[slot] = append(newSlabs, keyBytes, value);
+                    newBytes += HEADER_SIZE + keyBytes.length + value.length;
+                } else {
+                    newAddresses[slot] = address;
+                }
+            }
+        } catch (ProxyStoreException | OutOfMemoryError ex) {
+            release(newSlabs);
+            throw ex;
+        }
+
+        release(slabs);
+        slabs = newSlabs;
+        addresses = newAddresses;
+        usedBytes = newBytes;
+        liveBytes = newBytes;
+    }
+
+    /**
+     * Append a record to the last slab of the list, allocating a new slab if needed
+     *
+     * @return the record address
+     */
+    private long append(List<ByteBuffer> target, byte[] keyBytes, byte[] value) {
+        int recordSize = HEADER_SIZE + keyBytes.length + value.length;
+        ByteBuffer slab = target.isEmpty() ? null : target.get(target.size() - 1);
+        if ((slab == null) || (slab.remaining() < recordSize)) {
+            slab = allocate(Math.max(slabSize, recordSize));
+            target.add(slab);
+        }
+
+        long address = (((long) (target.size() - 1)) << 32 | slab.position()) + 1;
+        slab.putInt(keyBytes.length);
+        slab.putInt(value.length);
+        slab.put(keyBytes);
+        slab.put(value);
+        return address;
+    }
+
+    /**
+     * Allocate a slab, within the memory limit
+     */
+    private ByteBuffer allocate(int capacity) {
+        if ((maxMemory > 0) && (allocatedBytes + capacity > maxMemory)) {
+            throw new ProxyStoreException("Off heap store memory limit reached (" + maxMemory + " bytes)", this);
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(capacity);
+        allocatedBytes += capacity;
+        return slab;
+    }
+
+    /**
+     * Release slabs : their memory is freed at once when possible, by the garbage collector otherwise
+     */
+    private void release(List<ByteBuffer> released) {
+        for (ByteBuffer slab : released) {
+            allocatedBytes -= slab.capacity();
+            if (CLEANER != null) {
+                try {
+                    CLEANER.invokeExact(slab);
+                } catch (Throwable ex) {
+                    LOGGER.debug("Cannot release direct buffer", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the direct buffer cleaner of Java 9 and later, or null if not available
+     */
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (Exception ex) {
+            // Java 8 : buffers are released by the garbage collector only
+            LOGGER.debug("Direct buffer cleaner not available : " + ex);
+            return null;
+        }
+    }
+
+    /**
+     * @return a buffer positioned on the record at the argument address
+     */
+    private static ByteBuffer getRecord(List<ByteBuffer> slabs, long address) {
+        address--;
+        ByteBuffer record = slabs.get((int) (address >>> 32)).duplicate();
+        // Buffer cast : compiled code must run on Java 8
+        ((Buffer) record).position((int) address);
+        return record;
+    }
+
+    /**
+     * @return the total size of the record at the argument address
+     */
+    private int getRecordSize(long address) {
+        ByteBuffer record = getRecord(slabs, address);
+        return HEADER_SIZE + record.getInt() + record.getInt();
+    }
+
+    /**
+     * @return true if the record at the argument address has the argument key
+     */
+    private boolean matchKey(long address, byte[] keyBytes) {
+        ByteBuffer record = getRecord(slabs, address);
+        if (record.getInt() != keyBytes.length) {
+            return false;
+        }
+        record.getInt();
+        for (byte keyByte : keyBytes) {
+            if (record.get() != keyByte) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the encoded value of the record at the argument address
+     */
+    private byte[] readValue(long address) {
+        ByteBuffer record = getRecord(slabs, address);
+        int keyLength = record.getInt();
+        byte[] value = new byte[record.getInt()];
+        ((Buffer) record).position(record.position() + keyLength);
+        record.get(value);
+        return value;
+    }
+
+    /**
+     * @return the spread, never null, hash of the key
+     */
+    private static int hash(byte[] keyBytes) {
+        int hash = Arrays.hashCode(keyBytes);
+        hash ^= (hash >>> 16);
+        return (hash == 0) ? 1 : hash;
+    }
+}
@@ -0,0 +1,277 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.gilead.core.ProxyInformation;
+
+/**
+ * Compact table of proxy informations, meant to be stored as a single HTTP session attribute. Entries are keyed by
+ * (entity class index, id, property index) : class and property names are only stored once, and Long, Integer or Short
+ * ids are kept as primitive values. The table is serialized as plain arrays of indexes and ids, with binary encoded
+ * proxy informations (see {@link ProxyInformation#writeTo(java.io.DataOutput)}), for fast session replication and
+ * passivation. All methods are synchronized, since the same session can be used by concurrent requests.
+ */
+public class ProxyInformationTable implements Serializable {
+
+    /**
+     * Serialization ID
+     */
+    private static final long serialVersionUID = 4712052630829351940L;
+
+    /**
+     * The HTTP session attribute name of the table
+     */
+    public static final String ATTRIBUTE_NAME = ProxyInformationTable.class.getName();
+
+    /**
+     * Serialized id kind : primitive id
+     */
+    private static final byte NUMERIC_ID = 0;
+
+    /**
+     * Serialized id kind : other serializable id
+     */
+    private static final byte OBJECT_ID = 1;
+
+    /**
+     * Entity class names, by index
+     */
+    private transient List<String> classNames = new ArrayList<>();
+
+    /**
+     * Entity class indexes, by name
+     */
+    private transient Map<String, Integer> classIndexes = new HashMap<>();
+
+    /**
+     * Property names, by index
+     */
+    private transient List<String> propertyNames = new ArrayList<>();
+
+    /**
+     * Property indexes, by name
+     */
+    private transient Map<String, Integer> propertyIndexes = new HashMap<>();
+
+    /**
+     * The stored proxy informations
+     */
+    private transient Map<Key, ProxyInformation> entries = new HashMap<>();
+
+    /**
+     * Modification flag, since the last call to {@link #clearModified()}
+     */
+    private transient boolean modified;
+
+    /**
+     * Store proxy informations
+     *
+     * @param className the entity class name
+     * @param id the entity id
+     * @param property the property name
+     * @param proxyInformation the proxy informations
+     */
+    public synchronized void put(String className, Serializable id, String property, ProxyInformation proxyInformation) {
+        Key key = createKey(getIndex(className, classNames, classIndexes), id, getIndex(property, propertyNames, propertyIndexes));
+        entries.put(key, proxyInformation);
+        modified = true;
+    }
+
+    /**
+     * @return the stored proxy informations, or null if not found
+     */
+    public synchronized ProxyInformation get(String className, Serializable id, String property) {
+        Key key = findKey(className, id, property);
+        return (key != null) ? entries.get(key) : null;
+    }
+
+    /**
+     * Remove the stored proxy informations
+     */
+    public synchronized void remove(String className, Serializable id, String property) {
+        Key key = findKey(className, id, property);
+        if ((key != null) && (entries.remove(key) != null)) {
+            modified = true;
+        }
+    }
+
+    /**
+     * @return the number of stored proxy informations
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Reset the modification flag
+     *
+     * @return true if the table was modified since the previous call
+     */
+    public synchronized boolean clearModified() {
+        boolean result = modified;
+        modified = false;
+        return result;
+    }
+
+    /**
+     * @return the key of existing class and property names, or null
+     */
+    private Key findKey(String className, Serializable id, String property) {
+        Integer classIndex = classIndexes.get(className);
+        Integer propertyIndex = propertyIndexes.get(property);
+        if ((classIndex == null) || (propertyIndex == null)) {
+            return null;
+        }
+        return createKey(classIndex.intValue(), id, propertyIndex.intValue());
+    }
+
+    /**
+     * @return the index of the name, registered if needed
+     */
+    private static int getIndex(String name, List<String> names, Map<String, Integer> indexes) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            index = Integer.valueOf(names.size());
+            names.add(name);
+            indexes.put(name, index);
+        }
+        return index.intValue();
+    }
+
+    /**
+     * Create an entry key. Long, Integer and Short ids are considered equal for the same value, as with the former
+     * string keys.
+     */
+    private static Key createKey(int classIndex, Serializable id, int propertyIndex) {
+        if ((id instanceof Long) || (id instanceof Integer) || (id instanceof Short)) {
+            return new Key(classIndex, propertyIndex, ((Number) id).longValue(), null);
+        }
+        return new Key(classIndex, propertyIndex, 0, id);
+    }
+
+    /**
+     * Compact serialization : names once, then indexes, ids and binary encoded proxy informations of each entry
+     */
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        writeNames(out, classNames);
+        writeNames(out, propertyNames);
+
+        out.writeInt(entries.size());
+        for (Map.Entry<Key, ProxyInformation> entry : entries.entrySet()) {
+            Key key = entry.getKey();
+            out.writeInt(key.classIndex);
+            out.writeInt(key.propertyIndex);
+            if (key.id == null) {
+                out.writeByte(NUMERIC_ID);
+                out.writeLong(key.numericId);
+            } else {
+                out.writeByte(OBJECT_ID);
+                out.writeObject(key.id);
+            }
+            if (entry.getValue() == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                entry.getValue().writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Compact deserialization
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        classNames = new ArrayList<>();
+        classIndexes = new HashMap<>();
+        readNames(in, classNames, classIndexes);
+        propertyNames = new ArrayList<>();
+        propertyIndexes = new HashMap<>();
+        readNames(in, propertyNames, propertyIndexes);
+
+        int size = in.readInt();
+        entries = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+        for (int index = 0; index < size; index++) {
+            int classIndex = in.readInt();
+            int propertyIndex = in.readInt();
+            Key key;
+            if (in.readByte() == NUMERIC_ID) {
+                key = new Key(classIndex, propertyIndex, in.readLong(), null);
+            } else {
+                key = new Key(classIndex, propertyIndex, 0, (Serializable) in.readObject());
+            }
+            entries.put(key, (in.readBoolean() == true) ? ProxyInformation.readFrom(in) : null);
+        }
+    }
+
+    /**
+     * Write a names list
+     */
+    private static void writeNames(ObjectOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    /**
+     * Read a names list
+     */
+    private static void readNames(ObjectInputStream in, List<String> names, Map<String, Integer> indexes) throws IOException {
+        int size = in.readInt();
+        for (int index = 0; index < size; index++) {
+            getIndex(in.readUTF(), names, indexes);
+        }
+    }
+
+    /**
+     * Entry key
+     */
+    private static final class Key {
+
+        private final int classIndex;
+
+        private final int propertyIndex;
+
+        /**
+         * Primitive id value (only if id is null)
+         */
+        private final long numericId;
+
+        /**
+         * Other id (null for primitive ids)
+         */
+        private final Serializable id;
+
+        Key(int classIndex, int propertyIndex, long numericId, Serializable id) {
+            this.classIndex = classIndex;
+            this.propertyIndex = propertyIndex;
+            this.numericId = numericId;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * classIndex + propertyIndex;
+            return 31 * hash + ((id != null) ? id.hashCode() : Long.hashCode(numericId));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ((obj instanceof Key) == false) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (classIndex == other.classIndex) && (propertyIndex == other.propertyIndex) && (numericId == other.numericId)
+                    && ((id == null) ? (other.id == null) : id.equals(other.id));
+        }
+    }
+}
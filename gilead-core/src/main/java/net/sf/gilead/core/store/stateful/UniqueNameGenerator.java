@@ -3,9 +3,11 @@ package net.sf.gilead.core.store.stateful;
 import java.io.Serializable;
 import java.util.Stack;
 
+import net.sf.gilead.core.PersistenceProbe;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.merge.BeanlibCache;
 import net.sf.gilead.exception.ComponentTypeException;
+import net.sf.gilead.exception.NotPersistentObjectException;
 import net.sf.gilead.exception.TransientObjectException;
 
 /**
@@ -55,24 +57,55 @@ public class UniqueNameGenerator {
      * @return
      */
     public static Serializable getUniqueId(PersistenceUtil persistenceUtil, Object persistentBean) {
-        try {
-            return persistenceUtil.getId(persistentBean);
-        } catch (ComponentTypeException ex) {
-            // Component type : search parent in bean stack
-            Stack<Object> stack = BeanlibCache.getFromBeanStack();
-            for (int index = stack.size() - 1; index >= 0; index--) {
-                Object object = stack.get(index);
-                if (object != persistentBean) {
-                    try {
-                        return persistenceUtil.getId(object);
-                    } catch (TransientObjectException e) {
-                        // Go on next level
-                    }
+        PersistenceProbe probe = probeUniqueId(persistenceUtil, persistentBean);
+        switch (probe.getState()) {
+            case PERSISTENT:
+                return probe.getId();
+            case COMPONENT:
+                // Cannot find parent ID
+                throw new ComponentTypeException(persistentBean);
+            case TRANSIENT:
+                throw new TransientObjectException(persistentBean);
+            default:
+                throw new NotPersistentObjectException(persistentBean);
+        }
+    }
+
+    /**
+     * Gets a unique ID for the argument persistent bean, without throwing any exception.
+     * 
+     * @param persistenceUtil the persistence util
+     * @param persistentBean the persistent bean
+     * @return the unique ID, or null if the bean (or its parent for component types) is not persistent
+     */
+    public static Serializable findUniqueId(PersistenceUtil persistenceUtil, Object persistentBean) {
+        PersistenceProbe probe = probeUniqueId(persistenceUtil, persistentBean);
+        return probe.isPersistent() ? probe.getId() : null;
+    }
+
+    /**
+     * Probe the argument persistent bean, or its parent persistent bean for component types.
+     */
+    private static PersistenceProbe probeUniqueId(PersistenceUtil persistenceUtil, Object persistentBean) {
+        PersistenceProbe probe = persistenceUtil.probe(persistentBean);
+        if (probe.getState() != PersistenceProbe.State.COMPONENT) {
+            return probe;
+        }
+
+        // Component type : search parent in bean stack
+        Stack<Object> stack = BeanlibCache.getFromBeanStack();
+        for (int index = stack.size() - 1; index >= 0; index--) {
+            Object object = stack.get(index);
+            if (object != persistentBean) {
+                PersistenceProbe parentProbe = persistenceUtil.probe(object);
+                if (parentProbe.isTransient() == false) {
+                    return parentProbe;
                 }
+                // Go on next level
             }
-
-            // Cannot find parent ID : resend ComponentTypeException
-            throw ex;
         }
+
+        // Cannot find parent ID
+        return probe;
     }
 }
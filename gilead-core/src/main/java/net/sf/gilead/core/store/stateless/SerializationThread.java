@@ -1,8 +1,5 @@
 package net.sf.gilead.core.store.stateless;
 
-import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -10,6 +7,7 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.core.serialization.IProxySerialization;
 import net.sf.gilead.pojo.base.ILightEntity;
 
@@ -17,7 +15,10 @@ import net.sf.gilead.pojo.base.ILightEntity;
  * Thread for handling proxy information serialization. (Performance purpose)
  *
  * @author
+ * @deprecated no longer used by {@link StatelessProxyStore}, which serializes with a shared executor (see
+ *             {@link StatelessProxyStore#setSerializationExecutor(java.util.concurrent.Executor)}). Will be removed.
  */
+@Deprecated
 public class SerializationThread implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SerializationThread.class);
@@ -35,7 +36,7 @@ public class SerializationThread implements Runnable {
     /**
      * Running flag
      */
-    private boolean running;
+    private volatile boolean running;
 
     /**
      * Constructor
@@ -63,13 +64,13 @@ public class SerializationThread implements Runnable {
      * @param running the running state
      */
     public void setRunning(boolean running) {
-        this.running = false;
+        this.running = running;
     }
 
     /**
      * Add serialization item
      */
-    public void serialize(ILightEntity entity, String propertyName, Map<String, Serializable> proxyInfo) {
+    public void serialize(ILightEntity entity, String propertyName, ProxyInformation proxyInfo) {
         SerializationItem item = new SerializationItem();
 
         item.entity = entity;
@@ -104,7 +105,7 @@ public class SerializationThread implements Runnable {
                         Object serialized = item.proxyInfo;
                         if (proxySerializer != null) {
                             // Serialization needed
-                            proxySerializer.serialize((HashMap<String, Serializable>) item.proxyInfo);
+                            serialized = proxySerializer.serialize(item.proxyInfo);
                         }
                         item.entity.addProxyInformation(item.propertyName, serialized);
                     }
@@ -129,5 +130,5 @@ class SerializationItem {
 
     public String propertyName;
 
-    public Map<String, Serializable> proxyInfo;
+    public ProxyInformation proxyInfo;
 }
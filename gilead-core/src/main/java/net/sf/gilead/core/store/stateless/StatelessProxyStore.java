@@ -1,11 +1,20 @@
 package net.sf.gilead.core.store.stateless;
 
-import java.io.Serializable;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.core.serialization.IProxySerialization;
 import net.sf.gilead.core.store.ProxyStore;
 import net.sf.gilead.exception.ProxyStoreException;
@@ -27,14 +36,19 @@ public class StatelessProxyStore implements ProxyStore {
     private IProxySerialization _proxySerializer;
 
     /**
-     * Use separate serialization thread
+     * Use separate serialization threads
      */
     private boolean _useSerializationThread;
 
     /**
-     * Separate serialization thread
+     * Executor for asynchronous serialization (shared default executor if null)
      */
-    private ThreadLocal<SerializationThread> _serializationThread;
+    private Executor _serializationExecutor;
+
+    /**
+     * Pending asynchronous serializations of the current thread
+     */
+    private ThreadLocal<List<PendingSerialization>> _pendingSerializations;
 
     /**
      * @return the proxy serializer
@@ -58,23 +72,44 @@ public class StatelessProxyStore implements ProxyStore {
     }
 
     /**
+     * Serialize proxy informations asynchronously, with the serialization executor. The serialized proxy informations
+     * are added to the clones at clean up, which waits for the serializations of the current thread only.
+     *
      * @param serializationThread the _useSerializationThread to set
      */
     public void setUseSerializationThread(boolean serializationThread) {
+        LOGGER.debug("Using serialization thread : " + serializationThread);
         _useSerializationThread = serializationThread;
     }
 
+    /**
+     * @return the serialization executor (null for the shared default one)
+     */
+    public Executor getSerializationExecutor() {
+        return _serializationExecutor;
+    }
+
+    /**
+     * Set the executor of asynchronous serializations. The default one is shared by all stores, with one daemon thread
+     * per processor and a bounded queue : the cloning thread serializes by itself when the queue is full.
+     *
+     * @param serializationExecutor the executor, or null for the shared default one
+     */
+    public void setSerializationExecutor(Executor serializationExecutor) {
+        _serializationExecutor = serializationExecutor;
+    }
+
     /**
      * Constructor
      */
     public StatelessProxyStore() {
         // default value
-        _serializationThread = new ThreadLocal<>();
+        _pendingSerializations = new ThreadLocal<>();
         _useSerializationThread = false;
     }
 
     @Override
-    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations) {
+    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, ProxyInformation proxyInformations) {
 
         // ILightEntity checking
         if (!(cloneBean instanceof ILightEntity)) {
@@ -83,20 +118,22 @@ public class StatelessProxyStore implements ProxyStore {
 
         // Extract initialization info
         if (proxyInformations != null) {
-            Boolean initialized = (Boolean) proxyInformations.get(ILightEntity.INITIALISED);
+            Boolean initialized = proxyInformations.getInitialized();
             if (initialized != null) {
                 ((ILightEntity) cloneBean).setInitialized(property, initialized.booleanValue());
 
-                // remove from map
-                proxyInformations.remove(ILightEntity.INITIALISED);
+                // remove from proxy informations
+                proxyInformations = proxyInformations.withoutInitialized();
             }
         }
 
         // Store information in the POJO
-        if (!_useSerializationThread) {
+        if ((_useSerializationThread == false) || (_proxySerializer == null) || (proxyInformations == null)) {
             ((ILightEntity) cloneBean).addProxyInformation(property, convertMap(proxyInformations));
         } else {
-            getSerializationThread().serialize((ILightEntity) cloneBean, property, proxyInformations);
+            final ProxyInformation serialized = proxyInformations;
+            CompletableFuture<Object> future = CompletableFuture.supplyAsync(() -> convertMap(serialized), getExecutor());
+            getPendingSerializations().add(new PendingSerialization((ILightEntity) cloneBean, property, future));
         }
     }
 
@@ -104,100 +141,192 @@ public class StatelessProxyStore implements ProxyStore {
     public void removeProxyInformations(Object pojo, String property) {
         // ILightEntity checking
         if (pojo instanceof ILightEntity) {
+            // Forget pending serialization
+            List<PendingSerialization> pending = _pendingSerializations.get();
+            if (pending != null) {
+                Iterator<PendingSerialization> iterator = pending.iterator();
+                while (iterator.hasNext()) {
+                    PendingSerialization serialization = iterator.next();
+                    if ((serialization.entity == pojo) && serialization.property.equals(property)) {
+                        iterator.remove();
+                    }
+                }
+            }
+
             // Remove information from the POJO
             ((ILightEntity) pojo).removeProxyInformation(property);
         }
     }
 
     @Override
-    public Map<String, Serializable> getProxyInformations(Object pojo, String property) {
+    public ProxyInformation getProxyInformations(Object pojo, String property) {
         // ILightEntity checking
         if (!(pojo instanceof ILightEntity)) {
             return null;
         }
 
-        Map<String, Serializable> proxyInformations = convertToSerializable(((ILightEntity) pojo).getProxyInformation(property));
+        ProxyInformation proxyInformations = convertToSerializable(((ILightEntity) pojo).getProxyInformation(property));
 
         // Add initialization information
         boolean initialized = ((ILightEntity) pojo).isInitialized(property);
         if (!initialized) {
-            proxyInformations.put(ILightEntity.INITIALISED, Boolean.valueOf(false));
+            proxyInformations = proxyInformations.withInitialized(false);
         }
 
         return proxyInformations;
     }
 
     /**
-     * Clean up the proxy store after a complete serialization process
+     * Clean up the proxy store after a complete serialization process : wait for the pending serializations of the
+     * current thread, and add their result to the clones.
+     *
+     * @throws ProxyStoreException if a serialization failed (the other results are still added)
      */
     @Override
     public void cleanUp() {
-        if ((_useSerializationThread == true) && (_serializationThread.get() != null)) {
-            LOGGER.debug("Cleaning up serialization thread");
-            SerializationThread thread = getSerializationThread();
-
-            // Wait for end of serialization
-            while (!thread.isSerializationFinished()) {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    // does not matter
+        List<PendingSerialization> pending = _pendingSerializations.get();
+        if (pending == null) {
+            return;
+        }
+        _pendingSerializations.remove();
+        LOGGER.debug("Waiting for {} pending serializations", pending.size());
+
+        // Results are added by the current thread : clones are not thread safe
+        ProxyStoreException failure = null;
+        for (PendingSerialization serialization : pending) {
+            try {
+                serialization.entity.addProxyInformation(serialization.property, serialization.future.join());
+            } catch (CompletionException ex) {
+                LOGGER.error("Cannot serialize proxy informations of " + serialization.property, ex.getCause());
+                if (failure == null) {
+                    failure = new ProxyStoreException("Cannot serialize proxy informations of " + serialization.property,
+                            serialization.entity, ex.getCause());
                 }
             }
-            thread.setRunning(false);
-            _serializationThread.set(null);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Remove the pending serializations of the current thread, so that another thread can wait for them (see
+     * {@link #addPendingSerializations(List)}). Used by parallel clone worker threads.
+     *
+     * @return the pending serializations (empty list if none)
+     */
+    public List<PendingSerialization> takePendingSerializations() {
+        List<PendingSerialization> pending = _pendingSerializations.get();
+        if (pending == null) {
+            return new ArrayList<>();
+        }
+        _pendingSerializations.remove();
+        return pending;
+    }
+
+    /**
+     * Add pending serializations, taken from another thread, to the ones of the current thread : they will be waited
+     * for at clean up.
+     */
+    public void addPendingSerializations(List<PendingSerialization> pending) {
+        if (pending.isEmpty() == false) {
+            getPendingSerializations().addAll(pending);
         }
     }
 
     /**
-     * Convert Map<String,Serializable> to Map<String, Object>
+     * Convert proxy informations to their form stored in the POJO
      */
-    protected Object convertMap(Map<String, Serializable> map) {
+    protected Object convertMap(ProxyInformation proxyInformations) {
         // Precondition checking
-        if (map == null) {
+        if (proxyInformations == null) {
             return null;
         }
 
-        // Convert map
+        // Convert proxy informations
         if (_proxySerializer == null) {
             // No serialization needed
-            return map;
+            return proxyInformations;
         } else {
-            return _proxySerializer.serialize((Serializable) map);
+            return _proxySerializer.serialize(proxyInformations);
         }
     }
 
     /**
-     * Convert Map<String,bytes> to Map<String, Serializable>
+     * Convert the form stored in the POJO back to proxy informations (legacy proxy informations maps are converted)
      */
-    @SuppressWarnings("unchecked")
-    protected Map<String, Serializable> convertToSerializable(Object serialized) {
+    protected ProxyInformation convertToSerializable(Object serialized) {
         // Precondition checking
         if (serialized == null) {
             return null;
         }
 
-        // Convert map
+        // Convert proxy informations
         if (_proxySerializer == null) {
             // No serialization
-            return (Map<String, Serializable>) serialized;
+            return ProxyInformation.valueOf(serialized);
         } else {
-            return (Map<String, Serializable>) _proxySerializer.unserialize(serialized);
+            return ProxyInformation.valueOf(_proxySerializer.unserialize(serialized));
         }
     }
 
     /**
-     * @return the serialization thread.
+     * @return the pending serializations of the current thread
      */
-    protected SerializationThread getSerializationThread() {
-        SerializationThread thread = _serializationThread.get();
-        if (thread == null) {
-            thread = new SerializationThread();
-            thread.setProxySerializer(_proxySerializer);
-            new Thread(thread).start();
-            _serializationThread.set(thread);
+    protected List<PendingSerialization> getPendingSerializations() {
+        List<PendingSerialization> pending = _pendingSerializations.get();
+        if (pending == null) {
+            pending = new ArrayList<>();
+            _pendingSerializations.set(pending);
         }
+        return pending;
+    }
+
+    /**
+     * @return the serialization executor
+     */
+    protected Executor getExecutor() {
+        return (_serializationExecutor != null) ? _serializationExecutor : DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Pending asynchronous serialization
+     */
+    public static final class PendingSerialization {
 
-        return thread;
+        private final ILightEntity entity;
+
+        private final String property;
+
+        private final CompletableFuture<Object> future;
+
+        PendingSerialization(ILightEntity entity, String property, CompletableFuture<Object> future) {
+            this.entity = entity;
+            this.property = property;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Lazy holder of the shared default executor
+     */
+    private static final class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor() {
+            int threadCount = Runtime.getRuntime().availableProcessors();
+            AtomicInteger threadIndex = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(1024), runnable -> {
+                        Thread thread = new Thread(runnable, "gilead-proxy-serialization-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        // Do not retain the class loader of the first cloning thread (web application redeployment)
+                        thread.setContextClassLoader(null);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
     }
 }
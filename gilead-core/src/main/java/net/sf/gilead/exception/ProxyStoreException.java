@@ -38,4 +38,12 @@ public class ProxyStoreException extends RuntimeException {
         super(message);
         this.object = object;
     }
+
+    /**
+     * Constructor with cause
+     */
+    public ProxyStoreException(String message, Object object, Throwable cause) {
+        super(message, cause);
+        this.object = object;
+    }
 }
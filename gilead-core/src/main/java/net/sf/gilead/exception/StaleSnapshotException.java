@@ -0,0 +1,17 @@
+package net.sf.gilead.exception;
+
+/**
+ * Exception thrown when the original content of a persistent collection changed in the database since it was cloned
+ * (see digest collection snapshots).
+ */
+public class StaleSnapshotException extends RuntimeException {
+
+    private static final long serialVersionUID = 2811406593175529067L;
+
+    /**
+     * Message constructor
+     */
+    public StaleSnapshotException(String msg) {
+        super(msg);
+    }
+}
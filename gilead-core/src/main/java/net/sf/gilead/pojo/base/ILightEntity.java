@@ -15,7 +15,7 @@ public interface ILightEntity extends IGwtSerializableParameter {
      * Add proxy information for the argument property.
      * 
      * @param property the property name
-     * @param proxyInformation map of proxy informations (string serialized form)
+     * @param proxyInformation proxy informations (or their serialized form)
      */
     void addProxyInformation(String property, Object proxyInfo);
 
@@ -28,7 +28,7 @@ public interface ILightEntity extends IGwtSerializableParameter {
      * Get proxy information for the argument property
      * 
      * @param property the property name
-     * @return the proxy informations for the property _ string serialized form(can be null)
+     * @return the proxy informations for the property, or their serialized form (can be null)
      */
     public Object getProxyInformation(String property);
 
@@ -52,4 +52,4 @@ public interface ILightEntity extends IGwtSerializableParameter {
      * @return a human readable description of proxy information
      */
     String getDebugString();
-}
\ No newline at end of file
+}
\ No newline at end of file
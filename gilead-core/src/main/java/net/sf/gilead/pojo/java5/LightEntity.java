@@ -16,10 +16,10 @@ public abstract class LightEntity implements ILightEntity {
     private static final long serialVersionUID = 1061336746068017740L;
 
     /**
-     * Map of persistence proxy informations. The key is the property name, the value is a map with persistence
-     * informations filled by the persistence util implementation
+     * Map of persistence proxy informations. The key is the property name, the value is the proxy informations filled
+     * by the persistence util implementation (see {@link net.sf.gilead.core.ProxyInformation})
      */
-    protected Map<String, Map<String, Serializable>> _proxyInformations;
+    protected Map<String, Serializable> _proxyInformations;
 
     /**
      * Map of persistence initialisation state. The key is the property name, the value is the initialization state of
@@ -38,12 +38,11 @@ public abstract class LightEntity implements ILightEntity {
      * Add proxy information
      */
     @Override
-    @SuppressWarnings("unchecked")
     public void addProxyInformation(String property, Object proxyInfo) {
         if (_proxyInformations == null) {
             _proxyInformations = new HashMap<>();
         }
-        _proxyInformations.put(property, (Map<String, Serializable>) proxyInfo);
+        _proxyInformations.put(property, (Serializable) proxyInfo);
     }
 
     @Override
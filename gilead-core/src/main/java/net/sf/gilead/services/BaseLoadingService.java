@@ -3,7 +3,11 @@ package net.sf.gilead.services;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -64,6 +68,97 @@ public class BaseLoadingService<T extends ILightEntity> {
         return (Set<K>) loadAssociation(parent, propertyName);
     }
 
+    /**
+     * Load a page of a list association, without loading the whole collection. The elements are cloned with their proxy
+     * informations, as for {@link #loadListAssociation(ILightEntity, String)}.
+     *
+     * @param parent the entity
+     * @param propertyName the name of the collection property
+     * @param offset index of the first element to load
+     * @param limit maximum number of elements to load
+     * @return the cloned elements of the page
+     */
+    @SuppressWarnings("unchecked")
+    public <K extends ILightEntity> List<K> loadListAssociationPage(T parent, String propertyName, int offset, int limit) {
+        // Precondition checking
+        if ((offset < 0) || (limit < 0)) {
+            throw new IllegalArgumentException("Invalid page : offset " + offset + ", limit " + limit);
+        }
+        PersistenceUtil persistenceUtil = getPersistenceUtil(parent, propertyName);
+
+        LOGGER.debug("Loading page [{}, {}] of property [{}] for entity [{}].", offset, limit, propertyName, parent);
+
+        // Load page and clone it
+        Serializable id = persistenceUtil.getId(parent);
+        List<Object> page = persistenceUtil.loadAssociationPage(parent.getClass(), id, propertyName, offset, limit);
+        return (List<K>) beanManager.clone(page);
+    }
+
+    /**
+     * Count the elements of a collection association, without loading it
+     *
+     * @param parent the entity
+     * @param propertyName the name of the collection property
+     * @return the association size
+     */
+    public int getAssociationSize(T parent, String propertyName) {
+        PersistenceUtil persistenceUtil = getPersistenceUtil(parent, propertyName);
+        return persistenceUtil.getAssociationSize(parent.getClass(), persistenceUtil.getId(parent), propertyName);
+    }
+
+    /**
+     * Load an association for several parent entities. The association is fetched with one query per parent class, and
+     * the loaded associations are cloned together.
+     *
+     * @param parents the parent entities
+     * @param propertyName the name of the property to load
+     * @return the loaded associations, in the same order than the parents (null if a parent cannot be loaded)
+     */
+    @SuppressWarnings("unchecked")
+    public <K> List<K> loadAssociations(List<T> parents, String propertyName) {
+        // Precondition checking
+        if (parents == null) {
+            throw new NullPointerException("Null entity list!");
+        }
+
+        LOGGER.debug("Loading property [{}] for {} entities.", propertyName, parents.size());
+
+        // Group parent ids by class
+        List<Serializable> parentIds = new ArrayList<>(parents.size());
+        Map<Class<?>, List<Serializable>> idsByClass = new LinkedHashMap<>();
+        PersistenceUtil persistenceUtil = null;
+        for (T parent : parents) {
+            persistenceUtil = getPersistenceUtil(parent, propertyName);
+            Serializable id = persistenceUtil.getId(parent);
+            parentIds.add(id);
+            idsByClass.computeIfAbsent(persistenceUtil.getUnenhancedClass(parent.getClass()), clazz -> new ArrayList<>()).add(id);
+        }
+
+        // Load entities and association
+        Map<Class<?>, Map<Serializable, Object>> associationsByClass = new HashMap<>();
+        for (Map.Entry<Class<?>, List<Serializable>> entry : idsByClass.entrySet()) {
+            Map<Serializable, Object> associations = new HashMap<>();
+            for (Object entity : persistenceUtil.loadAssociations(entry.getKey(), entry.getValue(), propertyName)) {
+                associations.put(persistenceUtil.getId(entity), readAssociation(entity, propertyName));
+            }
+            associationsByClass.put(entry.getKey(), associations);
+        }
+
+        // Keep parent order
+        List<Object> associations = new ArrayList<>(parents.size());
+        for (int index = 0; index < parents.size(); index++) {
+            Class<?> parentClass = persistenceUtil.getUnenhancedClass(parents.get(index).getClass());
+            Serializable id = parentIds.get(index);
+            if (associationsByClass.get(parentClass).containsKey(id) == false) {
+                LOGGER.warn("Cannot load entity [{}] with ID [{}] with property [{}].", parentClass, id, propertyName);
+            }
+            associations.add(associationsByClass.get(parentClass).get(id));
+        }
+
+        // Clone all associations at once
+        return (List<K>) beanManager.clone(associations);
+    }
+
     /**
      * Loads an entity
      */
@@ -104,6 +199,29 @@ public class BaseLoadingService<T extends ILightEntity> {
      * Loads an association
      */
     protected Object loadAssociation(T parent, String propertyName) {
+        PersistenceUtil persistenceUtil = getPersistenceUtil(parent, propertyName);
+
+        LOGGER.debug("Loading property [{}] for entity [{}].", propertyName, parent);
+
+        // Get Id
+        Serializable id = persistenceUtil.getId(parent);
+
+        // Load entity and assocation
+        Object entity = persistenceUtil.loadAssociation(parent.getClass(), id, propertyName);
+        if (entity == null) {
+            LOGGER.warn("Cannot load entity [{}] with ID [{}] with property [{}].", parent.getClass(), id, propertyName);
+            return null;
+        }
+
+        return beanManager.clone(readAssociation(entity, propertyName));
+    }
+
+    /**
+     * Check association loading arguments
+     *
+     * @return the persistence util of the bean manager
+     */
+    private PersistenceUtil getPersistenceUtil(T parent, String propertyName) {
         // Precondition checking
         if (parent == null) {
             throw new NullPointerException("Null entity!");
@@ -121,28 +239,19 @@ public class BaseLoadingService<T extends ILightEntity> {
         if (persistenceUtil == null) {
             throw new NullPointerException("Persistence util not set on beanManager field !");
         }
+        return persistenceUtil;
+    }
 
-        LOGGER.debug("Loading property [{}] for entity [{}].", propertyName, parent);
-
-        // Get Id
-        Serializable id = persistenceUtil.getId(parent);
-
-        // Load entity and assocation
-        Object entity = persistenceUtil.loadAssociation(parent.getClass(), id, propertyName);
-        if (entity == null) {
-            LOGGER.warn("Cannot load entity [{}] with ID [{}] with property [{}].", parent.getClass(), id, propertyName);
-            return null;
-        }
-
+    /**
+     * Read the association value on the loaded entity
+     */
+    private Object readAssociation(Object entity, String propertyName) {
         // Get getter for the property
-        Object association = null;
         try {
             Method reader = IntrospectionHelper.getReaderMethodForProperty(entity.getClass(), propertyName);
-            association = reader.invoke(entity, (Object[]) null);
+            return reader.invoke(entity, (Object[]) null);
         } catch (Exception ex) {
             throw new RuntimeException("Error during lazy loading invocation !", ex);
         }
-
-        return beanManager.clone(association);
     }
 }
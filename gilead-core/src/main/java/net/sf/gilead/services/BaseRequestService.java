@@ -4,6 +4,7 @@ package net.sf.gilead.services;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,4 +93,36 @@ public class BaseRequestService {
         List<Serializable> result = (List<Serializable>) (Object) persistenceUtil.executeQuery(query, parameters);
         return result;
     }
+
+    /**
+     * Executes a query and streams its cloned results. Entities are fetched, cloned and evicted from the session chunk
+     * by chunk, so large result sets are handled in bounded memory. The returned stream must be closed (in a
+     * try-with-resources block for instance) to release the underlying cursor and session.
+     *
+     * @param query the EJBQL query
+     * @param parameters parameters map (can be null)
+     * @param chunkSize the number of entities fetched and cloned in each chunk
+     * @return the stream of cloned results
+     */
+    public Stream<Serializable> streamRequest(String query, Map<String, Object> parameters, int chunkSize) {
+        // Precondition checking
+        if (query == null) {
+            throw new RuntimeException("Missing query !");
+        }
+
+        LOGGER.debug("Streaming request [{}].", query);
+
+        if (beanManager == null) {
+            throw new NullPointerException("Bean manager not set !");
+        }
+
+        // Get Persistence util
+        PersistenceUtil persistenceUtil = beanManager.getPersistenceUtil();
+        if (persistenceUtil == null) {
+            throw new NullPointerException("Persistence util not set on beanManager field !");
+        }
+
+        // Stream query and clone results
+        return beanManager.cloneStream(persistenceUtil.streamQuery(query, parameters, chunkSize), chunkSize);
+    }
 }
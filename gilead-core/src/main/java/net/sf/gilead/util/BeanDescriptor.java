@@ -0,0 +1,309 @@
+package net.sf.gilead.util;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Introspection metadata of a class : readers, setters and property types. Descriptors are computed once per class and
+ * held in a {@link ClassValue}, so lookups are lock-free and do not prevent class unloading.
+ */
+public final class BeanDescriptor {
+
+    /**
+     * Getter prefix
+     */
+    private static final String GETTER_PREFIX = "get";
+
+    /**
+     * Boolean getter prefix
+     */
+    private static final String BOOLEAN_GETTER_PREFIX = "is";
+
+    /**
+     * Setter prefix
+     */
+    private static final String SETTER_PREFIX = "set";
+
+    /**
+     * Not found marker for the declared method cache
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * The descriptor registry
+     */
+    private static final ClassValue<BeanDescriptor> DESCRIPTORS = new ClassValue<BeanDescriptor>() {
+        @Override
+        protected BeanDescriptor computeValue(Class<?> type) {
+            return new BeanDescriptor(type);
+        }
+    };
+
+    /**
+     * The described class
+     */
+    private final Class<?> beanClass;
+
+    /**
+     * Property readers ("get" and "is" methods, any visibility), by property name
+     */
+    private final Map<String, PropertyAccessor> readers;
+
+    /**
+     * Property setters (any visibility), by property name
+     */
+    private final Map<String, PropertyAccessor> setters;
+
+    /**
+     * Every single argument "set" method of the class hierarchy
+     */
+    private final Method[] setterMethods;
+
+    /**
+     * Public readers (java beans properties), used for object graph inspection
+     */
+    private final PropertyAccessor[] publicReaders;
+
+    /**
+     * Declared method lookup cache
+     */
+    private final Map<MethodKey, Object> declaredMethods;
+
+    /**
+     * @return the descriptor of the argument class
+     */
+    public static BeanDescriptor forClass(Class<?> clazz) {
+        return DESCRIPTORS.get(clazz);
+    }
+
+    /**
+     * Constructor
+     */
+    private BeanDescriptor(Class<?> beanClass) {
+        this.beanClass = beanClass;
+        this.declaredMethods = new ConcurrentHashMap<>();
+
+        Map<String, PropertyAccessor> readerMap = new HashMap<>();
+        Map<String, PropertyAccessor> setterMap = new LinkedHashMap<>();
+        List<Method> setterList = new ArrayList<>();
+        Map<String, PropertyAccessor> publicReaderMap = new LinkedHashMap<>();
+
+        // Subclass first : overriding methods win
+        for (Class<?> clazz = beanClass; (clazz != null) && (clazz != Object.class); clazz = clazz.getSuperclass()) {
+            for (Method method : getDeclaredMethods(clazz)) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = method.getName();
+                int parameterCount = method.getParameterTypes().length;
+
+                if ((parameterCount == 1) && name.startsWith(SETTER_PREFIX)) {
+                    setterList.add(method);
+                    if ((name.length() > SETTER_PREFIX.length()) && (method.isBridge() == false)) {
+                        String propertyName = decapitalize(name.substring(SETTER_PREFIX.length()));
+                        if (setterMap.containsKey(propertyName) == false) {
+                            setterMap.put(propertyName, new PropertyAccessor(propertyName, method, false));
+                        }
+                    }
+                } else if ((parameterCount == 0) && (method.getReturnType() != void.class) && (method.isBridge() == false)) {
+                    String suffix = getReaderSuffix(name);
+                    if (suffix != null) {
+                        PropertyAccessor reader = addReader(readerMap, suffix, method);
+                        if (Modifier.isPublic(method.getModifiers())
+                                && (name.startsWith(GETTER_PREFIX) || (method.getReturnType() == boolean.class))) {
+                            String propertyName = decapitalize(suffix);
+                            if (publicReaderMap.containsKey(propertyName) == false) {
+                                publicReaderMap.put(propertyName, (reader != null) ? reader : new PropertyAccessor(propertyName, method, true));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        this.readers = Collections.unmodifiableMap(readerMap);
+        this.setters = Collections.unmodifiableMap(setterMap);
+        this.setterMethods = setterList.toArray(new Method[setterList.size()]);
+        Collection<PropertyAccessor> publicReaderList = publicReaderMap.values();
+        this.publicReaders = publicReaderList.toArray(new PropertyAccessor[publicReaderList.size()]);
+    }
+
+    /**
+     * @return the described class
+     */
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * Get the reader of the argument property ("get" reader first, then "is" one)
+     *
+     * @param propertyName the property name
+     * @return the reader, or null if not found
+     */
+    public PropertyAccessor getReader(String propertyName) {
+        return readers.get(propertyName);
+    }
+
+    /**
+     * Get the setter of the argument property
+     *
+     * @param propertyName the property name
+     * @return the setter, or null if not found
+     */
+    public PropertyAccessor getSetter(String propertyName) {
+        return setters.get(propertyName);
+    }
+
+    /**
+     * @return the setters of the class, by property name (subclass first)
+     */
+    public Map<String, PropertyAccessor> getSetters() {
+        return setters;
+    }
+
+    /**
+     * @return every single argument "set" method of the class hierarchy (shared array, do not modify)
+     */
+    public Method[] getSetterMethods() {
+        return setterMethods;
+    }
+
+    /**
+     * @return the public readers of the class (shared array, do not modify)
+     */
+    public PropertyAccessor[] getPublicReaders() {
+        return publicReaders;
+    }
+
+    /**
+     * Recursively find declared method with the argument name and parameter types
+     *
+     * @return the method
+     * @throws NoSuchMethodException if the method does not exist
+     */
+    public Method getDeclaredMethod(String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+        MethodKey key = new MethodKey(methodName, parameterTypes);
+        Object method = declaredMethods.get(key);
+        if (method == null) {
+            method = searchDeclaredMethod(methodName, parameterTypes);
+            declaredMethods.putIfAbsent(key, method);
+        }
+
+        if (method == NOT_FOUND) {
+            throw new NoSuchMethodException(methodName);
+        }
+        return (Method) method;
+    }
+
+    /**
+     * Recursively search declared method
+     *
+     * @return the method if found, NOT_FOUND otherwise
+     */
+    private Object searchDeclaredMethod(String methodName, Class<?>... parameterTypes) {
+        for (Class<?> clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                return clazz.getDeclaredMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException ex) {
+                // Search in superclass
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Register a reader under the names it can be looked up with
+     *
+     * @return the registered reader, or null if the method is hidden by another reader
+     */
+    private static PropertyAccessor addReader(Map<String, PropertyAccessor> readerMap, String suffix, Method method) {
+        // Readers are searched with the property name as is, or with its first letter capitalized
+        char first = suffix.charAt(0);
+        if (Character.isLowerCase(first)) {
+            return null;
+        }
+
+        PropertyAccessor existing = readerMap.get(suffix);
+        if ((existing != null) && (existing.getMethod().getName().startsWith(GETTER_PREFIX) || (method.getName().startsWith(GETTER_PREFIX) == false))) {
+            // Already found in subclass, or "get" reader has priority over "is" one
+            return null;
+        }
+
+        PropertyAccessor accessor = new PropertyAccessor(decapitalize(suffix), method, true);
+        readerMap.put(suffix, accessor);
+        if (Character.isUpperCase(first)) {
+            readerMap.put(decapitalize(suffix), accessor);
+        }
+        return accessor;
+    }
+
+    /**
+     * @return the reader property suffix, or null if the method is not a reader
+     */
+    private static String getReaderSuffix(String methodName) {
+        if (methodName.startsWith(GETTER_PREFIX) && (methodName.length() > GETTER_PREFIX.length())) {
+            return methodName.substring(GETTER_PREFIX.length());
+        } else if (methodName.startsWith(BOOLEAN_GETTER_PREFIX) && (methodName.length() > BOOLEAN_GETTER_PREFIX.length())) {
+            return methodName.substring(BOOLEAN_GETTER_PREFIX.length());
+        }
+        return null;
+    }
+
+    /**
+     * @return the declared methods of the class, or an empty array if they cannot be introspected
+     */
+    private static Method[] getDeclaredMethods(Class<?> clazz) {
+        try {
+            return clazz.getDeclaredMethods();
+        } catch (LinkageError ex) {
+            // Missing optional dependency
+            return new Method[0];
+        }
+    }
+
+    /**
+     * @return the argument name with its first letter in lower case
+     */
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Declared method cache key
+     */
+    private static final class MethodKey {
+
+        private final String name;
+
+        private final Class<?>[] parameterTypes;
+
+        MethodKey(String name, Class<?>[] parameterTypes) {
+            this.name = name;
+            this.parameterTypes = ((parameterTypes == null) || (parameterTypes.length == 0)) ? null : parameterTypes.clone();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ((obj instanceof MethodKey) == false) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return name.equals(other.name) && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
+    }
+}
@@ -5,9 +5,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Singleton for instrospection search
@@ -16,9 +14,6 @@ import java.util.Map;
  */
 public class IntrospectionHelper {
 
-    private static Map<Class<?>, Map<String, Method>> _declaredMethodMap = Collections
-            .synchronizedMap(new HashMap<Class<?>, Map<String, Method>>());
-
     /**
      * Recursively get declared fields
      */
@@ -58,32 +53,11 @@ public class IntrospectionHelper {
     }
 
     /**
-     * Recursively find declared method with the argument name Important notice : does not check parameters types since
-     * it is used for searching getter and setter !
+     * Recursively find declared method with the argument name and parameter types. The lookup is cached in the class
+     * {@link BeanDescriptor}.
      */
     public static Method getRecursiveDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
-        // Map checking
-        Map<String, Method> methodMap;
-        Map<String, Method> temp = _declaredMethodMap.get(clazz);
-
-        if (temp == null) {
-            methodMap = Collections.synchronizedMap(new HashMap<String, Method>());
-            _declaredMethodMap.put(clazz, methodMap);
-        } else {
-            methodMap = Collections.synchronizedMap(temp);
-        }
-
-        Method method = methodMap.get(methodName);
-        if (method != null) {
-            // Already computed
-            return method;
-        }
-
-        // Need to search
-        method = searchRecursiveDeclaredMethod(clazz, methodName, parameterTypes);
-        methodMap.put(methodName, method);
-
-        return method;
+        return BeanDescriptor.forClass(clazz).getDeclaredMethod(methodName, parameterTypes);
     }
 
     /**
@@ -95,18 +69,11 @@ public class IntrospectionHelper {
      * @throws NoSuchMethodException
      */
     public static Method getReaderMethodForProperty(Class<?> clazz, String propertyName) throws NoSuchMethodException {
-        // Compute method name
-        String s = propertyName;
-
-        if (Character.isLowerCase(propertyName.charAt(0))) {
-            s = propertyName.substring(0, 1).toUpperCase();
-
-            if (propertyName.length() > 1) {
-                s += propertyName.substring(1);
-            }
+        PropertyAccessor reader = BeanDescriptor.forClass(clazz).getReader(propertyName);
+        if (reader == null) {
+            throw new NoSuchMethodException(propertyName);
         }
-
-        return getRecursiveDeclaredMethod(clazz, "get" + s, (Class[]) null);
+        return reader.getMethod();
     }
 
     /**
@@ -184,23 +151,4 @@ public class IntrospectionHelper {
         // Member not found
         return null;
     }
-
-    /**
-     * Recursively find declared method with the argument name
-     */
-    private static Method searchRecursiveDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes)
-            throws NoSuchMethodException {
-        // Recursive get superclass declared fields
-        while (clazz != null) {
-            try {
-                return clazz.getDeclaredMethod(methodName, parameterTypes);
-            } catch (NoSuchMethodException ex) {
-                // Search in superclass
-                clazz = clazz.getSuperclass();
-            }
-        }
-
-        // Method not found
-        throw new NoSuchMethodException(methodName);
-    }
 }
@@ -0,0 +1,146 @@
+package net.sf.gilead.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import net.sf.gilead.exception.InvocationException;
+
+/**
+ * Property reader or setter, resolved once for a class and backed by a method handle.
+ */
+public final class PropertyAccessor {
+
+    /**
+     * Reader handle type
+     */
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Setter handle type
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * The property name
+     */
+    private final String name;
+
+    /**
+     * The accessor method
+     */
+    private final Method method;
+
+    /**
+     * The property type (reader return type or setter parameter type)
+     */
+    private final Class<?> type;
+
+    /**
+     * The method handle (null if the method cannot be made accessible)
+     */
+    private final MethodHandle handle;
+
+    /**
+     * Constructor
+     *
+     * @param name the property name
+     * @param method the reader or setter method
+     * @param reader true for a reader, false for a setter
+     */
+    PropertyAccessor(String name, Method method, boolean reader) {
+        this.name = name;
+        this.method = method;
+        this.type = reader ? method.getReturnType() : method.getParameterTypes()[0];
+        this.handle = createHandle(method, reader ? READER_TYPE : SETTER_TYPE);
+    }
+
+    /**
+     * @return the property name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the accessor method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the property type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Read the property value of the argument bean
+     */
+    public Object get(Object bean) {
+        try {
+            if (handle != null) {
+                return handle.invokeExact(bean);
+            }
+            return method.invoke(bean, (Object[]) null);
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new InvocationException("Error reading property " + name + " of " + method.getDeclaringClass(), unwrap(ex));
+        }
+    }
+
+    /**
+     * Write the property value on the argument bean
+     */
+    public void set(Object bean, Object value) {
+        try {
+            if (handle != null) {
+                handle.invokeExact(bean, value);
+            } else {
+                method.invoke(bean, value);
+            }
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new InvocationException("Error writing property " + name + " of " + method.getDeclaringClass(), unwrap(ex));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+
+    /**
+     * Create the method handle, adapted to generic signature
+     *
+     * @return the handle, or null if the method is not accessible
+     */
+    private static MethodHandle createHandle(Method method, MethodType type) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (Exception ex) {
+            // Not accessible (JDK internal class for instance) : reflective fallback
+            return null;
+        }
+    }
+
+    /**
+     * Unwrap reflective invocation exception. Errors thrown by the accessor are rethrown as is.
+     */
+    private static Throwable unwrap(Throwable ex) {
+        if (ex instanceof java.lang.reflect.InvocationTargetException) {
+            Throwable target = ((java.lang.reflect.InvocationTargetException) ex).getTargetException();
+            if (target instanceof Error) {
+                throw (Error) target;
+            }
+            return target;
+        }
+        return ex;
+    }
+}
@@ -7,6 +7,7 @@ import java.io.Serializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.pojo.gwt.GwtSerializableId;
 import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
 import net.sf.gilead.pojo.gwt.SerializedParameter;
@@ -54,6 +55,11 @@ public class GwtProxySerialization extends GwtSerializer implements IProxySerial
             return null;
         }
 
+        // Proxy informations are sent in the legacy map format
+        if (serializable instanceof ProxyInformation) {
+            serializable = ((ProxyInformation) serializable).toMap();
+        }
+
         // Convert to GWT
         try {
             return convertToGwt(serializable);
@@ -1,13 +1,16 @@
 package net.sf.gilead.gwt;
 
 import java.io.Serializable;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.core.store.ProxyStore;
 import net.sf.gilead.core.store.stateful.UniqueNameGenerator;
-import net.sf.gilead.exception.NotPersistentObjectException;
-import net.sf.gilead.exception.TransientObjectException;
 
 /**
  * Abstract class for stateful proxy store.
@@ -16,11 +19,23 @@ import net.sf.gilead.exception.TransientObjectException;
  */
 public abstract class AbstractStatefulProxyStore implements ProxyStore {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractStatefulProxyStore.class);
+
     /**
      * The associated persistence util
      */
     protected PersistenceUtil persistenceUtil;
 
+    /**
+     * Write behind flag
+     */
+    private boolean writeBehind;
+
+    /**
+     * Pending writes of the current thread, flushed at clean up (null values are pending deletions)
+     */
+    private final ThreadLocal<Map<String, ProxyInformation>> pendingWrites = new ThreadLocal<>();
+
     /**
      * @return the persistence Util implementation
      */
@@ -35,45 +50,111 @@ public abstract class AbstractStatefulProxyStore implements ProxyStore {
         this.persistenceUtil = persistenceUtil;
     }
 
+    /**
+     * @return true if writes are buffered until clean up
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Buffer the writes of the current thread, and flush them at clean up with a single {@link #storeAll(Map)} call.
+     * Reads of the same thread are served from the buffer.
+     *
+     * @param writeBehind the write behind flag
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        LOGGER.debug("Using write behind : " + writeBehind);
+        this.writeBehind = writeBehind;
+    }
+
     @Override
-    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations) {
+    public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, ProxyInformation proxyInformations) {
         Serializable id = UniqueNameGenerator.getUniqueId(persistenceUtil, persistentBean);
-        store(computeKey(cloneBean, id, property), proxyInformations);
+        String key = computeKey(cloneBean, id, property);
+        if (writeBehind == true) {
+            getPendingWrites().put(key, proxyInformations);
+        } else {
+            store(key, proxyInformations);
+        }
     }
 
     @Override
-    public Map<String, Serializable> getProxyInformations(Object pojo, String property) {
-        try {
-            return get(computeKey(pojo, property));
-        } catch (TransientObjectException ex) {
-            return null;
-        } catch (NotPersistentObjectException e) {
+    public ProxyInformation getProxyInformations(Object pojo, String property) {
+        Serializable id = UniqueNameGenerator.findUniqueId(persistenceUtil, pojo);
+        if (id == null) {
+            // Transient or not persistent pojo
             return null;
         }
+        String key = computeKey(pojo, id, property);
+
+        // Pending writes first
+        Map<String, ProxyInformation> pending = pendingWrites.get();
+        if ((pending != null) && pending.containsKey(key)) {
+            return pending.get(key);
+        }
+        return get(key);
     }
 
     @Override
     public void removeProxyInformations(Object pojo, String property) {
-        delete(computeKey(pojo, property));
+        String key = computeKey(pojo, property);
+        if (writeBehind == true) {
+            // Pending deletion
+            getPendingWrites().put(key, null);
+        } else {
+            delete(key);
+        }
     }
 
     /**
-     * Clean up the proxy store after a complete serialization process
+     * Clean up the proxy store after a complete serialization process : flush pending writes
      */
     @Override
-    public void cleanUp() {}
+    public void cleanUp() {
+        Map<String, ProxyInformation> pending = pendingWrites.get();
+        if (pending == null) {
+            return;
+        }
+        pendingWrites.remove();
+
+        Map<String, ProxyInformation> stored = new LinkedHashMap<>();
+        for (Map.Entry<String, ProxyInformation> entry : pending.entrySet()) {
+            if (entry.getValue() == null) {
+                delete(entry.getKey());
+            } else {
+                stored.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (stored.isEmpty() == false) {
+            LOGGER.trace("Flushing {} pending proxy informations", stored.size());
+            storeAll(stored);
+        }
+    }
+
+    /**
+     * Store several values at once. This implementation calls {@link #store(String, ProxyInformation)} for each entry :
+     * storages with a bulk operation should override it.
+     *
+     * @param entries the proxy informations by key
+     */
+    public void storeAll(Map<String, ProxyInformation> entries) {
+        for (Map.Entry<String, ProxyInformation> entry : entries.entrySet()) {
+            store(entry.getKey(), entry.getValue());
+        }
+    }
 
     /**
      * Store the value in the map.
      */
-    public abstract void store(String key, Map<String, Serializable> proxyInformation);
+    public abstract void store(String key, ProxyInformation proxyInformation);
 
     /**
      * Get the proxy informations associated with the key
      * 
      * @return the value if found, null otherwise
      */
-    public abstract Map<String, Serializable> get(String key);
+    public abstract ProxyInformation get(String key);
 
     /**
      * Delete the key from the underlying storage
@@ -82,6 +163,18 @@ public abstract class AbstractStatefulProxyStore implements ProxyStore {
      */
     public abstract void delete(String key);
 
+    /**
+     * @return the pending writes of the current thread
+     */
+    private Map<String, ProxyInformation> getPendingWrites() {
+        Map<String, ProxyInformation> pending = pendingWrites.get();
+        if (pending == null) {
+            pending = new LinkedHashMap<>();
+            pendingWrites.set(pending);
+        }
+        return pending;
+    }
+
     /**
      * Compute the hashmap key
      * 
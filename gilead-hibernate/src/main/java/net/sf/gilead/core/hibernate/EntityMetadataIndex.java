@@ -0,0 +1,144 @@
+package net.sf.gilead.core.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.tuple.IdentifierProperty;
+
+/**
+ * Immutable index of the Hibernate metadata of a session factory, built once so that hot paths (id, entity name and
+ * unsaved value lookups) do not scan the metamodel.
+ */
+final class EntityMetadataIndex {
+
+    /**
+     * Entity metadata, by mapped class
+     */
+    private final Map<Class<?>, List<EntityMetadata>> entitiesByClass;
+
+    /**
+     * Entity metadata, by entity name
+     */
+    private final Map<String, EntityMetadata> entitiesByName;
+
+    /**
+     * Collection persisters, by role
+     */
+    private final Map<String, CollectionPersister> collectionPersisters;
+
+    /**
+     * Build the index of the argument session factory
+     */
+    EntityMetadataIndex(SessionFactoryImpl sessionFactory) {
+        Map<Class<?>, List<EntityMetadata>> byClass = new HashMap<>();
+        Map<String, EntityMetadata> byName = new HashMap<>();
+
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            EntityMetadata metadata = new EntityMetadata(persister);
+            byName.put(metadata.getEntityName(), metadata);
+
+            Class<?> mappedClass = persister.getMappedClass();
+            if (mappedClass != null) {
+                List<EntityMetadata> entities = byClass.get(mappedClass);
+                if (entities == null) {
+                    entities = new ArrayList<>(1);
+                    byClass.put(mappedClass, entities);
+                }
+                entities.add(metadata);
+            }
+        }
+        for (Map.Entry<Class<?>, List<EntityMetadata>> entry : byClass.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        this.entitiesByClass = Collections.unmodifiableMap(byClass);
+        this.entitiesByName = Collections.unmodifiableMap(byName);
+        this.collectionPersisters = Collections.unmodifiableMap(new HashMap<>(sessionFactory.getMetamodel().collectionPersisters()));
+    }
+
+    /**
+     * @return the entities mapped on the argument class (empty list if none)
+     */
+    List<EntityMetadata> getEntities(Class<?> clazz) {
+        List<EntityMetadata> entities = entitiesByClass.get(clazz);
+        return (entities != null) ? entities : Collections.<EntityMetadata> emptyList();
+    }
+
+    /**
+     * @return the metadata of the argument entity, or null if not found
+     */
+    EntityMetadata getEntity(String entityName) {
+        return entitiesByName.get(entityName);
+    }
+
+    /**
+     * @return every indexed entity
+     */
+    Iterable<EntityMetadata> getEntities() {
+        return entitiesByName.values();
+    }
+
+    /**
+     * @return the persister of the argument collection role, or null if not found
+     */
+    CollectionPersister getCollectionPersister(String role) {
+        return collectionPersisters.get(role);
+    }
+
+    /**
+     * Metadata of an entity
+     */
+    static final class EntityMetadata {
+
+        /**
+         * The entity name
+         */
+        private final String entityName;
+
+        /**
+         * The entity persister
+         */
+        private final EntityPersister persister;
+
+        /**
+         * The identifier property name (null for embedded identifiers)
+         */
+        private final String identifierPropertyName;
+
+        /**
+         * Unsaved value strategy : true if every identifier value is considered as unsaved (virtual identifier)
+         */
+        private final boolean virtualIdentifier;
+
+        EntityMetadata(EntityPersister persister) {
+            this.entityName = persister.getEntityName();
+            this.persister = persister;
+            this.identifierPropertyName = persister.getIdentifierPropertyName();
+
+            IdentifierProperty idProperty = persister.getEntityMetamodel().getIdentifierProperty();
+            this.virtualIdentifier = (idProperty != null) && idProperty.isVirtual();
+        }
+
+        String getEntityName() {
+            return entityName;
+        }
+
+        EntityPersister getPersister() {
+            return persister;
+        }
+
+        String getIdentifierPropertyName() {
+            return identifierPropertyName;
+        }
+
+        boolean isVirtualIdentifier() {
+            return virtualIdentifier;
+        }
+    }
+}
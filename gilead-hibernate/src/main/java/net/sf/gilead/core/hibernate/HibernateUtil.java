@@ -2,25 +2,31 @@ package net.sf.gilead.core.hibernate;
 
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
-import jakarta.persistence.metamodel.EntityType;
-import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.EntityGraph;
 
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
-import org.hibernate.ObjectNotFoundException;
 import org.hibernate.Session;
 import org.hibernate.SessionException;
 import org.hibernate.SessionFactory;
@@ -32,30 +38,40 @@ import org.hibernate.collection.spi.PersistentSet;
 import org.hibernate.collection.spi.PersistentSortedMap;
 import org.hibernate.collection.spi.PersistentSortedSet;
 import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.Managed;
 import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.metamodel.model.domain.ManagedDomainType;
+import org.hibernate.metamodel.model.domain.PersistentAttribute;
 import org.hibernate.persister.collection.CollectionPersister;
 import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.proxy.HibernateProxy;
 import org.hibernate.query.Query;
-import org.hibernate.tuple.IdentifierProperty;
-import org.hibernate.tuple.entity.EntityMetamodel;
 import org.hibernate.type.CollectionType;
 import org.hibernate.type.CompositeType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.MapType;
 import org.hibernate.type.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.beanlib.hibernate.UnEnhancer;
+import net.sf.gilead.core.PersistenceProbe;
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.hibernate.EntityMetadataIndex.EntityMetadata;
 import net.sf.gilead.core.hibernate.exception.UnableToCreateEntityException;
+import net.sf.gilead.core.serialization.CompactIdList;
 import net.sf.gilead.core.serialization.SerializableId;
 import net.sf.gilead.exception.ComponentTypeException;
 import net.sf.gilead.exception.NotPersistentObjectException;
+import net.sf.gilead.exception.StaleSnapshotException;
 import net.sf.gilead.exception.TransientObjectException;
 import net.sf.gilead.pojo.base.IUserType;
+import net.sf.gilead.util.BeanDescriptor;
 import net.sf.gilead.util.IntrospectionHelper;
+import net.sf.gilead.util.PropertyAccessor;
 
 /**
  * Persistent helper for Hibernate implementation Centralizes the SessionFactory and add some needed methods. Not really
@@ -67,41 +83,6 @@ public class HibernateUtil implements PersistenceUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HibernateUtil.class);
 
-    /**
-     * Proxy id
-     */
-    private static final String ID = "id";
-
-    /**
-     * Persistent collection class name
-     */
-    private static final String CLASS_NAME = "class";
-
-    /**
-     * Underlying collection class name
-     */
-    private static final String UNDERLYING_COLLECTION = "underlying";
-
-    /**
-     * Persistent collection role
-     */
-    private static final String ROLE = "role";
-
-    /**
-     * Persistent collection PK ids
-     */
-    private static final String KEY = "key";
-
-    /**
-     * Persistent collection ids list
-     */
-    private static final String ID_LIST = "idList";
-
-    /**
-     * Persistent map values list
-     */
-    private static final String VALUE_LIST = "valueList";
-
     // ----
     // Attributes
     // ----
@@ -115,15 +96,25 @@ public class HibernateUtil implements PersistenceUtil {
      */
     private SessionFactoryImpl sessionFactory;
 
+    /**
+     * The metadata index of the session factory
+     */
+    private EntityMetadataIndex metadataIndex;
+
     /**
      * The persistance map, with persistance status of all classes including persistent component classes
      */
-    private Map<Class<?>, Boolean> persistenceMap;
+    private ConcurrentMap<Class<?>, Boolean> persistenceMap;
+
+    /**
+     * The persistent supertype map : indicates if classes are assignable from a persistent class
+     */
+    private ConcurrentMap<Class<?>, Boolean> supertypeMap;
 
     /**
      * The unenhancement map, used for performance purpose
      */
-    private Map<Class<?>, Class<?>> unehancementMap;
+    private ConcurrentMap<Class<?>, Class<?>> unehancementMap;
 
     /**
      * The current opened session
@@ -132,6 +123,12 @@ public class HibernateUtil implements PersistenceUtil {
 
     private Session session;
 
+    /**
+     * Digest snapshot mode : initialized persistent collections of entities only send their element count and ids
+     * digest, and their original content is reloaded on merge
+     */
+    private boolean digestSnapshot;
+
     /**
      * @return the unique instance of the singleton
      */
@@ -157,21 +154,13 @@ public class HibernateUtil implements PersistenceUtil {
      * Complete constructor
      */
     public HibernateUtil(SessionFactory sessionFactory, Session session) {
-        setSessionFactory(sessionFactory);
         this.session = session;
         sessionThread = new ThreadLocal<>();
-        persistenceMap = Collections.synchronizedMap(new HashMap<Class<?>, Boolean>());
-        unehancementMap = Collections.synchronizedMap(new HashMap<Class<?>, Class<?>>());
+        persistenceMap = new ConcurrentHashMap<>();
+        supertypeMap = new ConcurrentHashMap<>();
+        unehancementMap = new ConcurrentHashMap<>();
 
-        // Filling persistence map with primitive types
-        persistenceMap.put(Byte.class, false);
-        persistenceMap.put(Short.class, false);
-        persistenceMap.put(Integer.class, false);
-        persistenceMap.put(Long.class, false);
-        persistenceMap.put(Float.class, false);
-        persistenceMap.put(Double.class, false);
-        persistenceMap.put(Boolean.class, false);
-        persistenceMap.put(String.class, false);
+        setSessionFactory(sessionFactory);
     }
 
     /**
@@ -193,6 +182,74 @@ public class HibernateUtil implements PersistenceUtil {
             }
         }
         this.sessionFactory = (SessionFactoryImpl) sessionFactory;
+
+        // Index the metadata once
+        clearCaches();
+        this.metadataIndex = (sessionFactory != null) ? new EntityMetadataIndex(this.sessionFactory) : null;
+
+        // Compute persistence of the metamodel classes
+        if (this.metadataIndex != null) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Clear the class caches, computed for the previous session factory
+     */
+    private void clearCaches() {
+        persistenceMap.clear();
+        supertypeMap.clear();
+        unehancementMap.clear();
+
+        // Filling persistence map with primitive types
+        persistenceMap.put(Byte.class, false);
+        persistenceMap.put(Short.class, false);
+        persistenceMap.put(Integer.class, false);
+        persistenceMap.put(Long.class, false);
+        persistenceMap.put(Float.class, false);
+        persistenceMap.put(Double.class, false);
+        persistenceMap.put(Boolean.class, false);
+        persistenceMap.put(String.class, false);
+    }
+
+    /**
+     * @return true if digest collection snapshots are used
+     */
+    public boolean isDigestSnapshot() {
+        return digestSnapshot;
+    }
+
+    /**
+     * Digest snapshot mode : the proxy informations of initialized persistent collections of entities only contain the
+     * element count and a SHA-256 digest of the element ids, instead of the ids. On merge, the original element ids are
+     * reloaded with one query, and a {@link StaleSnapshotException} is thrown if they do not match the digest anymore.
+     *
+     * @param digestSnapshot true to use digest collection snapshots
+     */
+    public void setDigestSnapshot(boolean digestSnapshot) {
+        LOGGER.debug("Using digest collection snapshots : " + digestSnapshot);
+        this.digestSnapshot = digestSnapshot;
+    }
+
+    /**
+     * Pre-compute the persistence of every entity of the metamodel, and of the component, user and collection element
+     * types of their properties, so that the first requests do not pay for it.
+     */
+    public void warmUp() {
+        for (EntityMetadata metadata : getMetadataIndex().getEntities()) {
+            Class<?> mappedClass = metadata.getPersister().getMappedClass();
+            if (mappedClass != null) {
+                isPersistentClass(mappedClass);
+            }
+        }
+        LOGGER.debug("Persistence computed for {} classes.", persistenceMap.size());
+    }
+
+    /**
+     * @return true if the persistence of the argument class is already computed
+     */
+    boolean isPersistenceComputed(Class<?> clazz) {
+        return persistenceMap.containsKey(clazz);
     }
 
     @Override
@@ -202,6 +259,43 @@ public class HibernateUtil implements PersistenceUtil {
 
     @Override
     public Serializable getId(Object pojo, Class<?> hibernateClass) {
+        PersistenceProbe probe = probe(pojo, hibernateClass);
+        switch (probe.getState()) {
+            case NOT_PERSISTENT:
+                throw new NotPersistentObjectException(pojo);
+            case COMPONENT:
+                // Component class (persistent but not metadata) : no associated id
+                // So must be considered as transient
+                throw new ComponentTypeException(pojo);
+            case TRANSIENT:
+                throw new TransientObjectException(pojo);
+            default:
+                return probe.getId();
+        }
+    }
+
+    @Override
+    public boolean isPersistentPojo(Object pojo) {
+        // Precondition checking
+        if (pojo == null) {
+            return false;
+        }
+
+        return probe(pojo).isPersistent();
+    }
+
+    @Override
+    public PersistenceProbe probe(Object pojo) {
+        // Precondition checking
+        if (pojo == null) {
+            return PersistenceProbe.notPersistent();
+        }
+
+        return probe(pojo, getPersistentClass(pojo));
+    }
+
+    @Override
+    public PersistenceProbe probe(Object pojo, Class<?> hibernateClass) {
         // Precondition checking
         if (sessionFactory == null) {
             throw new NullPointerException("No Hibernate Session Factory defined!");
@@ -210,16 +304,16 @@ public class HibernateUtil implements PersistenceUtil {
         // Verify if class is persistent.
         if (isPersistentClass(hibernateClass) == false) {
             LOGGER.debug("Class [{}] is not persistent.", hibernateClass.getName());
-            throw new NotPersistentObjectException(pojo);
+            return PersistenceProbe.notPersistent();
         }
 
         // Retrieve Class<?> hibernate metadata
-        EntityPersister entityPersister = sessionFactory.getMetamodel().entityPersisters().get(getEntityName(hibernateClass, pojo));
-        if (entityPersister == null) {
+        EntityMetadata metadata = getEntityMetadata(hibernateClass, pojo);
+        if (metadata == null) {
             // Component class (persistent but not metadata) : no associated id
-            // So must be considered as transient
-            throw new ComponentTypeException(pojo);
+            return PersistenceProbe.component();
         }
+        EntityPersister entityPersister = metadata.getPersister();
 
         // Retrieve ID
         Serializable id = null;
@@ -233,94 +327,113 @@ public class HibernateUtil implements PersistenceUtil {
             } else {
                 // Otherwise : use metada
                 LOGGER.debug("Get identifier by ClassMetadata [{}].", pojo.getClass().getName());
-                id = (Serializable) entityPersister.getClassMetadata().getIdentifier(pojo, (SharedSessionContractImplementor) session);
+                id = (Serializable) entityPersister.getIdentifier(pojo, (SharedSessionContractImplementor) session);
             }
         } else {
             LOGGER.debug("Get identifier of POJO [{}].", pojo.getClass().getName());
-            // DTO case : invoke the method with the same name
-            String property = entityPersister.getIdentifierPropertyName();
-
-            try {
-                // compute getter method name
-                property = property.substring(0, 1).toUpperCase() + property.substring(1);
-                String getter = "get" + property;
-
-                // Find getter method
-                Method method = pojoClass.getMethod(getter, (Class[]) null);
-                if (method == null) {
-                    throw new RuntimeException("Cannot find method " + getter + " for Class<?> " + pojoClass);
-                }
-                id = (Serializable) method.invoke(pojo, (Object[]) null);
-            } catch (Exception ex) {
-                throw new RuntimeException("Invocation exception ", ex);
+            // DTO case : invoke the reader with the same name
+            PropertyAccessor reader = BeanDescriptor.forClass(pojoClass).getReader(metadata.getIdentifierPropertyName());
+            if (reader == null) {
+                throw new RuntimeException("Cannot find reader of " + metadata.getIdentifierPropertyName() + " for Class<?> " + pojoClass);
             }
+            id = (Serializable) reader.get(pojo);
         }
 
         // Post condition checking
-        if (isUnsavedValue(pojo, id, hibernateClass)) {
-            throw new TransientObjectException(pojo);
+        if (isUnsavedValue(id, metadata)) {
+            return PersistenceProbe.transientEntity(id, metadata.getEntityName());
         }
 
-        return id;
+        return PersistenceProbe.persistent(id, metadata.getEntityName());
     }
 
     @Override
-    public boolean isPersistentPojo(Object pojo) {
+    public boolean isPersistentClass(Class<?> clazz) {
         // Precondition checking
-        if (pojo == null) {
-            return false;
+        if (sessionFactory == null) {
+            throw new NullPointerException("No Hibernate Session Factory defined!");
         }
 
-        // Try to get the ID : if an exception is thrown the pojo is not persistent...
-        try {
-            getId(pojo);
+        // Check proxy (based on beanlib Unenhancer class)
+        clazz = getUnenhancedClass(clazz);
+
+        // Look into the persistence map
+        Boolean persistent = persistenceMap.get(clazz);
+        if (persistent != null) {
+            return persistent.booleanValue();
+        }
+
+        // First clall for this Class<?> : compute persistence class
+        computePersistenceForClass(clazz);
+        return persistenceMap.get(clazz).booleanValue();
+    }
+
+    @Override
+    public boolean isPersistentSupertype(Class<?> clazz) {
+        if (isPersistentClass(clazz) == true) {
             return true;
-        } catch (TransientObjectException ex) {
-            return false;
-        } catch (NotPersistentObjectException ex) {
-            return false;
         }
+        clazz = getUnenhancedClass(clazz);
+
+        Boolean supertype = supertypeMap.get(clazz);
+        if (supertype == null) {
+            // Entity and component classes of the metamodel are computed at warm up
+            supertype = Boolean.FALSE;
+            for (Map.Entry<Class<?>, Boolean> entry : persistenceMap.entrySet()) {
+                if ((entry.getValue().booleanValue() == true) && clazz.isAssignableFrom(entry.getKey())) {
+                    supertype = Boolean.TRUE;
+                    break;
+                }
+            }
+            supertypeMap.put(clazz, supertype);
+        }
+        return supertype.booleanValue();
     }
 
     @Override
-    public boolean isPersistentClass(Class<?> clazz) {
+    public boolean isAssociation(Class<?> clazz, String propertyName, Class<?> propertyType) {
         // Precondition checking
         if (sessionFactory == null) {
             throw new NullPointerException("No Hibernate Session Factory defined!");
         }
 
-        // Check proxy (based on beanlib Unenhancer class)
-        clazz = getUnenhancedClass(clazz);
-
-        // Look into the persistence map
-        synchronized (persistenceMap) {
-            Boolean persistent = persistenceMap.get(clazz);
-            if (persistent != null) {
-                return persistent.booleanValue();
+        // Mapped property (entity or embeddable)
+        ManagedDomainType<?> managedType = sessionFactory.getJpaMetamodel().findManagedType(getUnenhancedClass(clazz));
+        if (managedType != null) {
+            PersistentAttribute<?, ?> attribute = managedType.findAttribute(propertyName);
+            if (attribute != null) {
+                return attribute.isAssociation() || attribute.isCollection();
             }
         }
 
-        // First clall for this Class<?> : compute persistence class
-        computePersistenceForClass(clazz);
-        return persistenceMap.get(clazz).booleanValue();
+        // Not mapped property : check the declared type
+        if (propertyType.isArray()) {
+            propertyType = propertyType.getComponentType();
+        }
+        if (Collection.class.isAssignableFrom(propertyType) || Map.class.isAssignableFrom(propertyType)) {
+            return true;
+        } else if (propertyType.equals(Object.class) || (isPersistentSupertype(propertyType) == false)) {
+            return false;
+        }
+
+        // Entity, or interface or superclass of an entity (embeddable classes are not associations)
+        return (isPersistentClass(propertyType) == false) || (getEntityNamesFor(getUnenhancedClass(propertyType)).isEmpty() == false);
     }
 
     @Override
     public Class<?> getUnenhancedClass(Class<?> clazz) {
-        // Map checking
+        // Map checking (based on beanlib unEnhancer class)
         Class<?> unenhancedClass = unehancementMap.get(clazz);
         if (unenhancedClass == null) {
-            // Based on beanlib unEnhancer class
-            unenhancedClass = UnEnhancer.unenhanceClass(clazz);
-            unehancementMap.put(clazz, unenhancedClass);
+            unenhancedClass = unehancementMap.computeIfAbsent(clazz, UnEnhancer::unenhanceClass);
         }
         return unenhancedClass;
     }
 
     @Override
     public boolean isEnhanced(Class<?> clazz) {
-        // Compare class to unenhanced class
-        return (clazz != getUnenhancedClass(clazz));
+        // Compare class to unenhanced class, and check bytecode enhancement
+        return (clazz != getUnenhancedClass(clazz)) || Managed.class.isAssignableFrom(clazz);
     }
 
     @Override
@@ -347,6 +460,11 @@ public class HibernateUtil implements PersistenceUtil {
         sessionThread.set(new HibernateSession(session, created));
     }
 
+    @Override
+    public boolean hasCurrentSession() {
+        return sessionThread.get() != null;
+    }
+
     @Override
     public void closeCurrentSession() {
         HibernateSession hSession = sessionThread.get();
@@ -370,18 +488,14 @@ public class HibernateUtil implements PersistenceUtil {
     }
 
     @Override
-    public Map<String, Serializable> serializeEntityProxy(Object proxy) {
+    public ProxyInformation serializeEntityProxy(Object proxy) {
         // Precondition checking
         if (proxy == null) {
             return null;
         }
 
         // Serialize needed proxy informations
-        Map<String, Serializable> result = new HashMap<>();
-        result.put(CLASS_NAME, getUnenhancedClass(proxy.getClass()).getName());
-        result.put(ID, getId(proxy));
-
-        return result;
+        return ProxyInformation.forEntityProxy(getUnenhancedClass(proxy.getClass()).getName(), getId(proxy));
     }
 
     /**
@@ -389,61 +503,46 @@ public class HibernateUtil implements PersistenceUtil {
      */
     @Override
     @SuppressWarnings("resource")
-    public Object createEntityProxy(Map<String, Serializable> proxyInformations) {
-        // Get needed proxy inforamtions
-        Serializable id = proxyInformations.get(ID);
-        String entityName = (String) proxyInformations.get(CLASS_NAME);
-
+    public Object createEntityProxy(ProxyInformation proxyInformations) {
         // Create the associated proxy
-        return getSession().load(entityName, id);
+        return getSession().load(proxyInformations.getClassName(), proxyInformations.getId());
     }
 
     @Override
-    public Map<String, Serializable> serializePersistentCollection(Collection<?> persistentCollection) {
-        // Create serialization map
-        Map<String, Serializable> result = new HashMap<>();
-
+    public ProxyInformation serializePersistentCollection(Collection<?> persistentCollection) {
         // Get parameters
         AbstractPersistentCollection collection = (AbstractPersistentCollection) persistentCollection;
-        result.put(CLASS_NAME, collection.getClass().getName());
         Collection<?> underlying = getUnderlyingCollection(persistentCollection);
-        if (underlying != null) {
-            result.put(UNDERLYING_COLLECTION, underlying.getClass().getName());
-        }
-        result.put(ROLE, collection.getRole());
-        result.put(KEY, (Serializable) collection.getKey());
+        String underlyingClassName = (underlying != null) ? underlying.getClass().getName() : null;
 
-        // Store ids
+        // Store ids, or their digest
+        List<SerializableId> idList = null;
         if (isInitialized(collection) == true) {
-            result.put(ID_LIST, createIdList((Collection<?>) collection));
+            if (digestSnapshot == true) {
+                List<Serializable> ids = createDigestIds(collection.getRole(), persistentCollection);
+                if (ids != null) {
+                    return ProxyInformation.forPersistentCollectionDigest(collection.getClass().getName(), underlyingClassName,
+                            collection.getRole(), (Serializable) collection.getKey(), ids.size(), computeIdDigest(ids, collection.getRole()));
+                }
+            }
+            idList = createIdList((Collection<?>) collection);
         }
-        return result;
+        return ProxyInformation.forPersistentCollection(collection.getClass().getName(), underlyingClassName, collection.getRole(),
+                (Serializable) collection.getKey(), idList);
     }
 
     @Override
-    public Map<String, Serializable> serializePersistentMap(Map<?, ?> persistentMap) {
-        // Create serialization map
-        Map<String, Serializable> result = new HashMap<>();
-
+    public ProxyInformation serializePersistentMap(Map<?, ?> persistentMap) {
         // Get parameters
         AbstractPersistentCollection collection = (AbstractPersistentCollection) persistentMap;
-        result.put(CLASS_NAME, collection.getClass().getName());
-        result.put(ROLE, collection.getRole());
-        result.put(KEY, (Serializable) collection.getKey());
 
-        // Store ids
+        // Store key and value ids
+        ArrayList<SerializableId> entryList = null;
         if (isInitialized(collection) == true) {
-            // Store keys
-            ArrayList<SerializableId> keyList = createIdList(persistentMap.keySet());
-            if (keyList != null) {
-                result.put(ID_LIST, keyList);
-
-                // Store values (only if keys are persistents)
-                ArrayList<SerializableId> valueList = createIdList(persistentMap.values());
-                result.put(VALUE_LIST, valueList);
-            }
+            entryList = createEntryList(persistentMap);
         }
-        return result;
+        return ProxyInformation.forPersistentMap(collection.getClass().getName(), collection.getRole(), (Serializable) collection.getKey(),
+                entryList);
     }
 
     /**
@@ -455,12 +554,12 @@ public class HibernateUtil implements PersistenceUtil {
      */
     @Override
     @SuppressWarnings({ "rawtypes", "unchecked" })
-    public Map<?, ?> createPersistentMap(Object parent, Map<String, Serializable> proxyInformations, Map<?, ?> underlyingMap) {
+    public Map<?, ?> createPersistentMap(Object parent, ProxyInformation proxyInformations, Map<?, ?> underlyingMap) {
         // Create original map
         Map<?, ?> originalMap = createOriginalMap(proxyInformations, underlyingMap);
 
         // Create collection for the class name
-        String className = (String) proxyInformations.get(CLASS_NAME);
+        String className = proxyInformations.getClassName();
 
         SharedSessionContractImplementor session = (SharedSessionContractImplementor) getSession();
         PersistentCollection collection = null;
@@ -483,8 +582,8 @@ public class HibernateUtil implements PersistenceUtil {
         }
 
         // Fill with serialized parameters
-        String role = (String) proxyInformations.get(ROLE);
-        CollectionPersister collectionPersister = sessionFactory.getMetamodel().collectionPersister(role);
+        String role = proxyInformations.getRole();
+        CollectionPersister collectionPersister = getMetadataIndex().getCollectionPersister(role);
 
         Serializable snapshot = null;
         if (originalMap != null) {
@@ -492,7 +591,7 @@ public class HibernateUtil implements PersistenceUtil {
             snapshot = collection.getSnapshot(collectionPersister);
         }
 
-        collection.setSnapshot(proxyInformations.get(KEY), role, snapshot);
+        collection.setSnapshot(proxyInformations.getKey(), role, snapshot);
 
         // Owner
         collection.setOwner(parent);
@@ -530,14 +629,14 @@ public class HibernateUtil implements PersistenceUtil {
      */
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    public Collection<?> createPersistentCollection(Object parent, Map<String, Serializable> proxyInformations,
+    public Collection<?> createPersistentCollection(Object parent, ProxyInformation proxyInformations,
             Collection<?> underlyingCollection) {
         try {
             // Re-create original collection
             Collection<?> originalCollection = createOriginalCollection(proxyInformations, underlyingCollection);
 
             // Create Persistent collection for the class name
-            String className = (String) proxyInformations.get(CLASS_NAME);
+            String className = proxyInformations.getClassName();
 
             SharedSessionContractImplementor session = (SharedSessionContractImplementor) getSession();
             PersistentCollection collection = null;
@@ -574,8 +673,8 @@ public class HibernateUtil implements PersistenceUtil {
             }
 
             // Fill with serialized parameters
-            String role = (String) proxyInformations.get(ROLE);
-            CollectionPersister collectionPersister = sessionFactory.getMetamodel().collectionPersister(role);
+            String role = proxyInformations.getRole();
+            CollectionPersister collectionPersister = getMetadataIndex().getCollectionPersister(role);
 
             Serializable snapshot = null;
             if (originalCollection != null) {
@@ -584,7 +683,7 @@ public class HibernateUtil implements PersistenceUtil {
 
             }
 
-            collection.setSnapshot(proxyInformations.get(KEY), role, snapshot);
+            collection.setSnapshot(proxyInformations.getKey(), role, snapshot);
 
             // Owner
             collection.setOwner(parent);
@@ -618,7 +717,7 @@ public class HibernateUtil implements PersistenceUtil {
             // unable to re-create persistent collection (embeddable items) : load it
             LOGGER.warn("Unable to re-create persistent collection of not persistent items, loading it...");
 
-            String role = proxyInformations.get(ROLE).toString();
+            String role = proxyInformations.getRole();
             role = role.substring(role.lastIndexOf(".") + 1);
 
             Collection<?> collection = loadPersistentCollection(parent, role);
@@ -655,42 +754,17 @@ public class HibernateUtil implements PersistenceUtil {
             return collection;
         }
 
-        // Persistent collection handling
-        if (collection instanceof PersistentSet) {
-            // Get the 'set' attribute
-            try {
-                Field setField = PersistentSet.class.getDeclaredField("set");
-                setField.setAccessible(true);
-                return (Collection<?>) setField.get(collection);
-            } catch (Exception e) {
-                // Should not happen
-                throw new RuntimeException(e);
-            }
-        } else if (collection instanceof PersistentList) {
-            // Get the 'list' attribute
-            try {
-                Field setField = PersistentList.class.getDeclaredField("list");
-                setField.setAccessible(true);
-                return (Collection<?>) setField.get(collection);
-            } catch (Exception e) {
-                // Should not happen
-                throw new RuntimeException(e);
-            }
-        } else if (collection instanceof PersistentBag) {
-            // Get the 'bag' attribute
-            try {
-                Field setField = PersistentBag.class.getDeclaredField("bag");
-                setField.setAccessible(true);
-                return (Collection<?>) setField.get(collection);
-            } catch (Exception e) {
-                // Should not happen
-                throw new RuntimeException(e);
-            }
-        } else {
-            // Not implemented
-            LOGGER.warn("Unimplemented collection type :" + collection.getClass());
-            return null;
+        // Persistent collection handling (PersistentMap and PersistentArrayHolder are not collections)
+        return PersistentCollectionAccessor.getUnderlyingCollection((PersistentCollection<?>) collection);
+    }
+
+    @Override
+    public Map<?, ?> getUnderlyingMap(Map<?, ?> map) {
+        // Precondition checking
+        if ((map == null) || (isPersistentMap(map.getClass()) == false)) {
+            return map;
         }
+        return PersistentCollectionAccessor.getUnderlyingMap((PersistentCollection<?>) map);
     }
 
     @Override
@@ -725,12 +799,8 @@ public class HibernateUtil implements PersistenceUtil {
     @SuppressWarnings({ "unchecked", "resource" })
     public Object loadAssociation(Class<?> parentClass, Serializable parentId, String propertyName) {
         // Create query
-        StringBuilder queryString = new StringBuilder();
-        queryString.append("SELECT item FROM ");
-        queryString.append(parentClass.getSimpleName());
-        queryString.append(" item LEFT OUTER JOIN FETCH item.");
-        queryString.append(propertyName);
-        queryString.append(" WHERE item.id = :id");
+        StringBuilder queryString = createAssociationQuery(parentClass, "item", "LEFT OUTER JOIN FETCH item." + propertyName);
+        queryString.append(" = :id");
 
         // Fill query
         Session session = getSession();
@@ -741,6 +811,130 @@ public class HibernateUtil implements PersistenceUtil {
         return query.uniqueResult();
     }
 
+    @Override
+    @SuppressWarnings({ "unchecked", "resource" })
+    public List<Object> loadAssociations(Class<?> parentClass, List<Serializable> parentIds, String propertyName) {
+        if (parentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Create query
+        StringBuilder queryString = createAssociationQuery(parentClass, "item", "LEFT OUTER JOIN FETCH item." + propertyName);
+        queryString.append(" IN (:ids)");
+        LOGGER.debug("Loading association [{}] for {} entities", propertyName, parentIds.size());
+
+        // Fill query (fetched entities are returned once by Hibernate 6, even with collection fetch)
+        Session session = getSession();
+        Query<Object> query = session.createQuery(queryString.toString());
+        query.setParameterList("ids", parentIds);
+
+        // Execute query
+        return query.list();
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "resource" })
+    public List<Object> loadAssociationPage(Class<?> parentClass, Serializable parentId, String propertyName, int offset, int limit) {
+        // Create query
+        StringBuilder queryString = createAssociationQuery(parentClass, "element", "JOIN item." + propertyName + " element");
+        queryString.append(" = :id");
+
+        // Stable order : map key, list index, element id or element value
+        CollectionPersister persister = getAssociationPersister(parentClass, propertyName);
+        if (persister == null) {
+            LOGGER.warn("Cannot find collection persister for [{}] : page order is not guaranteed", propertyName);
+        } else if (persister.getCollectionType() instanceof MapType) {
+            queryString.append(" ORDER BY KEY(element)");
+        } else if (persister.hasIndex()) {
+            queryString.append(" ORDER BY INDEX(element)");
+        } else if (persister.getElementType().isEntityType()) {
+            EntityMetadata element = getMetadataIndex().getEntity(((EntityType) persister.getElementType()).getAssociatedEntityName());
+            if ((element != null) && (element.getIdentifierPropertyName() != null)) {
+                queryString.append(" ORDER BY element.");
+                queryString.append(element.getIdentifierPropertyName());
+            } else {
+                queryString.append(" ORDER BY element");
+            }
+        } else {
+            // Basic or embeddable elements
+            queryString.append(" ORDER BY element");
+        }
+        LOGGER.debug("Loading association [{}] page from {} ({} elements)", propertyName, offset, limit);
+
+        // Fill query
+        Session session = getSession();
+        Query<Object> query = session.createQuery(queryString.toString());
+        query.setParameter("id", parentId);
+        query.setFirstResult(offset);
+        query.setMaxResults(limit);
+
+        // Execute query
+        return query.list();
+    }
+
+    @Override
+    @SuppressWarnings("resource")
+    public int getAssociationSize(Class<?> parentClass, Serializable parentId, String propertyName) {
+        // Create query
+        StringBuilder queryString = createAssociationQuery(parentClass, "COUNT(element)", "JOIN item." + propertyName + " element");
+        queryString.append(" = :id");
+
+        // Fill query
+        Session session = getSession();
+        Query<Long> query = session.createQuery(queryString.toString(), Long.class);
+        query.setParameter("id", parentId);
+
+        // Execute query
+        Long size = query.uniqueResult();
+        return (size == null) ? 0 : size.intValue();
+    }
+
+    /**
+     * Create an association query, up to the parent identifier restriction
+     *
+     * @param selectClause the selected expression
+     * @param joinClause the association join
+     */
+    private StringBuilder createAssociationQuery(Class<?> parentClass, String selectClause, String joinClause) {
+        // Use the mapped entity name and identifier property when available
+        String entityName = parentClass.getSimpleName();
+        String idPropertyName = "id";
+        List<EntityMetadata> entities = getMetadataIndex().getEntities(getUnenhancedClass(parentClass));
+        if (entities.size() == 1) {
+            entityName = entities.get(0).getEntityName();
+            if (entities.get(0).getIdentifierPropertyName() != null) {
+                idPropertyName = entities.get(0).getIdentifierPropertyName();
+            }
+        }
+
+        StringBuilder queryString = new StringBuilder();
+        queryString.append("SELECT ");
+        queryString.append(selectClause);
+        queryString.append(" FROM ");
+        queryString.append(entityName);
+        queryString.append(" item ");
+        queryString.append(joinClause);
+        queryString.append(" WHERE item.");
+        queryString.append(idPropertyName);
+        return queryString;
+    }
+
+    /**
+     * @return the collection persister of the association, declared on the parent class or one of its superclasses (null
+     *         if not found)
+     */
+    private CollectionPersister getAssociationPersister(Class<?> parentClass, String propertyName) {
+        for (Class<?> clazz = getUnenhancedClass(parentClass); clazz != null; clazz = clazz.getSuperclass()) {
+            for (EntityMetadata metadata : getMetadataIndex().getEntities(clazz)) {
+                CollectionPersister persister = getMetadataIndex().getCollectionPersister(metadata.getEntityName() + "." + propertyName);
+                if (persister != null) {
+                    return persister;
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     @SuppressWarnings({ "unchecked", "resource" })
     public List<Object> executeQuery(String query, List<Object> parameters) {
@@ -781,16 +975,80 @@ public class HibernateUtil implements PersistenceUtil {
         return hqlQuery.list();
     }
 
+    @Override
+    @SuppressWarnings({ "unchecked", "resource" })
+    public Stream<Object> streamQuery(String query, Map<String, Object> parameters, int fetchSize) {
+        LOGGER.trace("Streaming query [{}].", query);
+
+        // Fill query
+        Session session = getSession();
+        Query<Object> hqlQuery = session.createQuery(query);
+        hqlQuery.setFetchSize(fetchSize);
+
+        // Fill parameters
+        if (parameters != null) {
+            for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+                hqlQuery.setParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+
+        // Execute query (scrollable results are closed with the stream)
+        return hqlQuery.stream();
+    }
+
+    @Override
+    @SuppressWarnings("resource")
+    public void evict(Object entity) {
+        // Precondition checking
+        if ((entity == null) || (isPersistentClass(getUnenhancedClass(entity.getClass())) == false)) {
+            return;
+        }
+
+        HibernateSession hSession = sessionThread.get();
+        Session session = (hSession != null) ? hSession.session : getCurrentSession();
+        if ((session != null) && session.contains(entity)) {
+            session.evict(entity);
+        }
+    }
+
+    @Override
+    public boolean detach(Object entity) {
+        evict(entity);
+
+        // Persistent collections of an entity attached to another session are still bound to it
+        EntityMetadata metadata = getEntityMetadata(entity.getClass(), entity);
+        if (metadata == null) {
+            return true;
+        }
+        for (Object value : metadata.getPersister().getPropertyValues(entity)) {
+            if (value instanceof AbstractPersistentCollection) {
+                SharedSessionContractImplementor session = ((AbstractPersistentCollection<?>) value).getSession();
+                if ((session != null) && session.isOpen()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public EntityGraph<?> getEntityGraph(String graphName) {
+        // Precondition checking
+        if (sessionFactory == null) {
+            throw new NullPointerException("No Hibernate Session Factory defined!");
+        }
+
+        return sessionFactory.findEntityGraphByName(graphName);
+    }
+
     /**
      * Compute embedded persistence (Component, UserType) for argument class
      */
     private void computePersistenceForClass(Class<?> clazz) {
-        // Precondition checking
-        synchronized (persistenceMap) {
-            if (persistenceMap.get(clazz) != null) {
-                // already computed
-                return;
-            }
+        // Precondition checking (no computeIfAbsent here : the computation is recursive)
+        if (persistenceMap.get(clazz) != null) {
+            // already computed
+            return;
         }
 
         // Get associated metadata
@@ -817,7 +1075,7 @@ public class HibernateUtil implements PersistenceUtil {
 
         // Look for component classes
         for (String entityName : entityNames) {
-            Type[] types = sessionFactory.getMetamodel().entityPersister(entityName).getPropertyTypes();
+            Type[] types = getMetadataIndex().getEntity(entityName).getPersister().getPropertyTypes();
             for (Type type : types) {
                 LOGGER.debug("Scanning type [{}] from [{}].", type.getName(), clazz);
                 computePersistentForType(type);
@@ -837,16 +1095,11 @@ public class HibernateUtil implements PersistenceUtil {
         } else {
             LOGGER.debug("Marking [{}] as not persistent", clazz);
         }
-        synchronized (persistenceMap) {
-            // Debug check
-            if (persistenceMap.get(clazz) == null) {
-                persistenceMap.put(clazz, persistent);
-            } else {
-                // Check persistence information
-                if (persistent != persistenceMap.get(clazz).booleanValue()) {
-                    throw new RuntimeException("Invalid persistence state for " + clazz);
-                }
-            }
+        // Debug check
+        Boolean previous = persistenceMap.putIfAbsent(clazz, persistent);
+        if ((previous != null) && (persistent != previous.booleanValue())) {
+            // Check persistence information
+            throw new RuntimeException("Invalid persistence state for " + clazz);
         }
     }
 
@@ -857,11 +1110,9 @@ public class HibernateUtil implements PersistenceUtil {
      */
     private void computePersistentForType(Type type) {
         // Precondition checking
-        synchronized (persistenceMap) {
-            if (persistenceMap.get(type.getReturnedClass()) != null) {
-                // already computed
-                return;
-            }
+        if (persistenceMap.get(type.getReturnedClass()) != null) {
+            // already computed
+            return;
         }
 
         LOGGER.debug("Scanning type [{}]", type.getName());
@@ -892,54 +1143,231 @@ public class HibernateUtil implements PersistenceUtil {
     }
 
     /**
-     * Create a list of serializable ID for the argument collection
+     * Create a list of serializable ID for the argument collection, in a single pass : the compact form (entities of
+     * the same entity name with Long, Integer or String ids) is used until an element does not fit it.
      *
      * @param collection
-     * @return
+     * @return the id list, or null if the collection is empty
      */
-    private ArrayList<SerializableId> createIdList(@SuppressWarnings("rawtypes") Collection collection) {
+    private List<SerializableId> createIdList(Collection<?> collection) {
         // Precondition checking
         if (collection == null) {
             return null;
         }
 
         int size = collection.size();
-        ArrayList<SerializableId> idList = new ArrayList<>(size);
+        CompactIdList.Builder builder = new CompactIdList.Builder(null, size);
+        ArrayList<SerializableId> idList = null;
+        for (Object item : collection) {
+            if (item == null) {
+                continue;
+            }
 
-        @SuppressWarnings("unchecked")
-        Iterator<Object> iterator = collection.iterator();
-        while (iterator.hasNext()) {
-            Object item = iterator.next();
-            if (item != null) {
-                SerializableId id;
+            PersistenceProbe probe = probe(item);
+            if (idList == null) {
+                if ((probe.isPersistent() == true) && (builder.add(probe.getEntityName(), probe.getId()) == true)) {
+                    continue;
+                }
 
-                if (isPersistentPojo(item)) {
-                    id = serializePersistentEntity(item);
-                } else {
-                    id = serializeNotPersistentEntity(item);
+                // Fall back to the plain form, keeping the already probed ids
+                idList = new ArrayList<>(size);
+                CompactIdList compactIdList = builder.build();
+                if (compactIdList != null) {
+                    idList.addAll(compactIdList);
                 }
+            }
+            idList.add((probe.isPersistent() == true) ? serializePersistentEntity(probe) : serializeNotPersistentEntity(item));
+        }
+
+        if (idList == null) {
+            // Compact form (null if empty)
+            return builder.build();
+        }
+        return idList.isEmpty() ? null : idList;
+    }
 
-                idList.add(id);
+    /**
+     * Get the element ids of the argument collection for a digest snapshot
+     *
+     * @return the ids, or null if the collection is empty or does not fit the digest snapshot (elements that are not
+     *         entities, or entities without a simple id)
+     */
+    private List<Serializable> createDigestIds(String role, Collection<?> collection) {
+        if (collection.isEmpty() || (canReloadIds(role) == false)) {
+            return null;
+        }
+
+        List<Serializable> ids = new ArrayList<>(collection.size());
+        for (Object item : collection) {
+            if (item != null) {
+                PersistenceProbe probe = probe(item);
+                if ((probe.isPersistent() == false) || (isDigestibleId(probe.getId()) == false)) {
+                    return null;
+                }
+                ids.add(probe.getId());
             }
         }
+        return ids.isEmpty() ? null : ids;
+    }
+
+    /**
+     * @return true if the element ids of the argument collection role can be reloaded with a query
+     */
+    private boolean canReloadIds(String role) {
+        CollectionPersister persister = getMetadataIndex().getCollectionPersister(role);
+        if ((persister == null) || (persister.getElementType().isEntityType() == false)) {
+            return false;
+        }
+
+        EntityMetadata owner = getMetadataIndex().getEntity(persister.getOwnerEntityPersister().getEntityName());
+        EntityMetadata element = getMetadataIndex().getEntity(((EntityType) persister.getElementType()).getAssociatedEntityName());
+        return (owner != null) && (getKeyPropertyName(persister, owner) != null) && (element != null)
+                && (element.getIdentifierPropertyName() != null);
+    }
+
+    /**
+     * @return the owner property referenced by the collection key : the identifier, or the property-ref if any
+     */
+    private String getKeyPropertyName(CollectionPersister persister, EntityMetadata owner) {
+        String propertyName = persister.getCollectionType().getLHSPropertyName();
+        return (propertyName != null) ? propertyName : owner.getIdentifierPropertyName();
+    }
+
+    /**
+     * @return the path of the collection attribute from its owner entity (including embeddable properties)
+     */
+    private String getAttributePath(CollectionPersister persister) {
+        String ownerPath = persister.getOwnerEntityPersister().getNavigableRole().getFullPath();
+        return persister.getNavigableRole().getFullPath().substring(ownerPath.length() + 1);
+    }
 
-        if (idList.isEmpty()) {
+    /**
+     * @return true if the id has a stable string form
+     */
+    private boolean isDigestibleId(Serializable id) {
+        return (id instanceof Number) || (id instanceof String) || (id instanceof UUID);
+    }
+
+    /**
+     * Compute the digest of the argument element ids. Ids are sorted, except for indexed collections.
+     *
+     * @return the Base64 encoded SHA-256 digest
+     */
+    private String computeIdDigest(List<?> ids, String role) {
+        List<String> values = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            values.add(id.toString());
+        }
+        if (getMetadataIndex().getCollectionPersister(role).hasIndex() == false) {
+            Collections.sort(values);
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : values) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            // Should not happen : SHA-256 is always available
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reload the original element ids of a digest snapshot collection with one query, and check them against the digest
+     *
+     * @return the original element ids
+     * @throws StaleSnapshotException if the collection changed in the database since clone
+     */
+    @SuppressWarnings({ "unchecked", "resource" })
+    private List<SerializableId> reloadIdList(ProxyInformation proxyInformations) {
+        String role = proxyInformations.getRole();
+        CollectionPersister persister = getMetadataIndex().getCollectionPersister(role);
+        EntityMetadata owner = getMetadataIndex().getEntity(persister.getOwnerEntityPersister().getEntityName());
+        EntityMetadata element = getMetadataIndex().getEntity(((EntityType) persister.getElementType()).getAssociatedEntityName());
+
+        // Create query
+        StringBuilder queryString = new StringBuilder();
+        queryString.append("SELECT element.");
+        queryString.append(element.getIdentifierPropertyName());
+        queryString.append(" FROM ");
+        queryString.append(owner.getEntityName());
+        queryString.append(" owner JOIN owner.");
+        queryString.append(getAttributePath(persister));
+        queryString.append(" element WHERE owner.");
+        queryString.append(getKeyPropertyName(persister, owner));
+        queryString.append(" = :key");
+        if (persister.hasIndex()) {
+            queryString.append(" ORDER BY INDEX(element)");
+        }
+
+        // Execute query
+        Query<Object> query = getSession().createQuery(queryString.toString());
+        query.setParameter("key", proxyInformations.getKey());
+        List<Object> ids = query.list();
+
+        // Check digest
+        if ((ids.size() != proxyInformations.getIdCount()) || (computeIdDigest(ids, role).equals(proxyInformations.getIdDigest()) == false)) {
+            throw new StaleSnapshotException("Collection " + role + " of " + proxyInformations.getKey() + " changed since it was cloned");
+        }
+
+        List<SerializableId> idList = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            SerializableId sid = new SerializableId();
+            sid.setEntityName(element.getEntityName());
+            sid.setId((Serializable) id);
+            idList.add(sid);
+        }
+        return idList;
+    }
+
+    /**
+     * Create the list of serializable ID for the argument map entries : each key id is followed by its value id. Entries
+     * with a null key or value are ignored.
+     *
+     * @param map
+     * @return the entry list, or null if the map is empty
+     */
+    private ArrayList<SerializableId> createEntryList(Map<?, ?> map) {
+        ArrayList<SerializableId> entryList = new ArrayList<>(2 * map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if ((entry.getKey() != null) && (entry.getValue() != null)) {
+                entryList.add(serializeItem(entry.getKey()));
+                entryList.add(serializeItem(entry.getValue()));
+            }
+        }
+
+        if (entryList.isEmpty()) {
             return null;
         } else {
-            return idList;
+            return entryList;
+        }
+    }
+
+    /**
+     * Serialize a collection or map item to a SerializableId
+     */
+    private SerializableId serializeItem(Object item) {
+        PersistenceProbe probe = probe(item);
+        if (probe.isPersistent()) {
+            return serializePersistentEntity(probe);
+        } else {
+            return serializeNotPersistentEntity(item);
         }
     }
 
     /**
      * Serialize a persistent entity to a SerializableId
      *
-     * @param item
+     * @param probe the persistence probe of the entity
      * @return the generated SerializableId
      */
-    private SerializableId serializePersistentEntity(Object item) {
+    private SerializableId serializePersistentEntity(PersistenceProbe probe) {
         SerializableId result = new SerializableId();
-        result.setEntityName(getEntityName(getPersistentClass(item), item));
-        result.setId(getId(item));
+        result.setEntityName(probe.getEntityName());
+        result.setId(probe.getId());
 
         return result;
     }
@@ -974,10 +1402,11 @@ public class HibernateUtil implements PersistenceUtil {
     /**
      * Check if the id equals the unsaved value or not
      *
-     * @param pojo
+     * @param id the pojo identifier
+     * @param metadata the indexed entity metadata
      * @return
      */
-    private boolean isUnsavedValue(Object pojo, Serializable id, Class<?> persistentClass) {
+    private boolean isUnsavedValue(Serializable id, EntityMetadata metadata) {
         // Precondition checking
         if (id == null) {
             return true;
@@ -989,18 +1418,8 @@ public class HibernateUtil implements PersistenceUtil {
             }
         }
 
-        // Get unsaved value from entity metamodel
-        EntityPersister entityPersister = sessionFactory.getMetamodel().entityPersister(getEntityName(persistentClass, pojo));
-        EntityMetamodel metamodel = entityPersister.getEntityMetamodel();
-        IdentifierProperty idProperty = metamodel.getIdentifierProperty();
-        Boolean result = idProperty.isVirtual(); //getUnsavedValue().isUnsaved(id);
-
-        if (result == null) {
-            // Unsaved value undefined
-            return false;
-        } else {
-            return result.booleanValue();
-        }
+        // Get unsaved value strategy from the metadata index
+        return metadata.isVirtualIdentifier(); //getUnsavedValue().isUnsaved(id);
     }
 
     /**
@@ -1028,14 +1447,14 @@ public class HibernateUtil implements PersistenceUtil {
      * @param collection
      */
     @SuppressWarnings("unchecked")
-    private <T> Collection<T> createOriginalCollection(Map<String, Serializable> proxyInformations, Collection<T> collection) {
+    private <T> Collection<T> createOriginalCollection(ProxyInformation proxyInformations, Collection<T> collection) {
         try {
             // Create base collection
             Class<?> collectionClass;
             if (collection == null) {
                 // collection have been nullified on client side
                 //
-                String collectionClassName = (String) proxyInformations.get(UNDERLYING_COLLECTION);
+                String collectionClassName = proxyInformations.getUnderlyingClassName();
                 if (collectionClassName == null) {
                     // There collection was empty when serialized
                     return null;
@@ -1047,20 +1466,35 @@ public class HibernateUtil implements PersistenceUtil {
             Collection<T> original = (Collection<T>) collectionClass.newInstance();
 
             // Fill original collection
-            ArrayList<SerializableId> idList = (ArrayList<SerializableId>) proxyInformations.get(ID_LIST);
+            List<SerializableId> idList = proxyInformations.getIds();
+            if (proxyInformations.getIdDigest() != null) {
+                idList = reloadIdList(proxyInformations);
+            }
             if (idList != null) {
                 // Create map(ID -> entity)
                 Map<Serializable, T> collectionMap = createCollectionMap(collection);
 
+                // Load removed entities at once
+                Map<String, Set<Serializable>> removedIds = new HashMap<>();
+                for (SerializableId sid : idList) {
+                    collectRemovedId(sid, collectionMap, removedIds);
+                }
+                Map<SerializableId, Object> removedEntities = loadRemovedEntities(removedIds);
+
                 // Fill snapshot
                 for (SerializableId sid : idList) {
-                    original.add(createOriginalEntity(sid, collectionMap));
+                    T entity = createOriginalEntity(sid, collectionMap, removedEntities);
+                    if (entity != null) {
+                        original.add(entity);
+                    }
                 }
             }
 
             return original;
         } catch (UnableToCreateEntityException e) {
             throw e;
+        } catch (StaleSnapshotException e) {
+            throw e;
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
@@ -1072,13 +1506,10 @@ public class HibernateUtil implements PersistenceUtil {
      * @param proxyInformations
      * @param map
      */
-    @SuppressWarnings("unchecked")
-    private <K, V> Map<K, V> createOriginalMap(Map<String, Serializable> proxyInformations, Map<K, V> map) {
+    <K, V> Map<K, V> createOriginalMap(ProxyInformation proxyInformations, Map<K, V> map) {
         try {
-            ArrayList<SerializableId> keyList = (ArrayList<SerializableId>) proxyInformations.get(ID_LIST);
-            if (keyList != null) {
-                ArrayList<SerializableId> valueList = (ArrayList<SerializableId>) proxyInformations.get(VALUE_LIST);
-
+            List<SerializableId> entryList = proxyInformations.getIds();
+            if (entryList != null) {
                 // Create maps(ID -> entity)
                 Map<Serializable, K> keyMap = null;
                 Map<Serializable, V> valueMap = null;
@@ -1091,9 +1522,22 @@ public class HibernateUtil implements PersistenceUtil {
                 }
 
                 // Fill snapshot map
-                Map<K, V> snapshot = new HashMap<>();
-                for (SerializableId sid : keyList) {
-                    snapshot.put(createOriginalEntity(sid, keyMap), createOriginalEntity(valueList.get(keyList.indexOf(sid)), valueMap));
+                int size = entryList.size() / 2;
+                Map<K, V> snapshot = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+                // Load removed entities at once
+                Map<String, Set<Serializable>> removedIds = new HashMap<>();
+                for (int index = 0; index < 2 * size; index += 2) {
+                    collectRemovedId(entryList.get(index), keyMap, removedIds);
+                    collectRemovedId(entryList.get(index + 1), valueMap, removedIds);
+                }
+                Map<SerializableId, Object> removedEntities = loadRemovedEntities(removedIds);
+
+                for (int index = 0; index < 2 * size; index += 2) {
+                    K key = createOriginalEntity(entryList.get(index), keyMap, removedEntities);
+                    V value = createOriginalEntity(entryList.get(index + 1), valueMap, removedEntities);
+                    if ((key != null) && (value != null)) {
+                        snapshot.put(key, value);
+                    }
                 }
 
                 return snapshot;
@@ -1194,25 +1638,25 @@ public class HibernateUtil implements PersistenceUtil {
     }
 
     /**
-     * Create an entity from its serializable id. The entity is taken from the argument map in priority.
+     * Create an entity from its serializable id. The entity is taken from the argument map in priority, then from the
+     * loaded removed entities.
      *
      * @param sid
-     * @return
+     * @return the entity, or null if it has already been deleted
      */
     @SuppressWarnings("unchecked")
-    private <T> T createOriginalEntity(SerializableId sid, Map<Serializable, T> collectionMap) {
+    private <T> T createOriginalEntity(SerializableId sid, Map<Serializable, T> collectionMap, Map<SerializableId, Object> removedEntities) {
         // Precondition checking
         T entity = null;
         if (sid.getId() != null) {
             // Is the entity still present ?
             entity = collectionMap.get(sid.getId());
             if (entity == null) {
-                // deleted item
-                try {
-                    entity = (T) createPersistentEntity(sid);
-                } catch (ObjectNotFoundException ex) {
+                // removed item
+                entity = (T) removedEntities.get(sid);
+                if (entity == null) {
                     // The data has already been deleted, just remove it from the collection
-                    LOGGER.debug("Deleted entity: " + sid + " cannot be retrieved from DB and thus added to snapshot", ex);
+                    LOGGER.debug("Deleted entity: {} cannot be retrieved from DB and thus added to snapshot", sid);
                 }
             }
         } else {
@@ -1227,11 +1671,50 @@ public class HibernateUtil implements PersistenceUtil {
     }
 
     /**
-     * Create an entity back from its serializable id
+     * Collect the id of the argument persistent entity if it is not in the argument map anymore
+     *
+     * @param sid the serializable id
+     * @param collectionMap the present entities, by id
+     * @param removedIds the removed ids, by entity name
+     */
+    private void collectRemovedId(SerializableId sid, Map<Serializable, ?> collectionMap, Map<String, Set<Serializable>> removedIds) {
+        if ((sid.getId() != null) && (collectionMap.containsKey(sid.getId()) == false)) {
+            removedIds.computeIfAbsent(sid.getEntityName(), name -> new LinkedHashSet<>()).add(sid.getId());
+        }
+    }
+
+    /**
+     * Load the removed entities with one multiple id load for each entity name. Already deleted entities are not part of
+     * the result.
+     *
+     * @param removedIds the removed ids, by entity name
+     * @return the loaded entities, by serializable id
      */
     @SuppressWarnings("resource")
-    private Object createPersistentEntity(SerializableId sid) {
-        return getSession().load(sid.getEntityName(), sid.getId());
+    private Map<SerializableId, Object> loadRemovedEntities(Map<String, Set<Serializable>> removedIds) {
+        if (removedIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Session session = getSession();
+        Map<SerializableId, Object> result = new HashMap<>();
+        for (Map.Entry<String, Set<Serializable>> entry : removedIds.entrySet()) {
+            List<Serializable> ids = new ArrayList<>(entry.getValue());
+            LOGGER.trace("Loading {} removed {} entities", ids.size(), entry.getKey());
+
+            // Entities are returned in id order, null for deleted ones
+            List<?> entities = session.byMultipleIds(entry.getKey()).multiLoad(ids);
+            for (int index = 0; index < ids.size(); index++) {
+                Object entity = entities.get(index);
+                if (entity != null) {
+                    SerializableId sid = new SerializableId();
+                    sid.setEntityName(entry.getKey());
+                    sid.setId(ids.get(index));
+                    result.put(sid, entity);
+                }
+            }
+        }
+        return result;
     }
 
     /**
@@ -1283,13 +1766,11 @@ public class HibernateUtil implements PersistenceUtil {
         if (collection != null) {
             for (T item : collection) {
                 if (item != null) {
-                    try {
-                        collectionMap.put(getId(item), item);
-                    } catch (NotPersistentObjectException ex) {
-                        // not hibernate entity : use hashcode instead
-                        collectionMap.put(item.hashCode(), item);
-                    } catch (TransientObjectException ex) {
-                        // transient entity : use hashcode instead
+                    PersistenceProbe probe = probe(item);
+                    if (probe.isPersistent()) {
+                        collectionMap.put(probe.getId(), item);
+                    } else {
+                        // not hibernate entity or transient entity : use hashcode instead
                         collectionMap.put(item.hashCode(), item);
                     }
                 }
@@ -1341,33 +1822,42 @@ public class HibernateUtil implements PersistenceUtil {
      * @param clazz
      * @return
      */
-    @SuppressWarnings("resource")
     private String getEntityName(Class<?> clazz, Object pojo) {
-        // Direct metadata search
-        ManagedType<?> metadata = sessionFactory.getMetamodel().managedType(clazz);
-        if (metadata != null) {
-            LOGGER.debug("Found metadata for class [{}] in managed types.", clazz.getName());
-            return metadata.getJavaType().getName();
-        } else {
-            LOGGER.debug("Not found metadata for class [{}] in managed types.", clazz.getName());
+        EntityMetadata metadata = getEntityMetadata(clazz, pojo);
+        if (metadata == null) {
+            // Not found
+            return getUnenhancedClass(clazz).getName();
         }
+        return metadata.getEntityName();
+    }
 
-        // Iterate over all metadata to prevent entity name bug.
-        List<String> entityNames = getEntityNamesFor(clazz);
+    /**
+     * Get the indexed entity metadata of the argument class
+     *
+     * @param clazz the persistent class
+     * @param pojo the pojo, needed if the class is mapped with more than one entity name
+     * @return the entity metadata, or null for not entity classes
+     */
+    @SuppressWarnings("resource")
+    private EntityMetadata getEntityMetadata(Class<?> clazz, Object pojo) {
+        List<EntityMetadata> entities = getMetadataIndex().getEntities(clazz);
+        if (entities.isEmpty()) {
+            entities = getMetadataIndex().getEntities(getUnenhancedClass(clazz));
+        }
 
         // check entity names
-        if (entityNames.isEmpty()) {
+        if (entities.isEmpty()) {
             // Not found
-            return getUnenhancedClass(clazz).getName();
-        } else if (entityNames.size() == 1) {
+            return null;
+        } else if (entities.size() == 1) {
             // Only one entity name
-            return entityNames.get(0);
+            return entities.get(0);
         }
 
         // More than one entity name : need pojo to know which one is the right one
         if (pojo != null) {
             // Get entity name
-            return ((SessionImplementor) getSession()).bestGuessEntityName(pojo);
+            return getMetadataIndex().getEntity(((SessionImplementor) getSession()).bestGuessEntityName(pojo));
         } else {
             throw new NullPointerException("Missing pojo for entity name retrieving!");
         }
@@ -1377,15 +1867,25 @@ public class HibernateUtil implements PersistenceUtil {
      * @return all possible entity names for the argument class.
      */
     private List<String> getEntityNamesFor(Class<?> clazz) {
-        List<String> entityNames = new ArrayList<>();
-        for (EntityType<?> type : sessionFactory.getMetamodel().getEntities()) {
-            if (clazz.equals(type.getBindableJavaType())) {
-                entityNames.add(type.getBindableJavaType().getName());
-            }
+        List<EntityMetadata> entities = getMetadataIndex().getEntities(clazz);
+        List<String> entityNames = new ArrayList<>(entities.size());
+        for (EntityMetadata metadata : entities) {
+            entityNames.add(metadata.getEntityName());
         }
 
         return entityNames;
     }
+
+    /**
+     * @return the metadata index of the session factory
+     */
+    private EntityMetadataIndex getMetadataIndex() {
+        // Precondition checking
+        if (metadataIndex == null) {
+            throw new NullPointerException("No Hibernate Session Factory defined!");
+        }
+        return metadataIndex;
+    }
 }
 
 /**
@@ -0,0 +1,115 @@
+package net.sf.gilead.core.hibernate;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Map;
+
+import org.hibernate.collection.spi.PersistentArrayHolder;
+import org.hibernate.collection.spi.PersistentBag;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.collection.spi.PersistentIdentifierBag;
+import org.hibernate.collection.spi.PersistentList;
+import org.hibernate.collection.spi.PersistentMap;
+import org.hibernate.collection.spi.PersistentSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Access to the underlying collection, map or array of Hibernate persistent collections. The field getters are resolved
+ * once per persistent collection class, and backed by method handles.
+ */
+final class PersistentCollectionAccessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentCollectionAccessor.class);
+
+    /**
+     * Getter handle type
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Persistent collection base classes (sorted variants inherit their field)
+     */
+    private static final Class<?>[] BASE_CLASSES = { PersistentSet.class, PersistentList.class, PersistentBag.class,
+            PersistentIdentifierBag.class, PersistentMap.class, PersistentArrayHolder.class };
+
+    /**
+     * Underlying value field names, for each base class
+     */
+    private static final String[] FIELD_NAMES = { "set", "list", "bag", "values", "map", "array" };
+
+    /**
+     * Getter handles, by persistent collection class (null for unknown implementations)
+     */
+    private static final ClassValue<MethodHandle> GETTERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            for (int index = 0; index < BASE_CLASSES.length; index++) {
+                if (BASE_CLASSES[index].isAssignableFrom(type)) {
+                    return resolveGetter(BASE_CLASSES[index], FIELD_NAMES[index]);
+                }
+            }
+
+            LOGGER.debug("No underlying value for persistent collection type [{}].", type);
+            return null;
+        }
+    };
+
+    private PersistentCollectionAccessor() {}
+
+    /**
+     * Get the underlying collection, map or array of the argument persistent collection
+     *
+     * @param persistentCollection the persistent collection
+     * @return the underlying value, or null for custom persistent collection implementations
+     */
+    static Object getUnderlyingValue(PersistentCollection<?> persistentCollection) {
+        MethodHandle getter = GETTERS.get(persistentCollection.getClass());
+        if (getter == null) {
+            return null;
+        }
+
+        try {
+            return getter.invokeExact((Object) persistentCollection);
+        } catch (Throwable ex) {
+            // Should not happen
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Get the underlying collection of the argument persistent collection
+     *
+     * @return the underlying collection, or null for persistent maps, arrays and custom implementations
+     */
+    static Collection<?> getUnderlyingCollection(PersistentCollection<?> persistentCollection) {
+        Object underlying = getUnderlyingValue(persistentCollection);
+        return (underlying instanceof Collection) ? (Collection<?>) underlying : null;
+    }
+
+    /**
+     * Get the underlying map of the argument persistent map
+     *
+     * @return the underlying map, or null for persistent collections, arrays and custom implementations
+     */
+    static Map<?, ?> getUnderlyingMap(PersistentCollection<?> persistentMap) {
+        Object underlying = getUnderlyingValue(persistentMap);
+        return (underlying instanceof Map) ? (Map<?, ?>) underlying : null;
+    }
+
+    /**
+     * Resolve the getter of the underlying value field
+     */
+    private static MethodHandle resolveGetter(Class<?> baseClass, String fieldName) {
+        try {
+            Field field = baseClass.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (Exception ex) {
+            throw new RuntimeException("Cannot access field " + fieldName + " of " + baseClass, ex);
+        }
+    }
+}
@@ -6,17 +6,27 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.hibernate.FlushMode;
 import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 
 import junit.framework.TestCase;
+import net.sf.gilead.core.graph.CloneGraph;
+import net.sf.gilead.core.hibernate.HibernateUtil;
 import net.sf.gilead.core.wrapper.WrappingArrayClass;
 import net.sf.gilead.core.wrapper.WrappingClass;
 import net.sf.gilead.core.wrapper.WrappingClass.ErrorCode;
@@ -267,6 +277,144 @@ public abstract class CloneTest extends TestCase {
         assertNotNull(cloneUserList);
     }
 
+    /**
+     * Test batch clone of a message list : shared authors must be cloned once
+     */
+    @SuppressWarnings("unchecked")
+    public void testBatchCloneMessageList() {
+        // Get MessageDAO
+        IMessageDAO messageDAO = DAOFactory.getMessageDAO();
+        assertNotNull(messageDAO);
+
+        // Load messages
+        List<IMessage> messageList = messageDAO.loadAllMessage();
+        assertNotNull(messageList);
+        assertFalse(messageList.isEmpty());
+
+        // Clone messages in batch
+        List<IMessage> cloneMessageList;
+        beanManager.setBatchClone(true);
+        try {
+            cloneMessageList = (List<IMessage>) beanManager.clone(messageList);
+        } finally {
+            beanManager.setBatchClone(false);
+        }
+
+        // Test cloned messages
+        assertNotNull(cloneMessageList);
+        assertEquals(messageList.size(), cloneMessageList.size());
+
+        Map<Object, Object> cloneAuthors = new IdentityHashMap<>();
+        for (int index = 0; index < messageList.size(); index++) {
+            IMessage cloneMessage = cloneMessageList.get(index);
+            assertEquals(cloneMessageClass, cloneMessage.getClass());
+            if (cloneMessage.getAuthor() == null) {
+                continue;
+            }
+
+            Object previous = cloneAuthors.put(messageList.get(index).getAuthor(), cloneMessage.getAuthor());
+            if (previous != null) {
+                assertSame(previous, cloneMessage.getAuthor());
+            }
+        }
+    }
+
+    /**
+     * Test parallel clone of a message list : messages share the same author (and its message collection), that must
+     * be cloned once, and message order must be kept
+     */
+    @SuppressWarnings("unchecked")
+    public void testParallelCloneMessageList() throws Exception {
+        // Load messages of the same author
+        IUser user = DAOFactory.getUserDAO().searchUserAndMessagesByLogin(TestHelper.JUNIT_LOGIN);
+        assertNotNull(user);
+        List<IMessage> messageList = new ArrayList<>(user.getMessageList());
+        assertTrue(messageList.size() > 1);
+
+        // Clone messages in parallel (falls back to sequential clone for stateful stores)
+        List<IMessage> cloneMessageList;
+        boolean useGeneratedCopier = beanManager.isUseGeneratedCopier();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        beanManager.setUseGeneratedCopier(true);
+        beanManager.setParallelClone(true);
+        beanManager.setParallelCloneThreshold(2);
+        beanManager.setForkJoinPool(pool);
+        try {
+            cloneMessageList = (List<IMessage>) beanManager.clone(messageList);
+
+            // No session must be left bound to the pool threads
+            PersistenceUtil persistenceUtil = beanManager.getPersistenceUtil();
+            CyclicBarrier barrier = new CyclicBarrier(pool.getParallelism());
+            List<ForkJoinTask<Boolean>> checks = new ArrayList<>();
+            for (int index = 0; index < pool.getParallelism(); index++) {
+                checks.add(pool.submit(() -> {
+                    barrier.await(10, TimeUnit.SECONDS);
+                    return Boolean.valueOf(persistenceUtil.hasCurrentSession());
+                }));
+            }
+            for (ForkJoinTask<Boolean> check : checks) {
+                assertFalse(check.get().booleanValue());
+            }
+        } finally {
+            beanManager.setUseGeneratedCopier(useGeneratedCopier);
+            beanManager.setParallelClone(false);
+            beanManager.setParallelCloneThreshold(PersistentBeanManager.DEFAULT_PARALLEL_CLONE_THRESHOLD);
+            beanManager.setForkJoinPool(null);
+            pool.shutdown();
+        }
+
+        // Test cloned messages
+        assertNotNull(cloneMessageList);
+        assertEquals(messageList.size(), cloneMessageList.size());
+
+        IUser cloneAuthor = cloneMessageList.get(0).getAuthor();
+        assertNotNull(cloneAuthor);
+        for (int index = 0; index < messageList.size(); index++) {
+            IMessage cloneMessage = cloneMessageList.get(index);
+            assertEquals(cloneMessageClass, cloneMessage.getClass());
+            assertEquals(messageList.get(index).getId(), cloneMessage.getId());
+            assertSame(cloneAuthor, cloneMessage.getAuthor());
+            assertSame(cloneAuthor.getMessageList(), cloneMessage.getAuthor().getMessageList());
+        }
+    }
+
+    /**
+     * Test stream clone : each cloned chunk must be released from the session
+     */
+    public void testCloneStreamReleasesChunks() {
+        int chunkSize = 5;
+        int messageCount = DAOFactory.getMessageDAO().countAllMessages();
+        assertTrue(messageCount > 2 * chunkSize);
+
+        // Stream messages in the current session
+        SessionFactory sessionFactory = HibernateContext.getSessionFactory();
+        Session session = sessionFactory.getCurrentSession();
+        Transaction transaction = session.beginTransaction();
+        PersistenceUtil persistenceUtil = beanManager.getPersistenceUtil();
+        HibernateUtil streamUtil = new HibernateUtil(sessionFactory, session);
+        beanManager.setPersistenceUtil(streamUtil);
+        try {
+            int count = 0;
+            try (Stream<IMessage> cloneStream = beanManager.cloneStream(streamUtil.streamQuery("from Message", null, chunkSize), chunkSize)) {
+                Iterator<IMessage> iterator = cloneStream.iterator();
+                while (iterator.hasNext()) {
+                    IMessage cloneMessage = iterator.next();
+                    assertEquals(cloneMessageClass, cloneMessage.getClass());
+                    if (count % chunkSize == 0) {
+                        // The chunk has just been cloned : it must not be managed by the session anymore
+                        int managedCount = ((SharedSessionContractImplementor) session).getPersistenceContext().getNumberOfManagedEntities();
+                        assertTrue("Managed entities : " + managedCount, managedCount < chunkSize);
+                    }
+                    count++;
+                }
+            }
+            assertEquals(messageCount, count);
+        } finally {
+            beanManager.setPersistenceUtil(persistenceUtil);
+            transaction.commit();
+        }
+    }
+
     /**
      * Test map cloning
      */
@@ -896,6 +1044,46 @@ public abstract class CloneTest extends TestCase {
 
     }
 
+    /**
+     * Test clone restricted to a clone graph
+     */
+    public void testCloneWithGraph() {
+        // Get UserDAO
+        IUserDAO userDAO = DAOFactory.getUserDAO();
+        assertNotNull(userDAO);
+
+        // Load user and messages
+        IUser user = userDAO.searchUserAndMessagesByLogin(TestHelper.JUNIT_LOGIN);
+        assertNotNull(user);
+        assertFalse(user.getMessageList().isEmpty());
+
+        // Clone user with messages only
+        IUser cloneUser = (IUser) beanManager.cloneWithGraph(user, CloneGraph.of("messageList"));
+
+        // Test cloned user : associations outside the graph are null, basic and embedded properties are cloned
+        assertNotNull(cloneUser);
+        assertEquals(cloneUserClass, cloneUser.getClass());
+        assertEquals(user.getLogin(), cloneUser.getLogin());
+        assertNull(cloneUser.getGroupList());
+        if (testComponentType == true) {
+            assertNotNull(cloneUser.getAddress());
+        }
+        assertNotNull(cloneUser.getMessageList());
+        assertEquals(user.getMessageList().size(), cloneUser.getMessageList().size());
+        for (IMessage cloneMessage : cloneUser.getMessageList()) {
+            assertEquals(cloneMessageClass, cloneMessage.getClass());
+            assertNull(cloneMessage.getAuthor());
+        }
+
+        // Clone user with messages and their (interface typed) author
+        cloneUser = (IUser) beanManager.cloneWithGraph(user, CloneGraph.of("messageList.author"));
+        assertNotNull(cloneUser);
+        assertNull(cloneUser.getGroupList());
+        for (IMessage cloneMessage : cloneUser.getMessageList()) {
+            assertSame(cloneUser, cloneMessage.getAuthor());
+        }
+    }
+
     /**
      * Test merge a new entity object graph (created on client side)
      */
@@ -950,6 +1138,124 @@ public abstract class CloneTest extends TestCase {
         assertTrue(mergeUser == mergeMessage.getAuthor());
     }
 
+    /**
+     * Test the static analysis pruning wrapper properties that cannot hold persistent objects
+     */
+    public void testCanHoldPersistentObject() throws Exception {
+        // Basic types
+        assertFalse(beanManager.canHoldPersistentObject(String.class, new HashSet<Class<?>>()));
+        assertFalse(beanManager.canHoldPersistentObject(Integer.class, new HashSet<Class<?>>()));
+
+        // Persistent classes and their supertypes
+        assertTrue(beanManager.canHoldPersistentObject(domainUserClass, new HashSet<Class<?>>()));
+        assertTrue(beanManager.canHoldPersistentObject(IUser.class, new HashSet<Class<?>>()));
+        assertTrue(beanManager.canHoldPersistentObject(Object.class, new HashSet<Class<?>>()));
+
+        // Not persistent classes : only final classes are analysed through their properties
+        assertFalse(beanManager.canHoldPersistentObject(NameHolder.class, new HashSet<Class<?>>()));
+        assertTrue(beanManager.canHoldPersistentObject(Configuration.class, new HashSet<Class<?>>()));
+        assertTrue(beanManager.canHoldPersistentObject(WrappingClass.class, new HashSet<Class<?>>()));
+
+        // Collections : depends on their element type
+        assertTrue(beanManager.canHoldPersistentObject(WrappingClass.class.getMethod("getMessageList").getGenericReturnType(),
+                new HashSet<Class<?>>()));
+        assertFalse(beanManager.canHoldPersistentObject(CloneTest.class.getDeclaredMethod("getNameList").getGenericReturnType(),
+                new HashSet<Class<?>>()));
+    }
+
+    /**
+     * Generic return type for {@link #testCanHoldPersistentObject()}
+     */
+    private List<String> getNameList() {
+        return null;
+    }
+
+    /**
+     * Test wrapper detection of a persistent object held by a subclass of the declared property type
+     */
+    public void testHoldPersistentObjectInSubclass() {
+        IUser user = DAOFactory.getUserDAO().loadUserByLogin(TestHelper.JUNIT_LOGIN);
+        assertNotNull(user);
+
+        NameHolderWrapper wrapper = new NameHolderWrapper();
+        wrapper.setHolder(new NameHolder());
+        assertFalse(beanManager.holdPersistentObject(wrapper));
+
+        UserHolder userHolder = new UserHolder();
+        userHolder.setUser(user);
+        BaseHolderWrapper baseWrapper = new BaseHolderWrapper();
+        baseWrapper.setHolder(userHolder);
+        assertTrue(beanManager.holdPersistentObject(baseWrapper));
+    }
+
+    /**
+     * Not persistent holder, without persistent property
+     */
+    public static class BaseHolder {
+
+        public String getName() {
+            return "holder";
+        }
+    }
+
+    /**
+     * Holder subclass referencing a persistent object
+     */
+    public static class UserHolder extends BaseHolder {
+
+        private IUser user;
+
+        public IUser getUser() {
+            return user;
+        }
+
+        public void setUser(IUser user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * Final holder, that can never hold persistent objects
+     */
+    public static final class NameHolder {
+
+        public String getName() {
+            return "name";
+        }
+    }
+
+    /**
+     * Wrapper declaring a base holder property
+     */
+    public static class BaseHolderWrapper {
+
+        private BaseHolder holder;
+
+        public BaseHolder getHolder() {
+            return holder;
+        }
+
+        public void setHolder(BaseHolder holder) {
+            this.holder = holder;
+        }
+    }
+
+    /**
+     * Wrapper declaring a final holder property
+     */
+    public static class NameHolderWrapper {
+
+        private NameHolder holder;
+
+        public NameHolder getHolder() {
+            return holder;
+        }
+
+        public void setHolder(NameHolder holder) {
+            this.holder = holder;
+        }
+    }
+
     /**
      * Create a new message
      *
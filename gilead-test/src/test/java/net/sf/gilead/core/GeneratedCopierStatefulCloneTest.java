@@ -0,0 +1,24 @@
+package net.sf.gilead.core;
+
+/**
+ * Clone test for stateful mode, with generated copiers instead of beanlib
+ */
+public class GeneratedCopierStatefulCloneTest extends StatefulCloneTest {
+    /**
+     * Test setup
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        beanManager.setUseGeneratedCopier(true);
+    }
+
+    /**
+     * Test tear down : the bean manager is shared with other tests
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        beanManager.setUseGeneratedCopier(false);
+        super.tearDown();
+    }
+}
@@ -0,0 +1,70 @@
+package net.sf.gilead.core;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.query.Query;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.hibernate.HibernateUtil;
+import net.sf.gilead.test.HibernateContext;
+import net.sf.gilead.test.domain.misc.Page;
+import net.sf.gilead.test.domain.misc.Photo;
+
+/**
+ * Test case for in place detach of LightEntity instances
+ */
+public class InPlaceDetachTest extends TestCase {
+
+    /**
+     * Test in place detach of a loaded page and its photos
+     */
+    public void testInPlaceDetach() {
+        PersistentBeanManager beanManager = TestHelper.initStatelessBeanManager();
+        PersistenceUtil persistenceUtil = beanManager.getPersistenceUtil();
+
+        // Create test page
+        Page page = new Page();
+        page.setName("In place page");
+        Photo photo = new Photo();
+        photo.setUrl("In place photo");
+        page.addPhoto(photo);
+
+        Session session = HibernateContext.getSessionFactory().getCurrentSession();
+        Transaction transaction = session.beginTransaction();
+        try {
+            session.saveOrUpdate(page);
+            transaction.commit();
+
+            // Load page in a new transaction of the current session
+            session = HibernateContext.getSessionFactory().getCurrentSession();
+            transaction = session.beginTransaction();
+            Query<Page> query = session.createQuery("from Page page where page.name=:name", Page.class);
+            query.setParameter("name", page.getName());
+            Page loadPage = query.uniqueResult();
+            assertTrue(loadPage.getPhotoList() instanceof PersistentCollection);
+            assertEquals(1, loadPage.getPhotoList().size());
+
+            // Detach page in place
+            beanManager.setPersistenceUtil(new HibernateUtil(HibernateContext.getSessionFactory(), session));
+            beanManager.setInPlaceDetach(true);
+            Page detachPage = (Page) beanManager.clone(loadPage);
+
+            // The session does not track the page and its photos anymore
+            assertSame(loadPage, detachPage);
+            assertFalse(session.contains(detachPage));
+            assertFalse(detachPage.getPhotoList() instanceof PersistentCollection);
+            assertEquals(1, detachPage.getPhotoList().size());
+            for (Photo detachPhoto : detachPage.getPhotoList()) {
+                assertFalse(session.contains(detachPhoto));
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        } finally {
+            beanManager.setInPlaceDetach(false);
+            beanManager.setPersistenceUtil(persistenceUtil);
+        }
+    }
+}
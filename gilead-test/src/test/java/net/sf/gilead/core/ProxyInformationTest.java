@@ -0,0 +1,93 @@
+package net.sf.gilead.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.serialization.CompactIdList;
+import net.sf.gilead.core.serialization.SerializableId;
+import net.sf.gilead.pojo.base.ILightEntity;
+
+/**
+ * Test case for proxy informations
+ */
+public class ProxyInformationTest extends TestCase {
+
+    /**
+     * Test conversion to and from the legacy map format
+     */
+    public final void testMapConversion() {
+        ArrayList<SerializableId> idList = new ArrayList<>();
+        idList.add(createId(1L));
+        idList.add(createId(2L));
+        ProxyInformation proxyInformation = ProxyInformation
+                .forPersistentCollection("org.hibernate.collection.spi.PersistentSet", "java.util.HashSet", "User.messageList", 3L, idList)
+                .withInitialized(false);
+
+        ProxyInformation converted = ProxyInformation.fromMap(proxyInformation.toMap());
+        assertEquals("org.hibernate.collection.spi.PersistentSet", converted.getClassName());
+        assertEquals("java.util.HashSet", converted.getUnderlyingClassName());
+        assertEquals("User.messageList", converted.getRole());
+        assertEquals(3L, converted.getKey());
+        assertEquals(idList, converted.getIds());
+        assertFalse(converted.isInitialized());
+        assertTrue(converted.withoutInitialized().isInitialized());
+    }
+
+    /**
+     * Test conversion of compact ids lists
+     */
+    public final void testCompactIdList() {
+        CompactIdList idList = CompactIdList.of("net.sf.gilead.test.domain.Message", Arrays.asList(1L, 2L, 3L));
+        assertNotNull(idList);
+        assertEquals(createId(2L), idList.get(1));
+        assertNull(CompactIdList.of("net.sf.gilead.test.domain.Message", Arrays.asList(1L, 2)));
+
+        ProxyInformation proxyInformation = ProxyInformation.forPersistentCollection("org.hibernate.collection.spi.PersistentBag",
+                "java.util.ArrayList", "User.messageList", 3L, idList);
+        assertSame(idList, proxyInformation.getIds());
+
+        ProxyInformation converted = ProxyInformation.fromMap(proxyInformation.toMap());
+        assertTrue(converted.getIds() instanceof CompactIdList);
+        assertEquals(idList, converted.getIds());
+    }
+
+    /**
+     * Test reading of the former persistent map format
+     */
+    public final void testLegacyPersistentMap() {
+        ArrayList<SerializableId> keyList = new ArrayList<>();
+        keyList.add(createId(1L));
+        keyList.add(createId(2L));
+        ArrayList<SerializableId> valueList = new ArrayList<>();
+        valueList.add(createId(10L));
+        valueList.add(createId(20L));
+
+        Map<String, Serializable> map = new HashMap<>();
+        map.put("class", "org.hibernate.collection.spi.PersistentMap");
+        map.put("idList", keyList);
+        map.put("valueList", valueList);
+        map.put(ILightEntity.INITIALISED, Boolean.TRUE);
+
+        ProxyInformation proxyInformation = ProxyInformation.valueOf(map);
+        assertEquals(4, proxyInformation.getIds().size());
+        assertEquals(createId(1L), proxyInformation.getIds().get(0));
+        assertEquals(createId(10L), proxyInformation.getIds().get(1));
+        assertEquals(createId(2L), proxyInformation.getIds().get(2));
+        assertEquals(createId(20L), proxyInformation.getIds().get(3));
+        assertTrue(proxyInformation.isInitialized());
+    }
+
+    /**
+     * @return a serializable id for the argument id
+     */
+    private SerializableId createId(Long id) {
+        SerializableId result = new SerializableId();
+        result.setEntityName("net.sf.gilead.test.domain.Message");
+        result.setId(id);
+        return result;
+    }
+}
@@ -1,10 +1,27 @@
 package net.sf.gilead.core.hibernate;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.hibernate.SessionFactory;
+import org.hibernate.collection.spi.PersistentMap;
+import org.hibernate.internal.SessionFactoryImpl;
 
 import junit.framework.TestCase;
+import net.sf.gilead.core.PersistenceProbe;
+import net.sf.gilead.core.ProxyInformation;
 import net.sf.gilead.core.TestHelper;
+import net.sf.gilead.core.hibernate.EntityMetadataIndex.EntityMetadata;
+import net.sf.gilead.core.serialization.SerializableId;
 import net.sf.gilead.exception.NotPersistentObjectException;
+import net.sf.gilead.exception.StaleSnapshotException;
 import net.sf.gilead.exception.TransientObjectException;
 import net.sf.gilead.test.DAOFactory;
 import net.sf.gilead.test.HibernateContext;
@@ -16,6 +33,7 @@ import net.sf.gilead.test.domain.interfaces.IUser;
 import net.sf.gilead.test.domain.misc.Configuration;
 /* import net.sf.gilead.test.domain.misc.PageElement;
  import net.sf.gilead.test.domain.misc.TextElement; */
+import net.sf.gilead.test.domain.stateless.Address;
 import net.sf.gilead.test.domain.stateless.Message;
 import net.sf.gilead.test.domain.stateless.User;
 
@@ -94,6 +112,28 @@ public class HibernateUtilTest extends TestCase {
         assertFalse(HibernateUtil.getInstance().isPersistentPojo(configuration));
     }
 
+    /**
+     * Test persistence probing
+     */
+    public final void testProbe() {
+        // Get test user
+        IUserDAO userDAO = DAOFactory.getUserDAO();
+        IUser user = userDAO.loadUser(Integer.valueOf(1));
+        assertNotNull(user);
+
+        // Persistent entity
+        PersistenceProbe probe = HibernateUtil.getInstance().probe(user);
+        assertEquals(PersistenceProbe.State.PERSISTENT, probe.getState());
+        assertEquals(user.getId(), probe.getId());
+        assertEquals(User.class.getName(), probe.getEntityName());
+
+        // Transient entity : no exception
+        assertEquals(PersistenceProbe.State.TRANSIENT, HibernateUtil.getInstance().probe(new User()).getState());
+
+        // Non Hibernate object : no exception
+        assertEquals(PersistenceProbe.State.NOT_PERSISTENT, HibernateUtil.getInstance().probe(new Configuration()).getState());
+    }
+
     /**
      * Test Hibernate class checking
      */
@@ -103,6 +143,198 @@ public class HibernateUtilTest extends TestCase {
         assertFalse(HibernateUtil.getInstance().isPersistentClass(Configuration.class));
     }
 
+    /**
+     * Test SerializableId equality
+     */
+    public final void testSerializableIdEquality() {
+        SerializableId id = createSerializableId(User.class.getName(), Integer.valueOf(1), null);
+        SerializableId sameId = createSerializableId(User.class.getName(), Integer.valueOf(1), null);
+        SerializableId sameIdWithValue = createSerializableId(User.class.getName(), Integer.valueOf(1), "value");
+        assertEquals(id, sameId);
+        assertEquals(sameId, id);
+        assertEquals(id.hashCode(), sameId.hashCode());
+        assertEquals(id, sameIdWithValue);
+        assertEquals(sameIdWithValue, id);
+        assertEquals(id.hashCode(), sameIdWithValue.hashCode());
+
+        // Different id or entity name
+        assertFalse(id.equals(createSerializableId(User.class.getName(), Integer.valueOf(2), null)));
+        assertFalse(id.equals(createSerializableId(Message.class.getName(), Integer.valueOf(1), null)));
+        assertFalse(id.equals(null));
+
+        // No id : compare values
+        SerializableId value = createSerializableId(String.class.getName(), null, "value");
+        SerializableId sameValue = createSerializableId(String.class.getName(), null, "value");
+        assertEquals(value, sameValue);
+        assertEquals(sameValue, value);
+        assertEquals(value.hashCode(), sameValue.hashCode());
+        assertFalse(value.equals(createSerializableId(String.class.getName(), null, "other")));
+        assertFalse(value.equals(id));
+        assertFalse(id.equals(value));
+    }
+
+    /**
+     * Test the paired key and value ids of a persistent map
+     */
+    public final void testPersistentMapRoundTrip() {
+        // Map users by login
+        IUserDAO userDAO = DAOFactory.getUserDAO();
+        Map<String, IUser> map = new LinkedHashMap<>();
+        for (IUser user : userDAO.loadAll()) {
+            map.put(user.getLogin(), user);
+        }
+        assertFalse(map.isEmpty());
+
+        // Serialize map
+        ProxyInformation proxyInformation = HibernateUtil.getInstance().serializePersistentMap(new PersistentMap<>(null, map));
+        List<SerializableId> entryList = proxyInformation.getIds();
+        assertEquals(2 * map.size(), entryList.size());
+        int index = 0;
+        for (Map.Entry<String, IUser> entry : map.entrySet()) {
+            assertEquals(entry.getKey(), entryList.get(index).getValue());
+            assertEquals(entry.getValue().getId(), entryList.get(index + 1).getId());
+            index += 2;
+        }
+
+        // Rebuild the original map from the entry ids
+        Map<String, IUser> originalMap = HibernateUtil.getInstance().createOriginalMap(proxyInformation, map);
+        assertEquals(map.size(), originalMap.size());
+        for (Map.Entry<String, IUser> entry : map.entrySet()) {
+            assertSame(entry.getValue(), originalMap.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Test the loading of entities removed on client side : rows deleted from the database are skipped
+     */
+    public final void testLoadRemovedEntities() {
+        IUserDAO userDAO = DAOFactory.getUserDAO();
+        IUser user = userDAO.loadUser(Integer.valueOf(1));
+        assertNotNull(user);
+
+        // Map entries of an existing user and of a deleted one, both removed on client side
+        List<SerializableId> entryList = new ArrayList<>();
+        entryList.add(createSerializableId(String.class.getName(), null, "existing"));
+        entryList.add(createSerializableId(User.class.getName(), user.getId(), null));
+        entryList.add(createSerializableId(String.class.getName(), null, "deleted"));
+        entryList.add(createSerializableId(User.class.getName(), Integer.valueOf(Integer.MAX_VALUE), null));
+        ProxyInformation proxyInformation = ProxyInformation.forPersistentMap(PersistentMap.class.getName(), null, null, entryList);
+
+        HibernateUtil.getInstance().openSession();
+        try {
+            Map<String, IUser> originalMap = HibernateUtil.getInstance().createOriginalMap(proxyInformation, new HashMap<String, IUser>());
+            assertEquals(1, originalMap.size());
+            assertEquals(user.getId(), originalMap.get("existing").getId());
+            assertFalse(originalMap.containsKey("deleted"));
+        } finally {
+            HibernateUtil.getInstance().closeCurrentSession();
+        }
+    }
+
+    /**
+     * Test digest collection snapshots : round trip, then stale snapshot after a concurrent change
+     */
+    public final void testDigestSnapshot() {
+        IUserDAO userDAO = DAOFactory.getUserDAO();
+        IUser user = userDAO.searchUserAndMessagesByLogin(TestHelper.JUNIT_LOGIN);
+        assertNotNull(user);
+        assertFalse(user.getMessageList().isEmpty());
+
+        HibernateUtil hibernateUtil = HibernateUtil.getInstance();
+        hibernateUtil.setDigestSnapshot(true);
+        try {
+            // Only the element count and digest are serialized
+            ProxyInformation proxyInformation = hibernateUtil.serializePersistentCollection(user.getMessageList());
+            assertNull(proxyInformation.getIds());
+            assertNotNull(proxyInformation.getIdDigest());
+            assertEquals(user.getMessageList().size(), proxyInformation.getIdCount());
+
+            // Round trip : the original element ids are reloaded and match the digest
+            hibernateUtil.openSession();
+            try {
+                Collection<?> collection = hibernateUtil.createPersistentCollection(user, proxyInformation,
+                        new HashSet<>(user.getMessageList()));
+                assertEquals(user.getMessageList().size(), collection.size());
+            } finally {
+                hibernateUtil.closeCurrentSession();
+            }
+
+            // Concurrent change
+            IMessageDAO messageDAO = DAOFactory.getMessageDAO();
+            Message message = new Message();
+            message.setDate(new Date());
+            message.setMessage("concurrent message");
+            message.setAuthor(user);
+            messageDAO.saveMessage(message);
+            try {
+                hibernateUtil.openSession();
+                try {
+                    hibernateUtil.createPersistentCollection(user, proxyInformation, new HashSet<>(user.getMessageList()));
+                    fail("Expected a stale snapshot exception");
+                } catch (StaleSnapshotException ex) { /* expected behavior */} finally {
+                    hibernateUtil.closeCurrentSession();
+                }
+            } finally {
+                messageDAO.deleteMessage(message);
+            }
+        } finally {
+            hibernateUtil.setDigestSnapshot(false);
+        }
+    }
+
+    /**
+     * Create a SerializableId
+     */
+    private static SerializableId createSerializableId(String entityName, Serializable id, String value) {
+        SerializableId result = new SerializableId();
+        result.setEntityName(entityName);
+        result.setId(id);
+        result.setValue(value);
+        return result;
+    }
+
+    /**
+     * Test the persistence computation at startup
+     */
+    public final void testWarmUp() {
+        HibernateUtil util = new HibernateUtil(HibernateUtil.getInstance().getSessionFactory(), null);
+
+        // Entities and their component types are computed by the warm up
+        assertTrue(util.isPersistenceComputed(User.class));
+        assertTrue(util.isPersistenceComputed(Message.class));
+        assertTrue(util.isPersistenceComputed(Address.class));
+        assertFalse(util.isPersistenceComputed(Configuration.class));
+        assertTrue(util.isPersistentClass(Address.class));
+
+        // Supertypes of entities rely on it
+        assertTrue(util.isPersistentSupertype(IUser.class));
+        assertFalse(util.isPersistentSupertype(Configuration.class));
+    }
+
+    /**
+     * Test the metadata index lookups
+     */
+    public final void testMetadataIndex() {
+        EntityMetadataIndex index = new EntityMetadataIndex((SessionFactoryImpl) HibernateUtil.getInstance().getSessionFactory());
+
+        // Lookup by class and by entity name
+        List<EntityMetadata> entities = index.getEntities(User.class);
+        assertEquals(1, entities.size());
+        EntityMetadata metadata = entities.get(0);
+        assertEquals(User.class.getName(), metadata.getEntityName());
+        assertSame(metadata, index.getEntity(User.class.getName()));
+        assertEquals("id", metadata.getIdentifierPropertyName());
+        assertFalse(metadata.isVirtualIdentifier());
+
+        // Not persistent class
+        assertTrue(index.getEntities(Configuration.class).isEmpty());
+        assertNull(index.getEntity(Configuration.class.getName()));
+
+        // Collection persisters
+        assertNotNull(index.getCollectionPersister(User.class.getName() + ".messageList"));
+        assertNull(index.getCollectionPersister(User.class.getName() + ".login"));
+    }
+
     /**
      * Test association loading
      */
@@ -119,4 +351,38 @@ public class HibernateUtilTest extends TestCase {
         assertTrue(HibernateUtil.getInstance().isInitialized(loadedMessage.getAuthor()));
 
     }
+
+    /**
+     * Test batch association loading
+     */
+    public void testBatchAssociationLoad() {
+        // Load test message
+        IMessageDAO messageDAO = DAOFactory.getMessageDAO();
+        IMessage message = messageDAO.loadLastMessage();
+        assertNotNull(message);
+
+        // Test 'author' loading
+        List<Serializable> ids = new ArrayList<>();
+        ids.add(message.getId());
+        List<Object> loadedMessages = HibernateUtil.getInstance().loadAssociations(message.getClass(), ids, "author");
+        assertEquals(1, loadedMessages.size());
+        assertTrue(HibernateUtil.getInstance().isInitialized(((IMessage) loadedMessages.get(0)).getAuthor()));
+    }
+
+    /**
+     * Test paged association loading
+     */
+    public void testAssociationPageLoad() {
+        // Load test message author
+        IMessageDAO messageDAO = DAOFactory.getMessageDAO();
+        IMessage message = messageDAO.loadLastMessage();
+        assertNotNull(message);
+        IUser author = message.getAuthor();
+
+        // Test 'messageList' size and first page
+        int size = HibernateUtil.getInstance().getAssociationSize(author.getClass(), author.getId(), "messageList");
+        assertTrue(size > 0);
+        List<Object> page = HibernateUtil.getInstance().loadAssociationPage(author.getClass(), author.getId(), "messageList", 0, 1);
+        assertEquals(1, page.size());
+    }
 }
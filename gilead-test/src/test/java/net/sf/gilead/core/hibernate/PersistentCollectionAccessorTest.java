@@ -0,0 +1,71 @@
+package net.sf.gilead.core.hibernate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.hibernate.collection.spi.PersistentBag;
+import org.hibernate.collection.spi.PersistentIdentifierBag;
+import org.hibernate.collection.spi.PersistentList;
+import org.hibernate.collection.spi.PersistentMap;
+import org.hibernate.collection.spi.PersistentSet;
+import org.hibernate.collection.spi.PersistentSortedMap;
+import org.hibernate.collection.spi.PersistentSortedSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the underlying values of persistent collections
+ */
+public class PersistentCollectionAccessorTest extends TestCase {
+
+    /**
+     * Test underlying collections
+     */
+    public void testUnderlyingCollection() {
+        HibernateUtil hibernateUtil = new HibernateUtil();
+
+        List<String> bag = new ArrayList<>();
+        assertSame(bag, hibernateUtil.getUnderlyingCollection(new PersistentBag<>(null, bag)));
+
+        List<String> idbag = new ArrayList<>();
+        assertTrue(hibernateUtil.getUnderlyingCollection(new PersistentIdentifierBag<>(null, idbag)) instanceof List);
+
+        List<String> list = new ArrayList<>();
+        assertSame(list, hibernateUtil.getUnderlyingCollection(new PersistentList<>(null, list)));
+
+        Set<String> set = new HashSet<>();
+        assertSame(set, hibernateUtil.getUnderlyingCollection(new PersistentSet<>(null, set)));
+
+        SortedSet<String> sortedSet = new TreeSet<>();
+        assertSame(sortedSet, hibernateUtil.getUnderlyingCollection(new PersistentSortedSet<>(null, sortedSet)));
+
+        // Not persistent collection
+        assertSame(list, hibernateUtil.getUnderlyingCollection(list));
+    }
+
+    /**
+     * Test underlying maps
+     */
+    public void testUnderlyingMap() {
+        HibernateUtil hibernateUtil = new HibernateUtil();
+
+        Map<String, String> map = new HashMap<>();
+        PersistentMap<String, String> persistentMap = new PersistentMap<>(null, map);
+        assertSame(map, hibernateUtil.getUnderlyingMap(persistentMap));
+        assertNull(PersistentCollectionAccessor.getUnderlyingCollection(persistentMap));
+
+        SortedMap<String, String> sortedMap = new TreeMap<>();
+        assertSame(sortedMap, hibernateUtil.getUnderlyingMap(new PersistentSortedMap<>(null, sortedMap)));
+
+        // Not persistent map
+        assertSame(map, hibernateUtil.getUnderlyingMap(map));
+    }
+}
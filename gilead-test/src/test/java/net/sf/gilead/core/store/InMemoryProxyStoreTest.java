@@ -0,0 +1,146 @@
+package net.sf.gilead.core.store;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.store.stateful.InMemoryProxyStore;
+
+/**
+ * Test case for the bounded in memory proxy store
+ */
+public class InMemoryProxyStoreTest extends TestCase {
+
+    /**
+     * Test maximum entry count and LRU eviction
+     */
+    public final void testMaxEntries() {
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        proxyStore.setMaxEntries(160);
+        for (long id = 0; id < 10000; id++) {
+            proxyStore.store("User@" + id + ".messageList", createProxyInformation(id));
+        }
+
+        assertEquals(160, proxyStore.size());
+        assertEquals(10000 - 160, proxyStore.getEvictionCount());
+        assertNotNull(proxyStore.get("User@9999.messageList"));
+        assertNull(proxyStore.get("User@0.messageList"));
+        assertEquals(1, proxyStore.getHitCount());
+        assertEquals(1, proxyStore.getMissCount());
+    }
+
+    /**
+     * Test that a small maximum entry count is not reached early because of segments
+     */
+    public final void testSmallMaxEntries() {
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        proxyStore.setMaxEntries(3);
+        for (long id = 0; id < 100; id++) {
+            proxyStore.store("User@" + id + ".messageList", createProxyInformation(id));
+            assertEquals(Math.min(id + 1, 3), proxyStore.size());
+        }
+        assertNotNull(proxyStore.get("User@99.messageList"));
+        assertEquals(97, proxyStore.getEvictionCount());
+    }
+
+    /**
+     * Test the deprecated map view
+     */
+    @SuppressWarnings("deprecation")
+    public final void testMapView() {
+        MapProxyStore proxyStore = new MapProxyStore();
+        proxyStore.store("User@1.messageList", createProxyInformation(1L));
+        assertEquals(1, proxyStore.getMap().size());
+        assertNotNull(proxyStore.getMap().get("User@1.messageList"));
+
+        proxyStore.getMap().remove("User@1.messageList");
+        assertNull(proxyStore.get("User@1.messageList"));
+        assertEquals(0, proxyStore.size());
+    }
+
+    /**
+     * Test that the least recently used entry of the whole store is evicted, whatever its segment
+     */
+    public final void testGlobalLeastRecentlyUsed() {
+        ClockProxyStore proxyStore = new ClockProxyStore();
+        proxyStore.setMaxEntries(10);
+        for (long id = 0; id < 10; id++) {
+            proxyStore.store("User@" + id + ".messageList", createProxyInformation(id));
+            proxyStore.advance(1);
+        }
+
+        // Access every entry but the fifth one, then exceed the bound
+        for (long id = 0; id < 10; id++) {
+            if (id != 5) {
+                assertNotNull(proxyStore.get("User@" + id + ".messageList"));
+                proxyStore.advance(1);
+            }
+        }
+        proxyStore.store("User@10.messageList", createProxyInformation(10L));
+
+        assertEquals(10, proxyStore.size());
+        assertEquals(1, proxyStore.getEvictionCount());
+        assertNull(proxyStore.get("User@5.messageList"));
+        for (long id = 0; id < 11; id++) {
+            if (id != 5) {
+                assertNotNull(proxyStore.get("User@" + id + ".messageList"));
+            }
+        }
+    }
+
+    /**
+     * Test time to live
+     */
+    public final void testTimeToLive() {
+        ClockProxyStore proxyStore = new ClockProxyStore();
+        proxyStore.setTimeToLive(50);
+        proxyStore.store("User@1.messageList", createProxyInformation(1L));
+        proxyStore.advance(49);
+        assertNotNull(proxyStore.get("User@1.messageList"));
+
+        proxyStore.advance(1);
+        assertNull(proxyStore.get("User@1.messageList"));
+        assertEquals(1, proxyStore.getExpirationCount());
+    }
+
+    /**
+     * @return test proxy informations
+     */
+    private ProxyInformation createProxyInformation(long id) {
+        return ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.Message", id);
+    }
+
+    /**
+     * Store with a manual clock
+     */
+    private static class ClockProxyStore extends InMemoryProxyStore {
+
+        private long time;
+
+        /**
+         * Advance the clock
+         *
+         * @param millis elapsed time, in milliseconds
+         */
+        void advance(long millis) {
+            time += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+
+    /**
+     * Subclass using the deprecated map field
+     */
+    private static class MapProxyStore extends InMemoryProxyStore {
+
+        @SuppressWarnings("deprecation")
+        Map<String, ProxyInformation> getMap() {
+            return map;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package net.sf.gilead.core.store;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.serialization.CompactIdList;
+import net.sf.gilead.core.store.stateful.OffHeapProxyStore;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Test case for the off heap proxy store
+ */
+public class OffHeapProxyStoreTest extends TestCase {
+
+    /**
+     * Test store, replacement and deletion, with slab compaction
+     */
+    public final void testStore() {
+        OffHeapProxyStore proxyStore = new OffHeapProxyStore();
+        proxyStore.setSlabSize(4096);
+        for (int round = 0; round < 10; round++) {
+            for (long id = 0; id < 1000; id++) {
+                proxyStore.store("Message@" + id + ".author", ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.User", id + round));
+            }
+        }
+        for (long id = 0; id < 500; id++) {
+            proxyStore.delete("Message@" + id + ".author");
+        }
+
+        assertEquals(500, proxyStore.size());
+        assertNull(proxyStore.get("Message@10.author"));
+        assertEquals(Long.valueOf(999 + 9), proxyStore.get("Message@999.author").getId());
+    }
+
+    /**
+     * Test binary encoding of persistent collection informations
+     */
+    public final void testPersistentCollection() {
+        OffHeapProxyStore proxyStore = new OffHeapProxyStore();
+        ProxyInformation proxyInformation = ProxyInformation
+                .forPersistentCollection("org.hibernate.collection.spi.PersistentSet", "java.util.HashSet", "User.messageList", 3L,
+                        CompactIdList.of("net.sf.gilead.test.domain.Message", Arrays.asList(1L, 2L, 3L)))
+                .withInitialized(false);
+        proxyStore.store("User@3.messageList", proxyInformation);
+
+        ProxyInformation stored = proxyStore.get("User@3.messageList");
+        assertEquals(proxyInformation.toMap(), stored.toMap());
+        assertTrue(stored.getIds() instanceof CompactIdList);
+    }
+
+    /**
+     * Storing over the memory limit must fail, keeping the stored entries
+     */
+    public final void testMemoryLimit() {
+        OffHeapProxyStore proxyStore = new OffHeapProxyStore();
+        proxyStore.setSlabSize(4096);
+        proxyStore.setMaxMemory(3 * 4096);
+        long id = 0;
+        try {
+            for (; id < 10000; id++) {
+                proxyStore.store("Message@" + id + ".author", ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.User", id));
+            }
+            fail("Expected an exception over the memory limit");
+        } catch (ProxyStoreException ex) { /* expected behavior */}
+
+        assertTrue(id > 0);
+        assertEquals(id, proxyStore.size());
+        assertTrue(proxyStore.getAllocatedBytes() <= 3 * 4096);
+        assertNull(proxyStore.get("Message@" + id + ".author"));
+        assertEquals(Long.valueOf(0), proxyStore.get("Message@0.author").getId());
+        assertEquals(Long.valueOf(id - 1), proxyStore.get("Message@" + (id - 1) + ".author").getId());
+    }
+
+    /**
+     * Clear must release every slab
+     */
+    public final void testClear() {
+        OffHeapProxyStore proxyStore = new OffHeapProxyStore();
+        proxyStore.setSlabSize(4096);
+        for (long id = 0; id < 1000; id++) {
+            proxyStore.store("Message@" + id + ".author", ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.User", id));
+        }
+        assertTrue(proxyStore.getAllocatedBytes() > 0);
+
+        proxyStore.clear();
+        assertEquals(0, proxyStore.size());
+        assertEquals(0, proxyStore.getAllocatedBytes());
+        assertNull(proxyStore.get("Message@1.author"));
+    }
+}
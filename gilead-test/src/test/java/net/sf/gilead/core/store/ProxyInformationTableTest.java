@@ -0,0 +1,64 @@
+package net.sf.gilead.core.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.store.stateful.ProxyInformationTable;
+
+/**
+ * Test case for the compact proxy informations table
+ */
+public class ProxyInformationTableTest extends TestCase {
+
+    /**
+     * Test store, lookup and removal
+     */
+    public final void testStore() {
+        ProxyInformationTable table = new ProxyInformationTable();
+        ProxyInformation proxyInformation = ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.User", 1L);
+        table.put("net.sf.gilead.test.domain.Message", 42L, "author", proxyInformation);
+
+        assertSame(proxyInformation, table.get("net.sf.gilead.test.domain.Message", 42L, "author"));
+        assertSame(proxyInformation, table.get("net.sf.gilead.test.domain.Message", 42, "author"));
+        assertNull(table.get("net.sf.gilead.test.domain.Message", 43L, "author"));
+        assertNull(table.get("net.sf.gilead.test.domain.Message", 42L, "groupList"));
+        assertTrue(table.clearModified());
+
+        table.remove("net.sf.gilead.test.domain.Message", 42L, "author");
+        assertEquals(0, table.size());
+        assertTrue(table.clearModified());
+    }
+
+    /**
+     * Test compact serialization
+     */
+    public final void testSerialization() throws Exception {
+        ProxyInformationTable table = new ProxyInformationTable();
+        for (long id = 0; id < 100; id++) {
+            table.put("net.sf.gilead.test.domain.Message", id, "author", ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.User", id));
+        }
+        table.put("net.sf.gilead.test.domain.Group", "admin", "members", ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.User", 1L));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(table);
+        }
+
+        // Entries are binary encoded, without Java serialization of proxy informations
+        assertFalse(new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1).contains(ProxyInformation.class.getName()));
+        ProxyInformationTable copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ProxyInformationTable) in.readObject();
+        }
+
+        assertEquals(101, copy.size());
+        assertEquals(Long.valueOf(12), copy.get("net.sf.gilead.test.domain.Message", 12L, "author").getId());
+        assertNotNull(copy.get("net.sf.gilead.test.domain.Group", "admin", "members"));
+        assertFalse(copy.clearModified());
+    }
+}
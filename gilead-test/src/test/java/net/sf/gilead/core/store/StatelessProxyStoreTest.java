@@ -0,0 +1,103 @@
+package net.sf.gilead.core.store;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.PersistentBeanManager;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.TestHelper;
+import net.sf.gilead.core.serialization.GwtProxySerialization;
+import net.sf.gilead.core.serialization.IProxySerialization;
+import net.sf.gilead.core.store.stateless.StatelessProxyStore;
+import net.sf.gilead.exception.ProxyStoreException;
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+import net.sf.gilead.test.DAOFactory;
+import net.sf.gilead.test.domain.gwt.Message;
+import net.sf.gilead.test.domain.gwt.User;
+
+/**
+ * Test case for the asynchronous serialization of the stateless proxy store
+ */
+public class StatelessProxyStoreTest extends TestCase {
+
+    /**
+     * Serialized proxy informations must be added to the clone at clean up
+     */
+    public final void testAsynchronousSerialization() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setProxySerializer(new GwtProxySerialization());
+        proxyStore.setUseSerializationThread(true);
+
+        Message message = new Message();
+        proxyStore.storeProxyInformations(message, message, "author", createProxyInformation());
+        proxyStore.cleanUp();
+
+        assertTrue(message.getProxyInformation("author") instanceof IGwtSerializableParameter);
+        assertNotNull(proxyStore.getProxyInformations(message, "author"));
+    }
+
+    /**
+     * A failed serialization must be rethrown at clean up
+     */
+    public final void testFailedSerialization() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setProxySerializer(new FailingProxySerialization());
+        proxyStore.setUseSerializationThread(true);
+
+        Message message = new Message();
+        proxyStore.storeProxyInformations(message, message, "author", createProxyInformation());
+        try {
+            proxyStore.cleanUp();
+            fail("Expected an exception on failed serialization");
+        } catch (ProxyStoreException ex) { /* expected behavior */}
+
+        // Nothing left to wait for
+        proxyStore.cleanUp();
+    }
+
+    /**
+     * Proxy informations must be present, serialized, as soon as clone returns
+     */
+    public final void testCloneWithSerializationThread() {
+        PersistentBeanManager beanManager = TestHelper.initGwtStatelessBeanManager();
+        if (TestHelper.isInitialized() == false) {
+            TestHelper.initializeDB();
+        }
+        StatelessProxyStore proxyStore = (StatelessProxyStore) beanManager.getProxyStore();
+        proxyStore.setUseSerializationThread(true);
+        try {
+            // Lazy message list
+            User user = (User) DAOFactory.getUserDAO().loadUserByLogin(TestHelper.JUNIT_LOGIN);
+            User cloneUser = (User) beanManager.clone(user);
+
+            assertFalse(cloneUser.isInitialized("messageList"));
+            assertTrue(cloneUser.getProxyInformation("messageList") instanceof IGwtSerializableParameter);
+            assertNotNull(proxyStore.getProxyInformations(cloneUser, "messageList"));
+        } finally {
+            proxyStore.setUseSerializationThread(false);
+        }
+    }
+
+    /**
+     * @return test proxy informations
+     */
+    private static ProxyInformation createProxyInformation() {
+        return ProxyInformation.forEntityProxy(User.class.getName(), Integer.valueOf(1));
+    }
+
+    /**
+     * Proxy serializer always failing
+     */
+    private static class FailingProxySerialization implements IProxySerialization {
+
+        @Override
+        public Object serialize(Serializable serializable) {
+            throw new IllegalStateException("Serialization failure");
+        }
+
+        @Override
+        public Serializable unserialize(Object object) {
+            throw new IllegalStateException("Unserialization failure");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package net.sf.gilead.core.store;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.PersistenceProbe;
+import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.ProxyInformation;
+import net.sf.gilead.core.store.stateful.AbstractStatefulProxyStore;
+
+/**
+ * Test case for the write behind mode of stateful proxy stores
+ */
+public class WriteBehindProxyStoreTest extends TestCase {
+
+    /**
+     * The tested proxy store
+     */
+    private RecordingProxyStore proxyStore;
+
+    /**
+     * Test initialisation
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        proxyStore = new RecordingProxyStore();
+        proxyStore.setPersistenceUtil(createPersistenceUtil());
+        proxyStore.setWriteBehind(true);
+    }
+
+    /**
+     * Pending writes must be visible to the writing thread
+     */
+    public final void testReadYourWrites() {
+        Item item = new Item(1);
+        ProxyInformation proxyInformation = createProxyInformation(1L);
+        proxyStore.storeProxyInformations(item, item, "messageList", proxyInformation);
+
+        assertTrue(proxyStore.entries.isEmpty());
+        assertSame(proxyInformation, proxyStore.getProxyInformations(item, "messageList"));
+        assertEquals(0, proxyStore.getCount);
+
+        proxyStore.cleanUp();
+    }
+
+    /**
+     * A pending deletion must hide the stored value
+     */
+    public final void testPendingDelete() {
+        Item item = new Item(2);
+        proxyStore.storeProxyInformations(item, item, "messageList", createProxyInformation(2L));
+        proxyStore.cleanUp();
+        assertEquals(1, proxyStore.entries.size());
+
+        proxyStore.removeProxyInformations(item, "messageList");
+        assertEquals(1, proxyStore.entries.size());
+        assertNull(proxyStore.getProxyInformations(item, "messageList"));
+
+        proxyStore.cleanUp();
+        assertTrue(proxyStore.entries.isEmpty());
+        assertEquals(1, proxyStore.deleteCount);
+    }
+
+    /**
+     * Pending stores must be flushed with a single bulk call at clean up
+     */
+    public final void testFlushAtCleanUp() {
+        for (int id = 0; id < 10; id++) {
+            Item item = new Item(id);
+            proxyStore.storeProxyInformations(item, item, "messageList", createProxyInformation(id));
+        }
+        assertTrue(proxyStore.entries.isEmpty());
+
+        proxyStore.cleanUp();
+        assertEquals(10, proxyStore.entries.size());
+        assertEquals(1, proxyStore.storeAllCount);
+        assertEquals(0, proxyStore.storeCount);
+
+        // Nothing left to flush
+        proxyStore.cleanUp();
+        assertEquals(1, proxyStore.storeAllCount);
+    }
+
+    /**
+     * @return test proxy informations
+     */
+    private static ProxyInformation createProxyInformation(long id) {
+        return ProxyInformation.forEntityProxy("net.sf.gilead.test.domain.Message", id);
+    }
+
+    /**
+     * @return a persistence util considering every {@link Item} as persistent
+     */
+    private static PersistenceUtil createPersistenceUtil() {
+        return (PersistenceUtil) Proxy.newProxyInstance(PersistenceUtil.class.getClassLoader(), new Class<?>[] { PersistenceUtil.class },
+                (proxy, method, args) -> {
+                    if ("probe".equals(method.getName())) {
+                        return (args[0] instanceof Item) ? PersistenceProbe.persistent(((Item) args[0]).id, Item.class.getName())
+                                : PersistenceProbe.notPersistent();
+                    } else if ("getUnenhancedClass".equals(method.getName())) {
+                        return args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Test entity
+     */
+    private static class Item {
+
+        private final Integer id;
+
+        Item(int id) {
+            this.id = Integer.valueOf(id);
+        }
+    }
+
+    /**
+     * Map proxy store counting storage calls
+     */
+    private static class RecordingProxyStore extends AbstractStatefulProxyStore {
+
+        private final Map<String, ProxyInformation> entries = new HashMap<>();
+
+        private int storeCount;
+
+        private int storeAllCount;
+
+        private int getCount;
+
+        private int deleteCount;
+
+        @Override
+        public void store(String key, ProxyInformation proxyInformation) {
+            storeCount++;
+            entries.put(key, proxyInformation);
+        }
+
+        @Override
+        public void storeAll(Map<String, ProxyInformation> values) {
+            storeAllCount++;
+            entries.putAll(values);
+        }
+
+        @Override
+        public ProxyInformation get(String key) {
+            getCount++;
+            return entries.get(key);
+        }
+
+        @Override
+        public void delete(String key) {
+            deleteCount++;
+            entries.remove(key);
+        }
+    }
+}
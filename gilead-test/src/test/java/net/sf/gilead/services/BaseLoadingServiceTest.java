@@ -0,0 +1,104 @@
+package net.sf.gilead.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.TestHelper;
+import net.sf.gilead.pojo.gwt.LightEntity;
+import net.sf.gilead.test.DAOFactory;
+import net.sf.gilead.test.dao.IUserDAO;
+import net.sf.gilead.test.domain.gwt.Message;
+import net.sf.gilead.test.domain.gwt.User;
+import net.sf.gilead.test.domain.interfaces.IUser;
+
+/**
+ * Loading service test case
+ */
+public class BaseLoadingServiceTest extends TestCase {
+
+    /**
+     * The tested loading service
+     */
+    private BaseLoadingService<LightEntity> loadingService;
+
+    /**
+     * Test initialisation
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        loadingService = new BaseLoadingService<>();
+        loadingService.setBeanManager(TestHelper.initGwtStatelessBeanManager());
+
+        // Init db if needed
+        if (TestHelper.isInitialized() == false) {
+            TestHelper.initializeDB();
+        }
+    }
+
+    /**
+     * Test association loading for several parents of different classes
+     */
+    public final void testLoadAssociations() {
+        // Get parents : user, employee, missing user and another user
+        IUserDAO userDAO = DAOFactory.getUserDAO();
+        User missingUser = new User();
+        missingUser.setId(Integer.valueOf(Integer.MAX_VALUE));
+        missingUser.setVersion(Integer.valueOf(0));
+
+        List<LightEntity> parents = new ArrayList<>();
+        parents.add((LightEntity) userDAO.loadUserByLogin(TestHelper.JUNIT_LOGIN));
+        parents.add((LightEntity) userDAO.loadUserByLogin(TestHelper.EMPLOYEE_LOGIN));
+        parents.add(missingUser);
+        parents.add((LightEntity) userDAO.loadUserByLogin(TestHelper.GUEST_LOGIN));
+
+        // Load associations
+        List<Collection<?>> associations = loadingService.loadAssociations(parents, "messageList");
+        assertNotNull(associations);
+        assertEquals(parents.size(), associations.size());
+
+        // Parent order must be kept
+        assertMessageCount(TestHelper.JUNIT_LOGIN, associations.get(0));
+        assertMessageCount(TestHelper.EMPLOYEE_LOGIN, associations.get(1));
+        assertNull(associations.get(2));
+        assertMessageCount(TestHelper.GUEST_LOGIN, associations.get(3));
+    }
+
+    /**
+     * Test association page loading
+     */
+    public final void testLoadListAssociationPage() {
+        // Get user and its messages
+        IUser user = DAOFactory.getUserDAO().searchUserAndMessagesByLogin(TestHelper.JUNIT_LOGIN);
+        int messageCount = user.getMessageList().size();
+        assertTrue(messageCount > 0);
+
+        // Load first page
+        List<Message> page = loadingService.loadListAssociationPage((LightEntity) user, "messageList", 0, messageCount);
+        assertNotNull(page);
+        assertEquals(messageCount, page.size());
+        for (Message message : page) {
+            // Lazy author must be cloned with its proxy informations
+            assertTrue(message.getId() > 0);
+            assertFalse(message.isInitialized("author"));
+            assertNotNull(message.getProxyInformation("author"));
+        }
+
+        // Load page after the last element
+        page = loadingService.loadListAssociationPage((LightEntity) user, "messageList", messageCount, messageCount);
+        assertNotNull(page);
+        assertTrue(page.isEmpty());
+    }
+
+    /**
+     * Check the loaded association against the messages of the user
+     */
+    private static void assertMessageCount(String login, Collection<?> association) {
+        IUser user = DAOFactory.getUserDAO().searchUserAndMessagesByLogin(login);
+        assertNotNull(association);
+        assertEquals(user.getMessageList().size(), association.size());
+    }
+}
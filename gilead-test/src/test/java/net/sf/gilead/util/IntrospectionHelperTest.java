@@ -0,0 +1,63 @@
+package net.sf.gilead.util;
+
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for Introspection helper class
+ */
+public class IntrospectionHelperTest extends TestCase {
+
+    /**
+     * Test method for {@link IntrospectionHelper#getRecursiveDeclaredMethod(Class, String, Class...)} : overloaded
+     * methods must be resolved with their parameter types, in the class or its superclasses.
+     */
+    public final void testGetRecursiveDeclaredMethod() throws NoSuchMethodException {
+        Method method = IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update", String.class);
+        assertEquals(Child.class, method.getDeclaringClass());
+        assertEquals(String.class, method.getParameterTypes()[0]);
+
+        // Overload only declared in superclass
+        method = IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update", Integer.class);
+        assertEquals(Parent.class, method.getDeclaringClass());
+        assertEquals(Integer.class, method.getParameterTypes()[0]);
+
+        // No parameter (null and empty parameter types are the same)
+        method = IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update", (Class<?>[]) null);
+        assertEquals(0, method.getParameterTypes().length);
+        assertSame(method, IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update"));
+
+        // Cached lookups still match parameter types
+        assertEquals(String.class, IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update", String.class).getParameterTypes()[0]);
+        assertEquals(Integer.class, IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update", Integer.class).getParameterTypes()[0]);
+
+        // Parameter types must match exactly
+        try {
+            IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "update", Object.class);
+            fail("Method found with wrong parameter type");
+        } catch (NoSuchMethodException ex) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test parent class
+     */
+    @SuppressWarnings("unused")
+    private static class Parent {
+        private void update() {}
+
+        protected void update(String value) {}
+
+        private void update(Integer value) {}
+    }
+
+    /**
+     * Test child class
+     */
+    private static class Child extends Parent {
+        @Override
+        protected void update(String value) {}
+    }
+}